@@ -0,0 +1,73 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加锁/释放锁热点路径内存分配基准测试，以gc.alloc.rate.norm（B/op）衡量每次加锁+释放锁的分配量
+ * <p>单线程、无竞争，基于进程内redis替身，结果包括jedis命令编码及替身自身的分配。
+ * 需启用GC profiler运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="LockAllocationBenchmark -prof gc"，
+ * 或直接运行main方法。</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class LockAllocationBenchmark {
+    private static final int KEY_COUNT = 10_000;
+
+    private RedisLock redisLock;
+    private LockOwner owner;
+    private String[] keys;
+    private int next;
+
+    @Setup
+    public void setup() {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+        owner = LockOwner.of("bench-alloc");
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "bench:alloc:many:" + i;
+        }
+        //重入测试预先持有外层锁
+        redisLock.tryLock("bench:alloc:reentrant", 1, -1L, owner);
+    }
+
+    @Benchmark
+    public boolean acquireRelease() {
+        String lockValue = redisLock.tryLock("bench:alloc:uncontended", 1, -1L, owner);
+        return redisLock.releaseLock("bench:alloc:uncontended", lockValue, owner);
+    }
+
+    @Benchmark
+    public boolean reentrantAcquireRelease() {
+        String lockValue = redisLock.tryLock("bench:alloc:reentrant", 1, -1L, owner);
+        return redisLock.releaseLock("bench:alloc:reentrant", lockValue, owner);
+    }
+
+    @Benchmark
+    public boolean manyKeysAcquireRelease() {
+        String lockKey = keys[next++ % KEY_COUNT];
+        String lockValue = redisLock.tryLock(lockKey, 1, -1L, owner);
+        return redisLock.releaseLock(lockKey, lockValue, owner);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LockAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.valley.jedis.lock;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LockStatusContainer登记/移除基准测试，容器中预先存放大量锁以模拟真实负载
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockStatusContainerBenchmark {
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    @Param({"10000"})
+    private int preloaded;
+
+    private LockStatusContainer container;
+
+    @Setup
+    public void setup() {
+        container = new LockStatusContainer(LockConfig.WATCHDOG_TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        LockOwner owner = LockOwner.of("bench-preloaded");
+        for (int i = 0; i < preloaded; i++) {
+            long expireAt = now + LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS;
+            container.add(new LockStatus(expireAt, "bench:preloaded:" + i, "value" + i, true, owner), expireAt - LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS * 2 / 3);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private LockStatus lockStatus;
+
+        @Setup
+        public void setup() {
+            int threadId = THREAD_ID.incrementAndGet();
+            long expireAt = System.currentTimeMillis() + LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS;
+            lockStatus = new LockStatus(expireAt, "bench:container:" + threadId, "value", true, LockOwner.of("bench-" + threadId));
+        }
+    }
+
+    @Benchmark
+    public void addRemove(ThreadState state) {
+        LockStatus lockStatus = state.lockStatus;
+        container.add(lockStatus, System.currentTimeMillis() + LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS / 3);
+        container.remove(lockStatus.getLockType(), lockStatus.getLockKey(), lockStatus.getLockValue());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addRemoveConcurrent(ThreadState state) {
+        addRemove(state);
+    }
+}
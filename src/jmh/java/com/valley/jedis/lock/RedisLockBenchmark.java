@@ -0,0 +1,96 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.openjdk.jmh.annotations.*;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RedisLock加锁/释放锁基准测试，基于进程内redis替身，测量客户端自身开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisLockBenchmark {
+    private static final int KEY_COUNT = 10_000;
+    private static final String CONTENDED_KEY = "bench:contended";
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private RedisLock redisLock;
+
+    @Setup
+    public void setup() {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private LockOwner owner;
+        private String lockKey;
+        private LockKey precomputedKey;
+        private String reentrantKey;
+        private String[] keys;
+        private int next;
+
+        @Setup
+        public void setup(RedisLockBenchmark benchmark) {
+            int threadId = THREAD_ID.incrementAndGet();
+            owner = LockOwner.of("bench-" + threadId);
+            lockKey = "bench:uncontended:" + threadId;
+            precomputedKey = LockKey.of("bench:precomputed:" + threadId);
+            reentrantKey = "bench:reentrant:" + threadId;
+            keys = new String[KEY_COUNT];
+            for (int i = 0; i < KEY_COUNT; i++) {
+                keys[i] = "bench:many:" + threadId + ":" + i;
+            }
+            //重入测试预先持有外层锁
+            benchmark.redisLock.tryLock(reentrantKey, 1, -1L, owner);
+        }
+    }
+
+    @Benchmark
+    public boolean uncontendedAcquireRelease(ThreadState state) {
+        String lockValue = redisLock.tryLock(state.lockKey, 1, -1L, state.owner);
+        return redisLock.releaseLock(state.lockKey, lockValue, state.owner);
+    }
+
+    @Benchmark
+    public boolean precomputedKeyAcquireRelease(ThreadState state) {
+        String lockValue = redisLock.tryLock(state.precomputedKey, 1, -1L, state.owner);
+        return redisLock.releaseLock(state.precomputedKey, lockValue, state.owner);
+    }
+
+    @Benchmark
+    public boolean handleAcquireRelease(ThreadState state) {
+        LockHandle lockHandle = redisLock.tryLockHandle(state.precomputedKey, 1, state.owner);
+        return lockHandle.release();
+    }
+
+    @Benchmark
+    public boolean reentrantAcquireRelease(ThreadState state) {
+        String lockValue = redisLock.tryLock(state.reentrantKey, 1, -1L, state.owner);
+        return redisLock.releaseLock(state.reentrantKey, lockValue, state.owner);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean contendedAcquireRelease(ThreadState state) {
+        String lockValue = redisLock.tryLock(CONTENDED_KEY, 10, -1L, state.owner);
+        return lockValue != null && redisLock.releaseLock(CONTENDED_KEY, lockValue, state.owner);
+    }
+
+    @Benchmark
+    public boolean manyKeysAcquireRelease(ThreadState state) {
+        String lockKey = state.keys[state.next++ % KEY_COUNT];
+        String lockValue = redisLock.tryLock(lockKey, 1, -1L, state.owner);
+        return redisLock.releaseLock(lockKey, lockValue, state.owner);
+    }
+}
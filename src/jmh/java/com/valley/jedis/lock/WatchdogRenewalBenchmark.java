@@ -0,0 +1,47 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.openjdk.jmh.annotations.*;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 看门狗批量续期基准测试：一次续期全部已持有的锁
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WatchdogRenewalBenchmark {
+
+    @Param({"10000"})
+    private int heldLocks;
+
+    private RedisLock redisLock;
+
+    private List<LockStatus> lockStatuses;
+
+    @Setup
+    public void setup() {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+        LockOwner owner = LockOwner.of("bench-watchdog");
+        lockStatuses = new ArrayList<>(heldLocks);
+        for (int i = 0; i < heldLocks; i++) {
+            String lockKey = "bench:held:" + i;
+            redisLock.tryLock(lockKey, 1, -1L, owner);
+            lockStatuses.add(redisLock.getLockStatus(LockType.REENTRANT, lockKey));
+        }
+    }
+
+    @Benchmark
+    public void prolongAllHeldLocks() {
+        redisLock.prolongLocks(lockStatuses);
+    }
+}
@@ -0,0 +1,300 @@
+package com.valley.jedis.client.batch;
+
+import com.valley.jedis.client.factory.RedisFactory;
+import com.valley.jedis.script.RedisScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 跨线程自动批量执行器
+ * <p>收集多个线程并发提交的命令，在短时间窗口内（或达到批量上限时）合并为一次pipeline提交，完成后逐个完成对应的future：</p>
+ * <ul>
+ *     <li>批量：每个刷新线程每次从队列取出不超过maxBatchSize个命令，首个命令到达后最多再等待linger时长收集后续命令</li>
+ *     <li>连接：每批命令只借用一次连接（集群模式下由ClusterPipeline按节点分组，每个节点一次往返）</li>
+ *     <li>隔离：单个命令执行失败仅影响对应的future，pipeline整体失败（如连接异常）时同批所有future失败</li>
+ * </ul>
+ * <p>future在刷新线程中完成，其回调不应执行耗时操作。适用于大量相互独立的小命令：多个刷新线程可能同时执行不同批次，
+ * 即使是同一线程先后提交的命令也不保证执行顺序，有顺序要求时应等待前一命令完成后再提交。</p>
+ * <pre>
+ * RedisBatchExecutor batchExecutor = new RedisBatchExecutor(redisFactory);
+ * CompletableFuture&lt;String&gt; value = batchExecutor.submit(pipeline -&gt; pipeline.get(key));
+ * </pre>
+ */
+public class RedisBatchExecutor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RedisBatchExecutor.class);
+
+    /**
+     * 默认单批命令数上限
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 128;
+
+    /**
+     * 默认收集窗口微秒数
+     */
+    public static final long DEFAULT_LINGER_MICROS = 100L;
+
+    /**
+     * 默认刷新线程数，即同时进行中的pipeline数量上限
+     */
+    public static final int DEFAULT_FLUSH_THREADS = 2;
+
+    /**
+     * 默认等待队列容量，队列满时提交的命令直接失败
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    private static final AtomicInteger INSTANCE_NUMBER = new AtomicInteger();
+
+    private final UnifiedJedis unifiedJedis;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<BatchCommand<?>> queue;
+    private final List<Thread> flushThreads;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder commandCount = new LongAdder();
+
+    public RedisBatchExecutor(RedisFactory redisFactory) {
+        this(redisFactory, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MICROS, DEFAULT_FLUSH_THREADS);
+    }
+
+    /**
+     * @param redisFactory redisFactory
+     * @param maxBatchSize 单批命令数上限
+     * @param lingerMicros 首个命令到达后等待后续命令的最长微秒数，0表示不等待，仅合并刷新期间积压的命令
+     * @param flushThreads 刷新线程数
+     */
+    public RedisBatchExecutor(RedisFactory redisFactory, int maxBatchSize, long lingerMicros, int flushThreads) {
+        if (maxBatchSize <= 0 || lingerMicros < 0 || flushThreads <= 0) {
+            throw new IllegalArgumentException("invalid batch config. maxBatchSize:" + maxBatchSize + " lingerMicros:" + lingerMicros + " flushThreads:" + flushThreads);
+        }
+        this.unifiedJedis = redisFactory.getUnifiedJedis();
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        this.queue = new LinkedBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
+        int instanceNumber = INSTANCE_NUMBER.incrementAndGet();
+        List<Thread> threads = new ArrayList<>(flushThreads);
+        for (int i = 1; i <= flushThreads; i++) {
+            Thread thread = new Thread(this::flushLoop, "RedisBatch-" + instanceNumber + "-Flusher-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        this.flushThreads = threads;
+    }
+
+    /**
+     * 提交命令
+     *
+     * @param command 在pipeline上追加命令，如{@code pipeline -> pipeline.get(key)}
+     * @return 命令执行结果
+     */
+    public <T> CompletableFuture<T> submit(Function<AbstractPipeline, Response<T>> command) {
+        Objects.requireNonNull(command, "command");
+        BatchCommand<T> batchCommand = new BatchCommand<>(command);
+        if (closed.get()) {
+            batchCommand.future.completeExceptionally(new IllegalStateException("RedisBatchExecutor is closed"));
+        } else if (!queue.offer(batchCommand)) {
+            batchCommand.future.completeExceptionally(new RejectedExecutionException("RedisBatchExecutor queue is full"));
+        } else if (closed.get() && queue.remove(batchCommand)) {
+            //入队期间执行器已关闭，刷新线程及close()可能都已不再处理队列
+            batchCommand.future.completeExceptionally(new IllegalStateException("RedisBatchExecutor is closed"));
+        }
+        return batchCommand.future;
+    }
+
+    /**
+     * 提交命令并等待结果
+     *
+     * @return 命令执行结果，命令执行失败时抛出原始异常
+     */
+    public <T> T execute(Function<AbstractPipeline, Response<T>> command) {
+        return await(submit(command));
+    }
+
+    /**
+     * 提交脚本，节点缺失脚本时以脚本原文重新提交
+     * <p>重试通过EVAL随后续批次一同提交（节点同时缓存脚本），不在刷新线程上同步加载，
+     * 节点重启或主从切换后同批大量脚本缺失时也不会阻塞后续批次。</p>
+     *
+     * @param script 脚本
+     * @param keys   KEYS，至少包含一个key，集群模式下用于路由
+     * @param args   ARGV
+     * @return 脚本执行结果
+     */
+    public CompletableFuture<Object> evalBinary(RedisScript script, List<byte[]> keys, List<byte[]> args) {
+        return submit(pipeline -> script.evalBinary(pipeline, keys, args)).handle((result, e) -> {
+            if (e == null) {
+                return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (RedisScript.isNoScript(cause)) {
+                //此处运行在刷新线程，仅重新入队，由下一批次以EVAL执行
+                return submit(pipeline -> script.evalScriptBinary(pipeline, keys, args));
+            }
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(cause);
+            return failed;
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * 等待future完成，失败时抛出原始异常
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void flushLoop() {
+        List<BatchCommand<?>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                BatchCommand<?> first = queue.poll(100L, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed.get()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    BatchCommand<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            IllegalStateException closedException = new IllegalStateException("RedisBatchExecutor is closed");
+            batch.forEach(command -> command.future.completeExceptionally(closedException));
+        }
+    }
+
+    private void flush(List<BatchCommand<?>> batch) {
+        batchCount.increment();
+        commandCount.add(batch.size());
+        try (AbstractPipeline pipeline = unifiedJedis.pipelined()) {
+            for (BatchCommand<?> command : batch) {
+                command.append(pipeline);
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            logger.warn("flush batch failed. batchSize:{}", batch.size(), e);
+            for (BatchCommand<?> command : batch) {
+                command.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (BatchCommand<?> command : batch) {
+            command.complete();
+        }
+    }
+
+    /**
+     * 已提交的pipeline数量
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 已提交的命令数量，与{@link #getBatchCount()}之比即平均批量大小
+     */
+    public long getCommandCount() {
+        return commandCount.sum();
+    }
+
+    /**
+     * 等待执行的命令数量
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * 关闭执行器：不再接受新命令，已提交的命令执行完成后刷新线程退出
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (Thread thread : flushThreads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        //刷新线程退出后仍未执行的命令
+        IllegalStateException closedException = new IllegalStateException("RedisBatchExecutor is closed");
+        BatchCommand<?> command;
+        while ((command = queue.poll()) != null) {
+            command.future.completeExceptionally(closedException);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    private static final class BatchCommand<T> {
+        private final Function<AbstractPipeline, Response<T>> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private Response<T> response;
+
+        private BatchCommand(Function<AbstractPipeline, Response<T>> command) {
+            this.command = command;
+        }
+
+        private void append(AbstractPipeline pipeline) {
+            try {
+                response = command.apply(pipeline);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void complete() {
+            if (response == null) {
+                return;
+            }
+            try {
+                future.complete(response.get());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.valley.jedis.client.factory;
+
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于配置文件创建客户端的工厂
+ * <p>同一模式及配置文件的所有工厂实例共享同一个客户端（连接池），由{@link RedisClientRegistry}按引用计数管理，
+ * 关闭最后一个工厂实例时关闭连接池。</p>
+ */
+abstract class AbstractRedisFactory implements RedisFactory {
+    private final String configFileName;
+    private final RedisClientRegistry.Entry client;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    AbstractRedisFactory(String mode, String configFileName) {
+        this.configFileName = configFileName;
+        this.client = RedisClientRegistry.retain(mode + ":" + configFileName, () -> {
+            RedisProperties properties = RedisProperties.load(configFileName);
+            return build(properties).withNearCache(properties);
+        });
+    }
+
+    /**
+     * 根据配置创建客户端，同一配置仅执行一次
+     */
+    abstract RedisClientRegistry.SharedClient build(RedisProperties properties);
+
+    @Override
+    public UnifiedJedis getUnifiedJedis() {
+        return client.getUnifiedJedis();
+    }
+
+    @Override
+    public RedisNearCache getNearCache() {
+        return client.getNearCache();
+    }
+
+    @Override
+    public Map<String, PoolStats> getPoolStats() {
+        return client.getPoolStats();
+    }
+
+    public String getConfigFileName() {
+        return configFileName;
+    }
+
+    /**
+     * 释放当前工厂实例对客户端的引用，所有实例均关闭后关闭连接池，重复关闭无副作用
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            client.release();
+        }
+    }
+}
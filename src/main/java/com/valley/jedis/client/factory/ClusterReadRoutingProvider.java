@@ -0,0 +1,196 @@
+package com.valley.jedis.client.factory;
+
+import com.valley.jedis.util.StringUtils;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+
+/**
+ * 集群模式读路由连接提供者
+ * <p>只读命令按key所在slot的master查找其从节点，按{@link ReadPreference}选择执行节点，其余命令及pipeline按原有方式发往slot所在master。
+ * 从节点连接在创建时执行READONLY。从节点返回MOVED时由集群命令执行器刷新slot缓存后重定向，同时触发从节点拓扑刷新。</p>
+ */
+final class ClusterReadRoutingProvider extends ClusterConnectionProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterReadRoutingProvider.class);
+
+    private final JedisClientConfig clientConfig;
+    private final GenericObjectPoolConfig<Connection> poolConfig;
+    private final ReadRouter router;
+    private volatile Map<HostAndPort, RoutingNode> masterNodes = Collections.emptyMap();
+    private volatile Map<HostAndPort, RoutingNode> replicaNodes = Collections.emptyMap();
+    /**
+     * master -> 从节点
+     */
+    private volatile Map<HostAndPort, List<RoutingNode>> replicasByMaster = Collections.emptyMap();
+
+    ClusterReadRoutingProvider(Set<HostAndPort> clusterNodes, JedisClientConfig clientConfig, GenericObjectPoolConfig<Connection> poolConfig,
+                               ReadPreference readPreference, long refreshMillis) {
+        super(clusterNodes, clientConfig, poolConfig);
+        this.clientConfig = clientConfig;
+        this.poolConfig = poolConfig;
+        this.router = new ReadRouter(readPreference);
+        this.router.start(this::refresh, refreshMillis);
+    }
+
+    @Override
+    public Connection getConnection(CommandArguments args) {
+        if (args instanceof ClusterCommandArguments && ReadOnlyCommands.isReadOnly(args)) {
+            int slot = ((ClusterCommandArguments) args).getCommandHashSlot();
+            HostAndPort masterHostAndPort = slot < 0 ? null : getNode(slot);
+            if (masterHostAndPort != null) {
+                RoutingNode selected = router.select(masterNodes.get(masterHostAndPort),
+                        replicasByMaster.getOrDefault(masterHostAndPort, Collections.emptyList()));
+                if (selected != null && selected.getPool() != null) {
+                    try {
+                        return selected.getPool().getResource();
+                    } catch (JedisException e) {
+                        logger.warn("get replica connection failed, fallback to master. replica:{}", selected, e);
+                        selected.markUnavailable();
+                        router.requestRefresh();
+                    }
+                }
+            }
+        }
+        return super.getConnection(args);
+    }
+
+    @Override
+    public void renewSlotCache() {
+        super.renewSlotCache();
+        requestRefresh();
+    }
+
+    @Override
+    public void renewSlotCache(Connection jedis) {
+        super.renewSlotCache(jedis);
+        requestRefresh();
+    }
+
+    private void requestRefresh() {
+        //父类构造期间router尚未初始化
+        if (router != null) {
+            router.requestRefresh();
+        }
+    }
+
+    /**
+     * 读路由使用的从节点连接池，不包括集群客户端自身维护的节点连接池
+     */
+    Map<String, GenericObjectPool<?>> getReplicaPools() {
+        Map<String, GenericObjectPool<?>> pools = new TreeMap<>();
+        replicaNodes.forEach((hostAndPort, node) -> pools.put("readonly:" + hostAndPort, node.getPool()));
+        return pools;
+    }
+
+    private void refresh() {
+        List<Object> slots;
+        try (Jedis jedis = new Jedis(getConnection())) {
+            slots = jedis.clusterSlots();
+        }
+        Map<HostAndPort, Set<HostAndPort>> topology = parseTopology(slots);
+        Set<HostAndPort> replicaHostAndPorts = new LinkedHashSet<>();
+        topology.values().forEach(replicaHostAndPorts::addAll);
+
+        Map<HostAndPort, RoutingNode> masters = RoutingNode.reconcile(masterNodes, topology.keySet(), hostAndPort -> null);
+        Map<HostAndPort, RoutingNode> replicas = RoutingNode.reconcile(replicaNodes, replicaHostAndPorts,
+                hostAndPort -> newReadOnlyPool(hostAndPort, clientConfig, poolConfig));
+        Map<HostAndPort, List<RoutingNode>> byMaster = new HashMap<>();
+        topology.forEach((master, masterReplicas) -> {
+            List<RoutingNode> nodes = new ArrayList<>(masterReplicas.size());
+            masterReplicas.forEach(replica -> nodes.add(replicas.get(replica)));
+            byMaster.put(master, Collections.unmodifiableList(nodes));
+        });
+        if (!replicas.keySet().equals(replicaNodes.keySet())) {
+            logger.info("cluster replicas changed. replicas:{}", replicas.keySet());
+        }
+        masterNodes = masters;
+        replicaNodes = replicas;
+        replicasByMaster = byMaster;
+
+        if (router.getReadPreference() == ReadPreference.NEAREST) {
+            for (RoutingNode master : masters.values()) {
+                try (Connection connection = getConnection(master.getHostAndPort())) {
+                    master.probe(connection);
+                } catch (JedisException e) {
+                    master.markUnavailable();
+                }
+            }
+        }
+        for (RoutingNode replica : replicas.values()) {
+            replica.probe();
+        }
+    }
+
+    /**
+     * 解析CLUSTER SLOTS结果：[起始slot, 结束slot, [master host, port, id], [replica host, port, id]...]
+     *
+     * @return master -> 从节点
+     */
+    @SuppressWarnings("unchecked")
+    static Map<HostAndPort, Set<HostAndPort>> parseTopology(List<Object> slots) {
+        Map<HostAndPort, Set<HostAndPort>> topology = new LinkedHashMap<>();
+        for (Object slot : slots) {
+            List<Object> slotInfo = (List<Object>) slot;
+            if (slotInfo.size() < 3) {
+                continue;
+            }
+            HostAndPort master = toHostAndPort((List<Object>) slotInfo.get(2));
+            if (master == null) {
+                continue;
+            }
+            Set<HostAndPort> replicas = topology.computeIfAbsent(master, k -> new LinkedHashSet<>());
+            for (int i = 3; i < slotInfo.size(); i++) {
+                HostAndPort replica = toHostAndPort((List<Object>) slotInfo.get(i));
+                if (replica != null) {
+                    replicas.add(replica);
+                }
+            }
+        }
+        return topology;
+    }
+
+    private static HostAndPort toHostAndPort(List<Object> hostInfo) {
+        if (hostInfo.size() < 2) {
+            return null;
+        }
+        String host = SafeEncoder.encode((byte[]) hostInfo.get(0));
+        if (StringUtils.isBlank(host) || "?".equals(host)) {
+            return null;
+        }
+        return new HostAndPort(host, ((Long) hostInfo.get(1)).intValue());
+    }
+
+    /**
+     * 创建连接后执行READONLY，使从节点可以处理所属slot的读请求
+     */
+    private static ConnectionPool newReadOnlyPool(HostAndPort hostAndPort, JedisClientConfig clientConfig, GenericObjectPoolConfig<Connection> poolConfig) {
+        return new ConnectionPool(new ConnectionFactory(hostAndPort, clientConfig) {
+            @Override
+            public PooledObject<Connection> makeObject() throws Exception {
+                PooledObject<Connection> pooledObject = super.makeObject();
+                try {
+                    pooledObject.getObject().executeCommand(Protocol.Command.READONLY);
+                } catch (RuntimeException e) {
+                    pooledObject.getObject().close();
+                    throw e;
+                }
+                return pooledObject;
+            }
+        }, poolConfig);
+    }
+
+    @Override
+    public void close() {
+        router.close();
+        replicaNodes.values().forEach(RoutingNode::close);
+        super.close();
+    }
+}
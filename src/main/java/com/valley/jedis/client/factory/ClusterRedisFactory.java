@@ -4,76 +4,80 @@ import com.valley.jedis.util.StringUtils;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.*;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
 
-import java.io.IOException;
-import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * 集群模式
+ * <p>除通用配置外支持cluster.maxAttempts、cluster.maxTotalRetriesDurationMillis。配置read.preference后只读命令可路由到从节点，见{@link ReadPreference}。</p>
  */
-public class ClusterRedisFactory implements RedisFactory {
+public class ClusterRedisFactory extends AbstractRedisFactory {
     private static final Logger logger = LoggerFactory.getLogger(ClusterRedisFactory.class);
-    private static final ConcurrentHashMap<String, UnifiedJedis> JEDIS_CACHE = new ConcurrentHashMap<>();
-    private String configFileName = "clusterJedis.properties";
-
-    static {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (JEDIS_CACHE != null && !JEDIS_CACHE.isEmpty()) {
-                JEDIS_CACHE.values().forEach(UnifiedJedis::close);
-            }
-        }));
-    }
 
     public ClusterRedisFactory() {
-        initUnifiedJedis();
+        this("clusterJedis.properties");
     }
 
     public ClusterRedisFactory(String configFileName) {
-        this.configFileName = configFileName;
-        initUnifiedJedis();
+        super("cluster", configFileName);
     }
 
-    private void initUnifiedJedis() {
-        final String configName_ = this.configFileName;
-        if (!JEDIS_CACHE.contains(configName_)) {
-            synchronized (SimpleRedisFactory.class) {
-                if (!JEDIS_CACHE.contains(configName_)) {
-                    JEDIS_CACHE.put(configName_, buildFromConfig(configName_));
-                }
+    /**
+     * slot缓存中的所有master节点
+     */
+    private static Set<HostAndPort> masterNodes(ClusterConnectionProvider provider) {
+        Set<HostAndPort> masterNodes = new HashSet<>();
+        for (int slot = 0; slot < Protocol.CLUSTER_HASHSLOTS; slot++) {
+            HostAndPort node = provider.getNode(slot);
+            if (node != null) {
+                masterNodes.add(node);
             }
         }
+        return masterNodes;
     }
 
     @Override
-    public UnifiedJedis getUnifiedJedis() {
-        return JEDIS_CACHE.get(this.configFileName);
-    }
-
-    private UnifiedJedis buildFromConfig(String configFileName) {
-        Properties properties = new Properties();
-        try {
-            properties.load(this.getClass().getClassLoader().getResourceAsStream(configFileName));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        String clusterNodes = properties.getProperty("cluster.nodes");
-        String password = properties.getProperty("redis.password");
-        String testOnBorrow = properties.getProperty("pool.testOnBorrow");
-        String maxTotal = properties.getProperty("pool.maxTotal");
-        String maxIdle = properties.getProperty("pool.maxIdle");
-
-        JedisClientConfig jedisClientConfig = DefaultJedisClientConfig.builder()
-                .password(password)
-                .build();
-        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
-        poolConfig.setMaxTotal(Integer.parseInt(maxTotal));
-        poolConfig.setMaxIdle(Integer.parseInt(maxIdle));
-        poolConfig.setTestOnBorrow(Boolean.parseBoolean(testOnBorrow));
+    RedisClientRegistry.SharedClient build(RedisProperties properties) {
+        GenericObjectPoolConfig<Connection> poolConfig = properties.poolConfig();
         logger.info(poolConfig.toString());
-        return new JedisCluster(StringUtils.parseHostAndPorts(clusterNodes), jedisClientConfig, poolConfig);
+        JedisClientConfig clientConfig = properties.clientConfig();
+        int maxAttempts = properties.getInt("cluster.maxAttempts", JedisCluster.DEFAULT_MAX_ATTEMPTS);
+        Duration maxTotalRetriesDuration = properties.getMillis("cluster.maxTotalRetriesDurationMillis",
+                Duration.ofMillis((long) clientConfig.getSocketTimeoutMillis() * maxAttempts));
+        Set<HostAndPort> clusterNodes = StringUtils.parseHostAndPorts(properties.getRequired("cluster.nodes"));
+        ReadPreference readPreference = properties.getReadPreference();
+        ClusterReadRoutingProvider readRoutingProvider = null;
+        ClusterConnectionProvider provider;
+        if (readPreference == ReadPreference.MASTER) {
+            provider = new ClusterConnectionProvider(clusterNodes, clientConfig, poolConfig);
+        } else {
+            readRoutingProvider = new ClusterReadRoutingProvider(clusterNodes, clientConfig, poolConfig, readPreference, properties.getReadRefreshMillis());
+            provider = readRoutingProvider;
+            logger.info("cluster read preference:{}", readPreference);
+        }
+        JedisCluster jedisCluster = new JedisCluster(provider, maxAttempts, maxTotalRetriesDuration);
+        if (properties.isWarmUp()) {
+            //按节点并行预热，每个节点各minIdle个连接
+            PoolWarmUp.warmUp(jedisCluster.getClusterNodes(), properties.getWarmUpTimeoutMillis());
+        }
+        ClusterReadRoutingProvider replicaPools = readRoutingProvider;
+        return new RedisClientRegistry.SharedClient(jedisCluster, () -> {
+            Map<String, PoolStats> poolStats = new TreeMap<>();
+            jedisCluster.getClusterNodes().forEach((node, pool) -> poolStats.put(node, PoolStats.of(pool)));
+            if (replicaPools != null) {
+                replicaPools.getReplicaPools().forEach((node, pool) -> poolStats.put(node, PoolStats.of(pool)));
+            }
+            return poolStats;
+        }, () -> masterNodes(provider));
     }
-
-
 }
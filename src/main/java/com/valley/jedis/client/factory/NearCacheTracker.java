@@ -0,0 +1,253 @@
+package com.valley.jedis.client.factory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 近端缓存失效通知订阅
+ * <p>每个master节点使用两个独立连接（不占用连接池）：订阅连接执行SUBSCRIBE __redis__:invalidate接收通知，
+ * 跟踪连接执行CLIENT TRACKING ON REDIRECT &lt;订阅连接ID&gt; BCAST PREFIX ...，服务端在前缀下的key被修改时向订阅连接推送失效通知。</p>
+ * <p>定时任务通过PING检测两个连接是否存活，并检查master节点是否变化（哨兵切换、集群扩缩容），节点变化或连接断开时重新订阅。</p>
+ */
+final class NearCacheTracker implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheTracker.class);
+
+    private static final String INVALIDATE_CHANNEL = "__redis__:invalidate";
+
+    private static final ScheduledThreadPoolExecutor HEARTBEAT_EXECUTOR = newHeartbeatExecutor();
+
+    private final RedisNearCache nearCache;
+    private final Supplier<Collection<HostAndPort>> masterNodes;
+    private final JedisClientConfig clientConfig;
+    private final List<String> prefixes;
+    private final long heartbeatMillis;
+    private final Map<HostAndPort, Listener> listeners = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> heartbeatFuture;
+    private volatile boolean closed;
+
+    /**
+     * @param masterNodes     当前master节点，每次心跳时重新读取
+     * @param heartbeatMillis 心跳间隔，超过3个间隔未收到订阅连接响应时重新订阅
+     */
+    NearCacheTracker(RedisNearCache nearCache, Supplier<Collection<HostAndPort>> masterNodes, JedisClientConfig clientConfig,
+                     List<String> prefixes, long heartbeatMillis) {
+        this.nearCache = nearCache;
+        this.masterNodes = masterNodes;
+        this.clientConfig = clientConfig;
+        this.prefixes = prefixes;
+        this.heartbeatMillis = heartbeatMillis;
+        this.heartbeatFuture = HEARTBEAT_EXECUTOR.scheduleWithFixedDelay(this::heartbeat, 0L, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledThreadPoolExecutor newHeartbeatExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "RedisNearCache-Heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private void heartbeat() {
+        if (closed) {
+            return;
+        }
+        Set<HostAndPort> nodes;
+        try {
+            nodes = new HashSet<>(masterNodes.get());
+        } catch (RuntimeException e) {
+            logger.warn("resolve near cache master nodes failed.", e);
+            nodes = listeners.keySet();
+        }
+        for (Map.Entry<HostAndPort, Listener> entry : listeners.entrySet()) {
+            if (!nodes.contains(entry.getKey())) {
+                logger.info("near cache node removed. node:{}", entry.getKey());
+                listeners.remove(entry.getKey());
+                entry.getValue().close();
+            }
+        }
+        for (HostAndPort node : nodes) {
+            listeners.computeIfAbsent(node, this::startListener).heartbeat();
+        }
+        updateTracking();
+    }
+
+    private Listener startListener(HostAndPort node) {
+        Listener listener = new Listener(node);
+        Thread thread = new Thread(listener, "RedisNearCache-Invalidation-" + node);
+        thread.setDaemon(true);
+        thread.start();
+        return listener;
+    }
+
+    /**
+     * 所有节点均已订阅时才使用缓存
+     */
+    private void updateTracking() {
+        boolean tracking = !closed && !listeners.isEmpty();
+        for (Listener listener : listeners.values()) {
+            tracking &= listener.subscribed;
+        }
+        nearCache.setTracking(tracking);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        heartbeatFuture.cancel(false);
+        listeners.values().forEach(Listener::close);
+        listeners.clear();
+        nearCache.setTracking(false);
+    }
+
+    private final class Listener implements Runnable {
+        private final HostAndPort node;
+        private volatile boolean stopped;
+        private volatile boolean subscribed;
+        private volatile long lastReplyAt = System.currentTimeMillis();
+        private volatile HeartbeatConnection subscriber;
+        private volatile Connection tracking;
+
+        private Listener(HostAndPort node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                try {
+                    subscribe();
+                } catch (JedisException | ClassCastException e) {
+                    if (!stopped) {
+                        logger.warn("near cache invalidation connection lost. node:{}", node, e);
+                    }
+                } finally {
+                    subscribed = false;
+                    updateTracking();
+                    disconnect();
+                }
+                if (!stopped) {
+                    try {
+                        Thread.sleep(heartbeatMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void subscribe() {
+            subscriber = new HeartbeatConnection(node, clientConfig);
+            long clientId = (Long) subscriber.executeCommand(new CommandArguments(Protocol.Command.CLIENT).add("ID"));
+            subscriber.sendCommand(Protocol.Command.SUBSCRIBE, INVALIDATE_CHANNEL);
+            subscriber.getObjectMultiBulkReply();
+            subscriber.setTimeoutInfinite();
+
+            tracking = new Connection(node, clientConfig);
+            CommandArguments trackingArgs = new CommandArguments(Protocol.Command.CLIENT).add("TRACKING").add("ON")
+                    .add("REDIRECT").add(clientId).add("BCAST");
+            prefixes.forEach(prefix -> trackingArgs.add("PREFIX").add(prefix));
+            tracking.executeCommand(trackingArgs);
+
+            lastReplyAt = System.currentTimeMillis();
+            subscribed = true;
+            logger.info("near cache tracking started. node:{} prefixes:{}", node, prefixes);
+            updateTracking();
+            while (!stopped) {
+                List<Object> reply = subscriber.getUnflushedObjectMultiBulkReply();
+                lastReplyAt = System.currentTimeMillis();
+                onReply(reply);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void onReply(List<Object> reply) {
+            if (reply.size() < 3 || !"message".equals(SafeEncoder.encode((byte[]) reply.get(0)))) {
+                //PING响应
+                return;
+            }
+            Object keys = reply.get(2);
+            if (keys == null) {
+                //FLUSHALL/FLUSHDB
+                nearCache.invalidateAll();
+            } else if (keys instanceof List) {
+                for (Object key : (List<Object>) keys) {
+                    nearCache.invalidate(SafeEncoder.encode((byte[]) key));
+                }
+            } else {
+                nearCache.invalidate(SafeEncoder.encode((byte[]) keys));
+            }
+        }
+
+        /**
+         * 检测连接存活，超时未响应时断开订阅连接，由订阅线程重新订阅
+         */
+        private void heartbeat() {
+            HeartbeatConnection currentSubscriber = subscriber;
+            Connection currentTracking = tracking;
+            if (!subscribed || currentSubscriber == null || currentTracking == null) {
+                return;
+            }
+            try {
+                currentSubscriber.sendPing();
+                if (!currentTracking.ping()) {
+                    throw new IllegalStateException("tracking connection ping failed");
+                }
+                if (System.currentTimeMillis() - lastReplyAt > heartbeatMillis * 3) {
+                    throw new IllegalStateException("subscriber connection not responding");
+                }
+            } catch (RuntimeException e) {
+                logger.warn("near cache heartbeat failed, resubscribe. node:{}", node, e);
+                subscribed = false;
+                updateTracking();
+                disconnect();
+            }
+        }
+
+        private void disconnect() {
+            HeartbeatConnection currentSubscriber = subscriber;
+            if (currentSubscriber != null) {
+                currentSubscriber.disconnect();
+            }
+            Connection currentTracking = tracking;
+            if (currentTracking != null) {
+                currentTracking.disconnect();
+            }
+        }
+
+        private void close() {
+            stopped = true;
+            subscribed = false;
+            disconnect();
+        }
+    }
+
+    /**
+     * 订阅连接，心跳线程写入PING，订阅线程读取响应
+     */
+    private static final class HeartbeatConnection extends Connection {
+        private HeartbeatConnection(HostAndPort hostAndPort, JedisClientConfig clientConfig) {
+            super(hostAndPort, clientConfig);
+        }
+
+        private void sendPing() {
+            sendCommand(Protocol.Command.PING);
+            flush();
+        }
+    }
+}
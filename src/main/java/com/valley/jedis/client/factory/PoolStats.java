@@ -0,0 +1,88 @@
+package com.valley.jedis.client.factory;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+/**
+ * 连接池状态快照
+ */
+public final class PoolStats {
+    private final int numActive;
+    private final int numIdle;
+    private final int numWaiters;
+    private final int maxTotal;
+    private final long meanBorrowWaitMillis;
+    private final long maxBorrowWaitMillis;
+    private final long borrowedCount;
+    private final long createdCount;
+    private final long destroyedCount;
+
+    private PoolStats(GenericObjectPool<?> pool) {
+        this.numActive = pool.getNumActive();
+        this.numIdle = pool.getNumIdle();
+        this.numWaiters = pool.getNumWaiters();
+        this.maxTotal = pool.getMaxTotal();
+        this.meanBorrowWaitMillis = pool.getMeanBorrowWaitTimeMillis();
+        this.maxBorrowWaitMillis = pool.getMaxBorrowWaitTimeMillis();
+        this.borrowedCount = pool.getBorrowedCount();
+        this.createdCount = pool.getCreatedCount();
+        this.destroyedCount = pool.getDestroyedCount();
+    }
+
+    public static PoolStats of(GenericObjectPool<?> pool) {
+        return new PoolStats(pool);
+    }
+
+    public int getNumActive() {
+        return numActive;
+    }
+
+    public int getNumIdle() {
+        return numIdle;
+    }
+
+    /**
+     * 等待获取连接的线程数，持续大于0说明连接池耗尽
+     */
+    public int getNumWaiters() {
+        return numWaiters;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public long getMeanBorrowWaitMillis() {
+        return meanBorrowWaitMillis;
+    }
+
+    public long getMaxBorrowWaitMillis() {
+        return maxBorrowWaitMillis;
+    }
+
+    public long getBorrowedCount() {
+        return borrowedCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "numActive=" + numActive +
+                ", numIdle=" + numIdle +
+                ", numWaiters=" + numWaiters +
+                ", maxTotal=" + maxTotal +
+                ", meanBorrowWaitMillis=" + meanBorrowWaitMillis +
+                ", maxBorrowWaitMillis=" + maxBorrowWaitMillis +
+                ", borrowedCount=" + borrowedCount +
+                ", createdCount=" + createdCount +
+                ", destroyedCount=" + destroyedCount +
+                '}';
+    }
+}
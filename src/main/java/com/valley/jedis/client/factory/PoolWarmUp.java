@@ -0,0 +1,86 @@
+package com.valley.jedis.client.factory;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接池预热：并行为每个连接池建立连接直至minIdle，避免启动后首批请求承担建连耗时
+ * <p>预热失败或超时仅记录日志，不影响客户端创建，未建立的连接在使用时按需创建。</p>
+ */
+final class PoolWarmUp {
+    private static final Logger logger = LoggerFactory.getLogger(PoolWarmUp.class);
+
+    /**
+     * 预热线程数上限
+     */
+    static final int MAX_WARM_UP_THREADS = 16;
+
+    private PoolWarmUp() {
+    }
+
+    /**
+     * @param pools         节点(host:port) -> 连接池
+     * @param timeoutMillis 最长等待时间
+     * @return 成功建立的连接数
+     */
+    static int warmUp(Map<String, ? extends GenericObjectPool<?>> pools, long timeoutMillis) {
+        Map<String, Integer> missing = new LinkedHashMap<>();
+        int tasks = 0;
+        for (Map.Entry<String, ? extends GenericObjectPool<?>> entry : pools.entrySet()) {
+            int count = Math.max(0, entry.getValue().getMinIdle() - entry.getValue().getNumIdle());
+            missing.put(entry.getKey(), count);
+            tasks += count;
+        }
+        if (tasks == 0) {
+            return 0;
+        }
+        long startMillis = System.currentTimeMillis();
+        ExecutorService executor = newExecutor(tasks);
+        CountDownLatch latch = new CountDownLatch(tasks);
+        AtomicInteger created = new AtomicInteger();
+        try {
+            for (Map.Entry<String, ? extends GenericObjectPool<?>> entry : pools.entrySet()) {
+                GenericObjectPool<?> pool = entry.getValue();
+                for (int i = missing.get(entry.getKey()); i > 0; i--) {
+                    executor.execute(() -> {
+                        try {
+                            pool.addObject();
+                            created.incrementAndGet();
+                        } catch (Exception e) {
+                            logger.warn("warm up redis connection failed. node:{}", entry.getKey(), e);
+                        } finally {
+                            latch.countDown();
+                        }
+                    });
+                }
+            }
+            if (!latch.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("warm up redis pools timeout. timeoutMillis:{}", timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("warm up redis pools. nodes:{} created:{}/{} elapsedMillis:{}", pools.size(), created.get(), tasks, System.currentTimeMillis() - startMillis);
+        return created.get();
+    }
+
+    private static ExecutorService newExecutor(int tasks) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.min(tasks, MAX_WARM_UP_THREADS), r -> {
+            Thread thread = new Thread(r, "RedisFactory-WarmUp-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
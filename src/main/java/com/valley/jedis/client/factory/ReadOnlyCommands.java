@@ -0,0 +1,40 @@
+package com.valley.jedis.client.factory;
+
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.commands.ProtocolCommand;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static redis.clients.jedis.Protocol.Command.*;
+
+/**
+ * 可路由到从节点的只读命令
+ * <p>仅包含读取key数据的命令。EVAL、EVALSHA等脚本命令（包括锁脚本）即使只读也始终发往master，只读脚本可显式使用EVAL_RO/EVALSHA_RO；
+ * 阻塞命令、事务及管理类命令同样不路由。</p>
+ */
+final class ReadOnlyCommands {
+    private static final Set<Protocol.Command> READ_ONLY_COMMANDS = EnumSet.of(
+            GET, MGET, GETRANGE, SUBSTR, STRLEN, GETBIT, BITCOUNT, BITPOS, BITFIELD_RO, LCS,
+            EXISTS, TYPE, TTL, PTTL, EXPIRETIME, PEXPIRETIME, DUMP, TOUCH, SORT_RO,
+            HGET, HMGET, HGETALL, HKEYS, HVALS, HLEN, HEXISTS, HSTRLEN, HRANDFIELD, HSCAN, HTTL, HPTTL, HEXPIRETIME, HPEXPIRETIME,
+            LLEN, LRANGE, LINDEX, LPOS,
+            SMEMBERS, SISMEMBER, SMISMEMBER, SCARD, SRANDMEMBER, SINTER, SUNION, SDIFF, SINTERCARD, SSCAN,
+            ZRANGE, ZREVRANGE, ZRANGEBYSCORE, ZREVRANGEBYSCORE, ZRANGEBYLEX, ZREVRANGEBYLEX, ZRANK, ZREVRANK, ZRANDMEMBER,
+            ZCARD, ZSCORE, ZMSCORE, ZCOUNT, ZLEXCOUNT, ZDIFF, ZUNION, ZINTER, ZINTERCARD, ZSCAN,
+            GEODIST, GEOHASH, GEOPOS, GEORADIUS_RO, GEORADIUSBYMEMBER_RO, GEOSEARCH,
+            PFCOUNT, XLEN, XRANGE, XREVRANGE,
+            EVAL_RO, EVALSHA_RO, FCALL_RO);
+
+    private ReadOnlyCommands() {
+    }
+
+    static boolean isReadOnly(CommandArguments args) {
+        if (args.isBlocking()) {
+            return false;
+        }
+        ProtocolCommand command = args.getCommand();
+        return command instanceof Protocol.Command && READ_ONLY_COMMANDS.contains(command);
+    }
+}
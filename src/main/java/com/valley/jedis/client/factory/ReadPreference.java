@@ -0,0 +1,37 @@
+package com.valley.jedis.client.factory;
+
+import java.util.Locale;
+
+/**
+ * 读请求路由策略，仅对哨兵及集群模式生效
+ * <p>仅只读命令（GET、HGET、ZRANGE等，见{@link ReadOnlyCommands}）按策略路由，写命令、脚本（包括锁脚本）、阻塞命令及pipeline始终发往master。
+ * 从节点数据存在复制延迟，对一致性有要求的读请求应使用{@link #MASTER}。</p>
+ */
+public enum ReadPreference {
+    /**
+     * 全部发往master，默认值
+     */
+    MASTER,
+    /**
+     * 轮询可用的从节点，无可用从节点时发往master
+     */
+    REPLICA_PREFERRED,
+    /**
+     * 发往探测延迟最低的节点（包括master）
+     */
+    NEAREST;
+
+    /**
+     * 解析配置值，忽略大小写，支持replica-preferred及replica_preferred两种写法
+     */
+    public static ReadPreference parse(String value) {
+        if (value == null) {
+            return MASTER;
+        }
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown read preference " + value, e);
+        }
+    }
+}
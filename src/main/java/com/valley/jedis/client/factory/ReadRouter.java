@@ -0,0 +1,121 @@
+package com.valley.jedis.client.factory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按读策略选择节点，并定时刷新拓扑
+ * <p>拓扑刷新（发现从节点、探测延迟）在所有客户端共享的守护线程中执行，读请求只读取刷新结果，不产生额外网络请求。</p>
+ */
+final class ReadRouter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReadRouter.class);
+
+    private static final ScheduledThreadPoolExecutor REFRESH_EXECUTOR = newRefreshExecutor();
+
+    private final ReadPreference readPreference;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+    private volatile Runnable refreshTask;
+    private ScheduledFuture<?> refreshFuture;
+
+    ReadRouter(ReadPreference readPreference) {
+        this.readPreference = readPreference;
+    }
+
+    private static ScheduledThreadPoolExecutor newRefreshExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "RedisReadRouting-Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * 立即执行一次刷新，之后每refreshMillis毫秒刷新一次
+     */
+    synchronized void start(Runnable refreshTask, long refreshMillis) {
+        this.refreshTask = refreshTask;
+        refresh();
+        refreshFuture = REFRESH_EXECUTOR.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 请求尽快刷新，如检测到节点故障或拓扑变化时，重复请求只执行一次
+     */
+    void requestRefresh() {
+        if (refreshTask != null && refreshRequested.compareAndSet(false, true)) {
+            REFRESH_EXECUTOR.execute(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        refreshRequested.set(false);
+        Runnable task = refreshTask;
+        if (task == null) {
+            return;
+        }
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.warn("refresh read routing topology failed.", e);
+        }
+    }
+
+    /**
+     * 选择执行读命令的节点
+     *
+     * @param master   master节点，可为null
+     * @param replicas 从节点
+     * @return 选中的从节点，返回null或master时由master执行
+     */
+    RoutingNode select(RoutingNode master, List<RoutingNode> replicas) {
+        switch (readPreference) {
+            case REPLICA_PREFERRED:
+                int size = replicas.size();
+                if (size == 0) {
+                    return master;
+                }
+                int start = roundRobin.getAndIncrement() & Integer.MAX_VALUE;
+                for (int i = 0; i < size; i++) {
+                    RoutingNode replica = replicas.get((start + i) % size);
+                    if (replica.isAvailable()) {
+                        return replica;
+                    }
+                }
+                return master;
+            case NEAREST:
+                RoutingNode nearest = master;
+                long nearestLatency = master == null ? Long.MAX_VALUE : master.getLatencyNanos();
+                for (RoutingNode replica : replicas) {
+                    if (replica.isAvailable() && replica.getLatencyNanos() < nearestLatency) {
+                        nearest = replica;
+                        nearestLatency = replica.getLatencyNanos();
+                    }
+                }
+                return nearest;
+            default:
+                return master;
+        }
+    }
+
+    ReadPreference getReadPreference() {
+        return readPreference;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refreshFuture != null) {
+            refreshFuture.cancel(false);
+        }
+        refreshTask = null;
+    }
+}
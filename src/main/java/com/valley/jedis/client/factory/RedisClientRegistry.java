@@ -0,0 +1,160 @@
+package com.valley.jedis.client.factory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 进程内共享的redis客户端注册表
+ * <ul>
+ *     <li>同一配置（模式+配置文件）仅创建一个客户端，并发创建时只有一个线程执行创建，其余线程等待并复用结果</li>
+ *     <li>按引用计数管理生命周期，最后一个引用释放时关闭客户端（连接池），之后再次获取时重新创建</li>
+ *     <li>进程退出时关闭所有未释放的客户端</li>
+ * </ul>
+ */
+final class RedisClientRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(RedisClientRegistry.class);
+    private static final ConcurrentHashMap<String, Entry> CLIENTS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Entry entry : new ArrayList<>(CLIENTS.values())) {
+                entry.close();
+            }
+        }, "RedisClientRegistry-Shutdown"));
+    }
+
+    private RedisClientRegistry() {
+    }
+
+    /**
+     * 获取客户端并增加引用计数，客户端不存在时通过builder创建
+     *
+     * @param key     客户端唯一标识
+     * @param builder 客户端创建逻辑，创建失败时异常直接抛出，下次获取时重新创建
+     */
+    static Entry retain(String key, Supplier<SharedClient> builder) {
+        while (true) {
+            Entry entry = CLIENTS.computeIfAbsent(key, Entry::new);
+            if (entry.retain(builder)) {
+                return entry;
+            }
+            //已关闭的客户端，移除后重新创建
+            CLIENTS.remove(key, entry);
+        }
+    }
+
+    /**
+     * 已创建的客户端数量
+     */
+    static int size() {
+        return CLIENTS.size();
+    }
+
+    /**
+     * 已创建的客户端及其连接池状态
+     */
+    static final class SharedClient {
+        private final UnifiedJedis unifiedJedis;
+        private final Supplier<Map<String, PoolStats>> poolStats;
+        /**
+         * 当前master节点，用于订阅近端缓存失效通知
+         */
+        private final Supplier<Collection<HostAndPort>> masterNodes;
+        private final RedisNearCache nearCache;
+
+        SharedClient(UnifiedJedis unifiedJedis, Supplier<Map<String, PoolStats>> poolStats, Supplier<Collection<HostAndPort>> masterNodes) {
+            this(unifiedJedis, poolStats, masterNodes, null);
+        }
+
+        private SharedClient(UnifiedJedis unifiedJedis, Supplier<Map<String, PoolStats>> poolStats, Supplier<Collection<HostAndPort>> masterNodes,
+                             RedisNearCache nearCache) {
+            this.unifiedJedis = unifiedJedis;
+            this.poolStats = poolStats;
+            this.masterNodes = masterNodes;
+            this.nearCache = nearCache;
+        }
+
+        /**
+         * 按配置开启近端缓存
+         */
+        SharedClient withNearCache(RedisProperties properties) {
+            if (!properties.isNearCacheEnabled()) {
+                return this;
+            }
+            List<String> prefixes = properties.getNearCachePrefixes();
+            RedisNearCache cache = new RedisNearCache(unifiedJedis, properties.getNearCacheMaxSize(), properties.getNearCacheTtlMillis(), prefixes);
+            cache.setTracker(new NearCacheTracker(cache, masterNodes, properties.clientConfig(), prefixes, properties.getNearCacheHeartbeatMillis()));
+            return new SharedClient(unifiedJedis, poolStats, masterNodes, cache);
+        }
+    }
+
+    static final class Entry {
+        private final String key;
+        private SharedClient client;
+        private int refCount;
+        private boolean closed;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private synchronized boolean retain(Supplier<SharedClient> builder) {
+            if (closed) {
+                return false;
+            }
+            if (client == null) {
+                client = builder.get();
+                logger.info("redis client created. key:{}", key);
+            }
+            refCount++;
+            return true;
+        }
+
+        /**
+         * 释放一次引用，引用计数归零时关闭客户端
+         */
+        synchronized void release() {
+            if (closed || --refCount > 0) {
+                return;
+            }
+            close();
+        }
+
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            CLIENTS.remove(key, this);
+            if (client != null) {
+                if (client.nearCache != null) {
+                    client.nearCache.close();
+                }
+                client.unifiedJedis.close();
+                logger.info("redis client closed. key:{}", key);
+            }
+        }
+
+        UnifiedJedis getUnifiedJedis() {
+            return client.unifiedJedis;
+        }
+
+        RedisNearCache getNearCache() {
+            return client.nearCache;
+        }
+
+        Map<String, PoolStats> getPoolStats() {
+            return client.poolStats == null ? Collections.emptyMap() : client.poolStats.get();
+        }
+    }
+}
@@ -2,7 +2,35 @@ package com.valley.jedis.client.factory;
 
 import redis.clients.jedis.UnifiedJedis;
 
+import java.util.Collections;
+import java.util.Map;
 
-public interface RedisFactory {
+
+public interface RedisFactory extends AutoCloseable {
     UnifiedJedis getUnifiedJedis();
+
+    /**
+     * 连接池状态
+     *
+     * @return 节点(host:port) -> 连接池状态，不支持时返回空map
+     */
+    default Map<String, PoolStats> getPoolStats() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 本地近端缓存，由配置nearCache.enabled开启
+     *
+     * @return 未开启时返回null
+     */
+    default RedisNearCache getNearCache() {
+        return null;
+    }
+
+    /**
+     * 释放当前工厂持有的客户端，默认不做任何处理
+     */
+    @Override
+    default void close() {
+    }
 }
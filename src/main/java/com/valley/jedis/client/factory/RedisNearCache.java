@@ -0,0 +1,277 @@
+package com.valley.jedis.client.factory;
+
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 本地近端缓存，由服务端key失效通知保证一致性
+ * <p>通过工厂配置nearCache.enabled=true开启，{@link RedisFactory#getNearCache()}获取。适用于读多写少的配置、开关类数据：</p>
+ * <ul>
+ *     <li>失效：每个master节点通过CLIENT TRACKING广播模式（BCAST）订阅配置前缀下key的修改，收到通知后删除本地缓存</li>
+ *     <li>淘汰：缓存数量超过上限时淘汰最久未访问的条目（抽样近似），条目超过TTL后重新读取</li>
+ *     <li>降级：失效通知连接断开期间不使用缓存，直接读取redis；重新订阅后清空缓存，避免使用断开期间已失效的数据</li>
+ * </ul>
+ * <p>只缓存匹配nearCache.prefixes的key，其余key直接读取redis。不存在的key同样被缓存。</p>
+ */
+public final class RedisNearCache implements AutoCloseable {
+    /**
+     * 淘汰时每轮抽样的条目数
+     */
+    private static final int EVICTION_SAMPLES = 8;
+
+    private static final Object NULL_VALUE = new Object();
+
+    private final UnifiedJedis unifiedJedis;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final List<String> prefixes;
+    private final ConcurrentHashMap<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+    /**
+     * 清空缓存或订阅状态变化时递增，读取期间发生变化的结果不写入缓存
+     */
+    private final AtomicLong epoch = new AtomicLong();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private volatile boolean tracking;
+    private volatile AutoCloseable tracker;
+
+    /**
+     * @param maxSize   缓存条目数上限
+     * @param ttlMillis 条目最长缓存时间
+     * @param prefixes  缓存的key前缀，为空时缓存所有key
+     */
+    RedisNearCache(UnifiedJedis unifiedJedis, int maxSize, long ttlMillis, List<String> prefixes) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("invalid near cache config. maxSize:" + maxSize + " ttlMillis:" + ttlMillis);
+        }
+        this.unifiedJedis = unifiedJedis;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.prefixes = Collections.unmodifiableList(new ArrayList<>(prefixes));
+    }
+
+    /**
+     * 读取字符串，等同于GET
+     */
+    public String get(String key) {
+        return (String) get(CacheKey.Type.GET, key, jedis -> jedis.get(key));
+    }
+
+    /**
+     * 读取hash所有字段，等同于HGETALL，返回结果不可修改
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, String> hgetAll(String key) {
+        return (Map<String, String>) get(CacheKey.Type.HGETALL, key, jedis -> Collections.unmodifiableMap(jedis.hgetAll(key)));
+    }
+
+    private Object get(CacheKey.Type type, String key, Function<UnifiedJedis, Object> loader) {
+        if (!isCacheable(key)) {
+            return loader.apply(unifiedJedis);
+        }
+        CacheKey cacheKey = new CacheKey(type, key);
+        CacheEntry entry = entries.get(cacheKey);
+        long now = System.nanoTime();
+        if (entry != null && entry.isLoaded() && now - entry.loadedAt < ttlNanos) {
+            entry.accessedAt = now;
+            hitCount.increment();
+            return entry.value == NULL_VALUE ? null : entry.value;
+        }
+        missCount.increment();
+        if (!tracking) {
+            return loader.apply(unifiedJedis);
+        }
+        //先写入占位条目，读取期间收到失效通知时占位条目被删除，读取结果不再写入缓存
+        CacheEntry placeholder = new CacheEntry(null, now);
+        long loadEpoch = epoch.get();
+        entries.put(cacheKey, placeholder);
+        Object value;
+        try {
+            value = loader.apply(unifiedJedis);
+        } catch (RuntimeException e) {
+            entries.remove(cacheKey, placeholder);
+            throw e;
+        }
+        if (epoch.get() == loadEpoch && entries.replace(cacheKey, placeholder, new CacheEntry(value == null ? NULL_VALUE : value, System.nanoTime()))) {
+            evictIfNecessary();
+        } else {
+            entries.remove(cacheKey, placeholder);
+        }
+        return value;
+    }
+
+    private boolean isCacheable(String key) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 超过上限时每轮抽样若干条目，淘汰其中最久未访问的条目
+     */
+    private void evictIfNecessary() {
+        while (entries.size() > maxSize) {
+            Map.Entry<CacheKey, CacheEntry> victim = null;
+            int sampled = 0;
+            for (Map.Entry<CacheKey, CacheEntry> candidate : entries.entrySet()) {
+                if (victim == null || candidate.getValue().accessedAt < victim.getValue().accessedAt) {
+                    victim = candidate;
+                }
+                if (++sampled >= EVICTION_SAMPLES) {
+                    break;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            if (entries.remove(victim.getKey(), victim.getValue())) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * 收到key失效通知
+     */
+    void invalidate(String key) {
+        boolean removed = false;
+        for (CacheKey.Type type : CacheKey.Type.values()) {
+            removed |= entries.remove(new CacheKey(type, key)) != null;
+        }
+        if (removed) {
+            invalidationCount.increment();
+        }
+    }
+
+    /**
+     * 清空缓存，读取中的结果不会写入缓存
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * 失效通知订阅状态变化，状态变化时清空缓存
+     *
+     * @param tracking 所有master节点均已订阅失效通知
+     */
+    synchronized void setTracking(boolean tracking) {
+        if (this.tracking != tracking) {
+            this.tracking = tracking;
+            invalidateAll();
+        }
+    }
+
+    void setTracker(AutoCloseable tracker) {
+        this.tracker = tracker;
+    }
+
+    /**
+     * 是否正在使用缓存，失效通知连接断开期间为false
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 因失效通知删除的条目数
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.sum();
+    }
+
+    /**
+     * 因超过数量上限淘汰的条目数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        AutoCloseable closeable = tracker;
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                //关闭失效通知连接失败不影响关闭
+            }
+        }
+        setTracking(false);
+    }
+
+    private static final class CacheKey {
+        private enum Type {GET, HGETALL}
+
+        private final Type type;
+        private final String key;
+
+        private CacheKey(Type type, String key) {
+            this.type = type;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey cacheKey = (CacheKey) o;
+            return type == cacheKey.type && key.equals(cacheKey.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + key.hashCode();
+        }
+    }
+
+    private static final class CacheEntry {
+        /**
+         * 为null时表示读取中的占位条目
+         */
+        private final Object value;
+        private final long loadedAt;
+        private volatile long accessedAt;
+
+        private CacheEntry(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.accessedAt = loadedAt;
+        }
+
+        private boolean isLoaded() {
+            return value != null;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.valley.jedis.client.factory;
+
+import com.valley.jedis.util.StringUtils;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.Protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 从classpath读取的redis配置，各模式共用，未配置的项使用jedis及连接池默认值
+ * <ul>
+ *     <li>redis.*：连接配置，database、user、password、clientName、ssl、connectionTimeoutMillis、socketTimeoutMillis、blockingSocketTimeoutMillis</li>
+ *     <li>sentinel.*：哨兵模式下连接哨兵节点的配置，可配置项同redis.*</li>
+ *     <li>pool.*：连接池配置，maxTotal、maxIdle、minIdle、maxWaitMillis、blockWhenExhausted、lifo、fairness、jmxEnabled、
+ *     testOnCreate、testOnBorrow、testOnReturn、testWhileIdle、timeBetweenEvictionRunsMillis、minEvictableIdleTimeMillis、
+ *     softMinEvictableIdleTimeMillis、numTestsPerEvictionRun</li>
+ *     <li>pool.warmUp、pool.warmUpTimeoutMillis：创建客户端时是否预先建立minIdle个连接（集群模式下每个节点各minIdle个）及最长等待时间</li>
+ *     <li>read.preference、read.refreshMillis：哨兵及集群模式下的读路由策略（master、replica-preferred、nearest）及从节点拓扑刷新间隔</li>
+ *     <li>nearCache.*：本地近端缓存，enabled、maxSize、ttlMillis、prefixes（逗号分隔）、heartbeatMillis，见{@link RedisNearCache}</li>
+ * </ul>
+ * <p>TCP keepalive及TCP_NODELAY由jedis在创建连接时默认开启。</p>
+ */
+final class RedisProperties {
+    private final String configFileName;
+    private final Properties properties;
+
+    private RedisProperties(String configFileName, Properties properties) {
+        this.configFileName = configFileName;
+        this.properties = properties;
+    }
+
+    static RedisProperties load(String configFileName) {
+        Properties properties = new Properties();
+        try (InputStream inputStream = RedisProperties.class.getClassLoader().getResourceAsStream(configFileName)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("redis config file not found in classpath. configFileName:" + configFileName);
+            }
+            properties.load(inputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException("load redis config file failed. configFileName:" + configFileName, e);
+        }
+        return new RedisProperties(configFileName, properties);
+    }
+
+    /**
+     * @return 去除首尾空白后的配置值，未配置或为空白时返回null
+     */
+    String getString(String name) {
+        String value = properties.getProperty(name);
+        return StringUtils.isBlank(value) ? null : value.trim();
+    }
+
+    String getRequired(String name) {
+        String value = getString(name);
+        if (value == null) {
+            throw new IllegalArgumentException("missing redis config " + name + ". configFileName:" + configFileName);
+        }
+        return value;
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = getString(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid redis config " + name + "=" + value + ". configFileName:" + configFileName, e);
+        }
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = getString(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid redis config " + name + "=" + value + ". configFileName:" + configFileName, e);
+        }
+    }
+
+    Duration getMillis(String name, Duration defaultValue) {
+        String value = getString(name);
+        return value == null ? defaultValue : Duration.ofMillis(getLong(name, 0L));
+    }
+
+    boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * redis节点连接配置
+     */
+    JedisClientConfig clientConfig() {
+        return clientConfig("redis.");
+    }
+
+    /**
+     * @param prefix 配置项前缀，如redis.、sentinel.
+     */
+    JedisClientConfig clientConfig(String prefix) {
+        return DefaultJedisClientConfig.builder()
+                .database(getInt(prefix + "database", Protocol.DEFAULT_DATABASE))
+                .user(getString(prefix + "user"))
+                .password(getString(prefix + "password"))
+                .clientName(getString(prefix + "clientName"))
+                .ssl(getBoolean(prefix + "ssl", false))
+                .connectionTimeoutMillis(getInt(prefix + "connectionTimeoutMillis", Protocol.DEFAULT_TIMEOUT))
+                .socketTimeoutMillis(getInt(prefix + "socketTimeoutMillis", Protocol.DEFAULT_TIMEOUT))
+                .blockingSocketTimeoutMillis(getInt(prefix + "blockingSocketTimeoutMillis", 0))
+                .build();
+    }
+
+    GenericObjectPoolConfig<Connection> poolConfig() {
+        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(getInt("pool.maxTotal", poolConfig.getMaxTotal()));
+        poolConfig.setMaxIdle(getInt("pool.maxIdle", poolConfig.getMaxIdle()));
+        poolConfig.setMinIdle(getInt("pool.minIdle", poolConfig.getMinIdle()));
+        poolConfig.setMaxWait(getMillis("pool.maxWaitMillis", poolConfig.getMaxWaitDuration()));
+        poolConfig.setBlockWhenExhausted(getBoolean("pool.blockWhenExhausted", poolConfig.getBlockWhenExhausted()));
+        poolConfig.setLifo(getBoolean("pool.lifo", poolConfig.getLifo()));
+        poolConfig.setFairness(getBoolean("pool.fairness", poolConfig.getFairness()));
+        poolConfig.setJmxEnabled(getBoolean("pool.jmxEnabled", poolConfig.getJmxEnabled()));
+        poolConfig.setTestOnCreate(getBoolean("pool.testOnCreate", poolConfig.getTestOnCreate()));
+        poolConfig.setTestOnBorrow(getBoolean("pool.testOnBorrow", poolConfig.getTestOnBorrow()));
+        poolConfig.setTestOnReturn(getBoolean("pool.testOnReturn", poolConfig.getTestOnReturn()));
+        poolConfig.setTestWhileIdle(getBoolean("pool.testWhileIdle", poolConfig.getTestWhileIdle()));
+        poolConfig.setTimeBetweenEvictionRuns(getMillis("pool.timeBetweenEvictionRunsMillis", poolConfig.getDurationBetweenEvictionRuns()));
+        poolConfig.setMinEvictableIdleDuration(getMillis("pool.minEvictableIdleTimeMillis", poolConfig.getMinEvictableIdleDuration()));
+        poolConfig.setSoftMinEvictableIdleDuration(getMillis("pool.softMinEvictableIdleTimeMillis", poolConfig.getSoftMinEvictableIdleDuration()));
+        poolConfig.setNumTestsPerEvictionRun(getInt("pool.numTestsPerEvictionRun", poolConfig.getNumTestsPerEvictionRun()));
+        return poolConfig;
+    }
+
+    /**
+     * 是否在创建客户端时预热连接池，默认开启，minIdle为0时无需预热
+     */
+    boolean isWarmUp() {
+        return getBoolean("pool.warmUp", true);
+    }
+
+    long getWarmUpTimeoutMillis() {
+        return getLong("pool.warmUpTimeoutMillis", 10_000L);
+    }
+
+    /**
+     * 读路由策略，默认全部发往master
+     */
+    ReadPreference getReadPreference() {
+        return ReadPreference.parse(getString("read.preference"));
+    }
+
+    long getReadRefreshMillis() {
+        return getLong("read.refreshMillis", 30_000L);
+    }
+
+    boolean isNearCacheEnabled() {
+        return getBoolean("nearCache.enabled", false);
+    }
+
+    int getNearCacheMaxSize() {
+        return getInt("nearCache.maxSize", 10_000);
+    }
+
+    long getNearCacheTtlMillis() {
+        return getLong("nearCache.ttlMillis", 60_000L);
+    }
+
+    /**
+     * 缓存的key前缀，未配置时缓存所有key
+     */
+    List<String> getNearCachePrefixes() {
+        String value = getString("nearCache.prefixes");
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (String prefix : value.split(",")) {
+            if (!StringUtils.isBlank(prefix)) {
+                prefixes.add(prefix.trim());
+            }
+        }
+        return prefixes;
+    }
+
+    long getNearCacheHeartbeatMillis() {
+        return getLong("nearCache.heartbeatMillis", 1_000L);
+    }
+
+    String getConfigFileName() {
+        return configFileName;
+    }
+}
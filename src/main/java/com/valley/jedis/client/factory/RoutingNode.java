@@ -0,0 +1,125 @@
+package com.valley.jedis.client.factory;
+
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionPool;
+import redis.clients.jedis.HostAndPort;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 读路由节点，记录探测延迟及可用状态
+ * <p>从节点及哨兵模式的master持有独立连接池；集群模式master节点的连接由集群连接提供者管理，pool为null。</p>
+ */
+final class RoutingNode {
+    /**
+     * 延迟指数移动平均的新样本权重
+     */
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    private final HostAndPort hostAndPort;
+    private final ConnectionPool pool;
+    private volatile boolean available = true;
+    /**
+     * 平滑后的探测延迟，0表示尚未探测
+     */
+    private volatile long latencyNanos;
+
+    RoutingNode(HostAndPort hostAndPort, ConnectionPool pool) {
+        this.hostAndPort = hostAndPort;
+        this.pool = pool;
+    }
+
+    /**
+     * 按最新发现的节点更新节点集合：保留已有节点（复用连接池及延迟记录），为新节点创建连接池，关闭已移除节点的连接池
+     *
+     * @param current     当前节点
+     * @param discovered  最新发现的节点
+     * @param poolFactory 新节点连接池
+     * @return 更新后的节点
+     */
+    static Map<HostAndPort, RoutingNode> reconcile(Map<HostAndPort, RoutingNode> current, Collection<HostAndPort> discovered,
+                                                   Function<HostAndPort, ConnectionPool> poolFactory) {
+        Map<HostAndPort, RoutingNode> nodes = new LinkedHashMap<>();
+        for (HostAndPort hostAndPort : discovered) {
+            RoutingNode node = current.get(hostAndPort);
+            nodes.put(hostAndPort, node != null ? node : new RoutingNode(hostAndPort, poolFactory.apply(hostAndPort)));
+        }
+        current.forEach((hostAndPort, node) -> {
+            if (!nodes.containsKey(hostAndPort)) {
+                node.close();
+            }
+        });
+        return nodes;
+    }
+
+    /**
+     * 通过自身连接池探测延迟
+     */
+    void probe() {
+        try (Connection connection = pool.getResource()) {
+            probe(connection);
+        } catch (RuntimeException e) {
+            markUnavailable();
+        }
+    }
+
+    /**
+     * 通过PING探测延迟，失败时标记为不可用
+     */
+    void probe(Connection connection) {
+        long startNanos = System.nanoTime();
+        try {
+            if (connection.ping()) {
+                recordLatency(System.nanoTime() - startNanos);
+            } else {
+                markUnavailable();
+            }
+        } catch (RuntimeException e) {
+            markUnavailable();
+        }
+    }
+
+    void recordLatency(long nanos) {
+        long previous = latencyNanos;
+        latencyNanos = previous == 0L ? Math.max(nanos, 1L) : (long) (previous * (1 - LATENCY_SMOOTHING) + nanos * LATENCY_SMOOTHING);
+        available = true;
+    }
+
+    void markUnavailable() {
+        available = false;
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return 平滑后的探测延迟，尚未探测时返回Long.MAX_VALUE
+     */
+    long getLatencyNanos() {
+        long nanos = latencyNanos;
+        return nanos == 0L ? Long.MAX_VALUE : nanos;
+    }
+
+    HostAndPort getHostAndPort() {
+        return hostAndPort;
+    }
+
+    ConnectionPool getPool() {
+        return pool;
+    }
+
+    void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return hostAndPort + (available ? "" : "(unavailable)");
+    }
+}
@@ -0,0 +1,110 @@
+package com.valley.jedis.client.factory;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.*;
+import redis.clients.jedis.providers.ConnectionProvider;
+import redis.clients.jedis.providers.SentineledConnectionProvider;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 哨兵模式master连接提供者
+ * <p>{@link SentineledConnectionProvider}仅用于订阅哨兵、发现当前master，连接从本类持有的master连接池获取，
+ * 使master连接池可以预热及统计。master变化时创建新连接池并关闭旧连接池，旧连接池借出的连接归还时销毁。</p>
+ */
+final class SentinelMasterProvider implements ConnectionProvider {
+    private static final Logger logger = LoggerFactory.getLogger(SentinelMasterProvider.class);
+
+    private final Supplier<HostAndPort> currentMaster;
+    private final Function<HostAndPort, ConnectionPool> poolFactory;
+    private final Runnable closer;
+    private volatile RoutingNode master;
+    private boolean closed;
+
+    /**
+     * @param sentinelProvider 用于发现master，其自身连接池不借出连接，应配置minIdle为0
+     */
+    SentinelMasterProvider(SentineledConnectionProvider sentinelProvider, JedisClientConfig clientConfig,
+                           GenericObjectPoolConfig<Connection> poolConfig) {
+        this(sentinelProvider::getCurrentMaster, hostAndPort -> new ConnectionPool(hostAndPort, clientConfig, poolConfig),
+                sentinelProvider::close);
+    }
+
+    SentinelMasterProvider(Supplier<HostAndPort> currentMaster, Function<HostAndPort, ConnectionPool> poolFactory, Runnable closer) {
+        this.currentMaster = currentMaster;
+        this.poolFactory = poolFactory;
+        this.closer = closer;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return getMasterNode().getPool().getResource();
+    }
+
+    @Override
+    public Connection getConnection(CommandArguments args) {
+        return getConnection();
+    }
+
+    @Override
+    public Map<?, ?> getConnectionMap() {
+        RoutingNode node = getMasterNode();
+        return Collections.singletonMap(node.getHostAndPort(), node.getPool());
+    }
+
+    HostAndPort getCurrentMaster() {
+        return currentMaster.get();
+    }
+
+    /**
+     * 当前master节点，master已变化时重建连接池
+     */
+    RoutingNode getMasterNode() {
+        HostAndPort hostAndPort = currentMaster.get();
+        RoutingNode node = master;
+        if (node != null && node.getHostAndPort().equals(hostAndPort)) {
+            return node;
+        }
+        synchronized (this) {
+            node = master;
+            if (node != null && node.getHostAndPort().equals(hostAndPort)) {
+                return node;
+            }
+            if (closed) {
+                throw new IllegalStateException("sentinel master provider is closed");
+            }
+            RoutingNode newNode = new RoutingNode(hostAndPort, poolFactory.apply(hostAndPort));
+            master = newNode;
+            if (node != null) {
+                logger.info("sentinel master changed. master:{} -> {}", node.getHostAndPort(), hostAndPort);
+                node.close();
+            }
+            return newNode;
+        }
+    }
+
+    /**
+     * 当前master(host:port) -> 连接池
+     */
+    Map<String, GenericObjectPool<?>> getPools() {
+        RoutingNode node = getMasterNode();
+        return Collections.singletonMap(node.getHostAndPort().toString(), node.getPool());
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (master != null) {
+                master.close();
+            }
+        }
+        closer.run();
+    }
+}
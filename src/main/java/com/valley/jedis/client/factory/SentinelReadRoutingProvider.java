@@ -0,0 +1,133 @@
+package com.valley.jedis.client.factory;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.providers.ConnectionProvider;
+
+import java.util.*;
+
+/**
+ * 哨兵模式读路由连接提供者
+ * <p>只读命令按{@link ReadPreference}选择从节点，其余命令由{@link SentinelMasterProvider}发往当前master。
+ * 从节点列表通过SENTINEL REPLICAS定时刷新，排除主观/客观下线、断开连接及复制链路异常的从节点。</p>
+ */
+final class SentinelReadRoutingProvider implements ConnectionProvider {
+    private static final Logger logger = LoggerFactory.getLogger(SentinelReadRoutingProvider.class);
+
+    private final SentinelMasterProvider masterProvider;
+    private final String masterName;
+    private final Set<HostAndPort> sentinels;
+    private final JedisClientConfig sentinelClientConfig;
+    private final JedisClientConfig clientConfig;
+    private final GenericObjectPoolConfig<Connection> poolConfig;
+    private final ReadRouter router;
+    private volatile RoutingNode master;
+    private volatile Map<HostAndPort, RoutingNode> replicaNodes = Collections.emptyMap();
+    private volatile List<RoutingNode> replicas = Collections.emptyList();
+
+    SentinelReadRoutingProvider(SentinelMasterProvider masterProvider, String masterName, Set<HostAndPort> sentinels,
+                                JedisClientConfig sentinelClientConfig, JedisClientConfig clientConfig,
+                                GenericObjectPoolConfig<Connection> poolConfig, ReadPreference readPreference, long refreshMillis) {
+        this.masterProvider = masterProvider;
+        this.masterName = masterName;
+        this.sentinels = sentinels;
+        this.sentinelClientConfig = sentinelClientConfig;
+        this.clientConfig = clientConfig;
+        this.poolConfig = poolConfig;
+        this.router = new ReadRouter(readPreference);
+        this.router.start(this::refresh, refreshMillis);
+    }
+
+    @Override
+    public Connection getConnection() {
+        return masterProvider.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(CommandArguments args) {
+        if (ReadOnlyCommands.isReadOnly(args)) {
+            RoutingNode selected = router.select(master, replicas);
+            if (selected != null && selected.getPool() != null) {
+                try {
+                    return selected.getPool().getResource();
+                } catch (JedisException e) {
+                    logger.warn("get replica connection failed, fallback to master. replica:{}", selected, e);
+                    selected.markUnavailable();
+                    router.requestRefresh();
+                }
+            }
+        }
+        return masterProvider.getConnection(args);
+    }
+
+    @Override
+    public Map<?, ?> getConnectionMap() {
+        return masterProvider.getConnectionMap();
+    }
+
+    /**
+     * 从节点连接池
+     */
+    Map<String, GenericObjectPool<?>> getReplicaPools() {
+        Map<String, GenericObjectPool<?>> pools = new TreeMap<>();
+        replicaNodes.forEach((hostAndPort, node) -> pools.put(hostAndPort.toString(), node.getPool()));
+        return pools;
+    }
+
+    private void refresh() {
+        List<HostAndPort> discovered = discoverReplicas();
+        if (discovered != null) {
+            Map<HostAndPort, RoutingNode> nodes = RoutingNode.reconcile(replicaNodes, discovered,
+                    hostAndPort -> new ConnectionPool(hostAndPort, clientConfig, poolConfig));
+            if (!nodes.keySet().equals(replicaNodes.keySet())) {
+                logger.info("sentinel replicas changed. masterName:{} replicas:{}", masterName, nodes.keySet());
+            }
+            replicaNodes = nodes;
+            replicas = Collections.unmodifiableList(new ArrayList<>(nodes.values()));
+        }
+        //master变化时同时重建master连接池
+        RoutingNode masterNode = masterProvider.getMasterNode();
+        master = masterNode;
+        if (router.getReadPreference() == ReadPreference.NEAREST) {
+            masterNode.probe();
+        }
+        for (RoutingNode replica : replicas) {
+            replica.probe();
+        }
+    }
+
+    /**
+     * 依次询问哨兵节点，返回健康的从节点，所有哨兵均不可用时返回null
+     */
+    private List<HostAndPort> discoverReplicas() {
+        for (HostAndPort sentinel : sentinels) {
+            try (Jedis jedis = new Jedis(sentinel, sentinelClientConfig)) {
+                List<HostAndPort> discovered = new ArrayList<>();
+                for (Map<String, String> replica : jedis.sentinelReplicas(masterName)) {
+                    String flags = replica.getOrDefault("flags", "");
+                    if (flags.contains("s_down") || flags.contains("o_down") || flags.contains("disconnected")
+                            || !"ok".equals(replica.get("master-link-status"))) {
+                        continue;
+                    }
+                    discovered.add(new HostAndPort(replica.get("ip"), Integer.parseInt(replica.get("port"))));
+                }
+                return discovered;
+            } catch (JedisException | NumberFormatException e) {
+                logger.debug("query sentinel replicas failed. sentinel:{}", sentinel, e);
+            }
+        }
+        logger.warn("query sentinel replicas failed on all sentinels. masterName:{}", masterName);
+        return null;
+    }
+
+    @Override
+    public void close() {
+        router.close();
+        replicaNodes.values().forEach(RoutingNode::close);
+        masterProvider.close();
+    }
+}
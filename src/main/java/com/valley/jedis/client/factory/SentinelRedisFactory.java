@@ -4,80 +4,64 @@ import com.valley.jedis.util.StringUtils;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.*;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.providers.SentineledConnectionProvider;
 
-import java.io.IOException;
-import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * 哨兵模式
+ * <p>配置read.preference后只读命令可路由到从节点，见{@link ReadPreference}。</p>
+ * <p>master连接池由{@link SentinelMasterProvider}持有，{@link #getPoolStats()}包含当前master及读路由使用的从节点连接池。</p>
  */
-public class SentinelRedisFactory implements RedisFactory {
+public class SentinelRedisFactory extends AbstractRedisFactory {
     private static final Logger logger = LoggerFactory.getLogger(SentinelRedisFactory.class);
-    private static final ConcurrentHashMap<String, UnifiedJedis> JEDIS_CACHE = new ConcurrentHashMap<>();
-    private String configFileName = "sentinelJedis.properties";
-
-    static {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (JEDIS_CACHE != null && !JEDIS_CACHE.isEmpty()) {
-                JEDIS_CACHE.values().forEach(UnifiedJedis::close);
-            }
-        }));
-    }
 
     public SentinelRedisFactory() {
-        initUnifiedJedis();
+        this("sentinelJedis.properties");
     }
 
     public SentinelRedisFactory(String configFileName) {
-        this.configFileName = configFileName;
-        initUnifiedJedis();
-    }
-
-    private void initUnifiedJedis() {
-        final String configName_ = this.configFileName;
-        if (!JEDIS_CACHE.contains(configName_)) {
-            synchronized (SimpleRedisFactory.class) {
-                if (!JEDIS_CACHE.contains(configName_)) {
-                    JEDIS_CACHE.put(configName_, buildFromConfig(configName_));
-                }
-            }
-        }
+        super("sentinel", configFileName);
     }
 
-
     @Override
-    public UnifiedJedis getUnifiedJedis() {
-        return JEDIS_CACHE.get(this.configFileName);
+    RedisClientRegistry.SharedClient build(RedisProperties properties) {
+        GenericObjectPoolConfig<Connection> poolConfig = properties.poolConfig();
+        String masterName = properties.getRequired("sentinel.masterName");
+        Set<HostAndPort> sentinels = StringUtils.parseHostAndPorts(properties.getRequired("sentinel.urls"));
+        //哨兵连接提供者仅用于发现master，不借出连接
+        GenericObjectPoolConfig<Connection> discoveryPoolConfig = poolConfig.clone();
+        discoveryPoolConfig.setMinIdle(0);
+        SentinelMasterProvider masterProvider = new SentinelMasterProvider(new SentineledConnectionProvider(masterName,
+                properties.clientConfig(), discoveryPoolConfig, sentinels, properties.clientConfig("sentinel.")), properties.clientConfig(), poolConfig);
+        logger.info(poolConfig.toString());
+        if (properties.isWarmUp()) {
+            PoolWarmUp.warmUp(masterProvider.getPools(), properties.getWarmUpTimeoutMillis());
+        }
+        ReadPreference readPreference = properties.getReadPreference();
+        if (readPreference == ReadPreference.MASTER) {
+            return new RedisClientRegistry.SharedClient(new UnifiedJedis(masterProvider), () -> poolStats(masterProvider, null),
+                    () -> Collections.singleton(masterProvider.getCurrentMaster()));
+        }
+        SentinelReadRoutingProvider readRoutingProvider = new SentinelReadRoutingProvider(masterProvider, masterName, sentinels,
+                properties.clientConfig("sentinel."), properties.clientConfig(), poolConfig, readPreference, properties.getReadRefreshMillis());
+        logger.info("sentinel read preference:{}", readPreference);
+        return new RedisClientRegistry.SharedClient(new UnifiedJedis(readRoutingProvider), () -> poolStats(masterProvider, readRoutingProvider),
+                () -> Collections.singleton(masterProvider.getCurrentMaster()));
     }
 
-    private UnifiedJedis buildFromConfig(String configFileName) {
-        Properties properties = new Properties();
-        try {
-            properties.load(this.getClass().getClassLoader().getResourceAsStream(configFileName));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private static Map<String, PoolStats> poolStats(SentinelMasterProvider masterProvider, SentinelReadRoutingProvider readRoutingProvider) {
+        Map<String, PoolStats> poolStats = new TreeMap<>();
+        masterProvider.getPools().forEach((node, pool) -> poolStats.put(node, PoolStats.of(pool)));
+        if (readRoutingProvider != null) {
+            readRoutingProvider.getReplicaPools().forEach((node, pool) -> poolStats.put(node, PoolStats.of(pool)));
         }
-        String sentinels = properties.getProperty("sentinel.urls");
-        String master = properties.getProperty("sentinel.masterName");
-        String database = properties.getProperty("redis.database");
-        String testOnBorrow = properties.getProperty("pool.testOnBorrow");
-        String maxTotal = properties.getProperty("pool.maxTotal");
-        String maxIdle = properties.getProperty("pool.maxIdle");
-
-        JedisClientConfig jedisClientConfig = DefaultJedisClientConfig.builder()
-                .database(Integer.parseInt(database))
-                .build();
-        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
-        poolConfig.setMaxTotal(Integer.parseInt(maxTotal));
-        poolConfig.setMaxIdle(Integer.parseInt(maxIdle));
-        poolConfig.setTestOnBorrow(Boolean.parseBoolean(testOnBorrow));
-        SentineledConnectionProvider sentineledConnectionProvider =
-                new SentineledConnectionProvider(master, jedisClientConfig, poolConfig, StringUtils.parseHostAndPorts(sentinels), DefaultJedisClientConfig.builder().build());
-
-        logger.info(poolConfig.toString());
-        return new UnifiedJedis(sentineledConnectionProvider);
+        return poolStats;
     }
 }
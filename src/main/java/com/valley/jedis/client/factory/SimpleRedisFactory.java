@@ -3,79 +3,39 @@ package com.valley.jedis.client.factory;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.*;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.providers.PooledConnectionProvider;
 
-import java.io.IOException;
-import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
 
 /**
  * 单节点redis
  */
-public class SimpleRedisFactory implements RedisFactory {
+public class SimpleRedisFactory extends AbstractRedisFactory {
     private static final Logger logger = LoggerFactory.getLogger(SimpleRedisFactory.class);
-    private static final ConcurrentHashMap<String, UnifiedJedis> JEDIS_CACHE = new ConcurrentHashMap<>();
-    private String configFileName = "jedis.properties";
-
-    static {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (JEDIS_CACHE != null && !JEDIS_CACHE.isEmpty()) {
-                JEDIS_CACHE.values().forEach(UnifiedJedis::close);
-            }
-        }));
-    }
 
     public SimpleRedisFactory() {
-        initUnifiedJedis();
+        this("jedis.properties");
     }
 
     public SimpleRedisFactory(String configFileName) {
-        this.configFileName = configFileName;
-        initUnifiedJedis();
-    }
-
-    private void initUnifiedJedis() {
-        final String configName_ = this.configFileName;
-        if (!JEDIS_CACHE.contains(configName_)) {
-            synchronized (SimpleRedisFactory.class) {
-                if (!JEDIS_CACHE.contains(configName_)) {
-                    JEDIS_CACHE.put(configName_, buildFromConfig(configName_));
-                }
-            }
-        }
+        super("simple", configFileName);
     }
 
     @Override
-    public UnifiedJedis getUnifiedJedis() {
-        return JEDIS_CACHE.get(this.configFileName);
-    }
-
-    private UnifiedJedis buildFromConfig(String configFileName) {
-        Properties properties = new Properties();
-        try {
-            properties.load(this.getClass().getClassLoader().getResourceAsStream(configFileName));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        String url = properties.getProperty("redis.url");
-        String database = properties.getProperty("redis.database");
-        String testOnBorrow = properties.getProperty("pool.testOnBorrow");
-        String maxTotal = properties.getProperty("pool.maxTotal");
-        String maxIdle = properties.getProperty("pool.maxIdle");
-
-        JedisClientConfig jedisClientConfig = DefaultJedisClientConfig.builder()
-                .database(Integer.parseInt(database))
-                .build();
-        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
-
-        poolConfig.setMaxTotal(Integer.parseInt(maxTotal));
-        poolConfig.setMaxIdle(Integer.parseInt(maxIdle));
-        poolConfig.setTestOnBorrow(Boolean.parseBoolean(testOnBorrow));
-
-        PooledConnectionProvider pooledConnectionProvider = new PooledConnectionProvider(HostAndPort.from(url), jedisClientConfig, poolConfig);
+    RedisClientRegistry.SharedClient build(RedisProperties properties) {
+        GenericObjectPoolConfig<Connection> poolConfig = properties.poolConfig();
+        HostAndPort hostAndPort = HostAndPort.from(properties.getRequired("redis.url"));
+        PooledConnectionProvider pooledConnectionProvider = new PooledConnectionProvider(hostAndPort, properties.clientConfig(), poolConfig);
         logger.info(poolConfig.toString());
-        return new UnifiedJedis(pooledConnectionProvider);
+        if (properties.isWarmUp()) {
+            PoolWarmUp.warmUp(Collections.singletonMap(hostAndPort.toString(), pooledConnectionProvider.getPool()), properties.getWarmUpTimeoutMillis());
+        }
+        return new RedisClientRegistry.SharedClient(new UnifiedJedis(pooledConnectionProvider),
+                () -> Collections.singletonMap(hostAndPort.toString(), PoolStats.of(pooledConnectionProvider.getPool())),
+                () -> Collections.singleton(hostAndPort));
     }
 
 }
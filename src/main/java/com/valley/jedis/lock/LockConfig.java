@@ -1,5 +1,7 @@
 package com.valley.jedis.lock;
 
+import com.valley.jedis.script.RedisScript;
+
 public class LockConfig {
     /**
      * 释放锁-lua脚本
@@ -11,20 +13,478 @@ public class LockConfig {
                     "    return 0 " +
                     "end";
     /**
-     * 锁续活-lua脚本
+     * 锁续活-lua脚本，ARGV[2]为续期毫秒数
      */
     public static final String LUA_SCRIPT_PROLONG_LOCK =
             "if redis.call(\"get\",KEYS[1]) == ARGV[1] then " +
+                    "    return redis.call(\"pexpire\",KEYS[1],ARGV[2]) " +
+                    "else " +
+                    "    return 0 " +
+                    "end";
+
+    /**
+     * 释放锁并写入释放通知-lua脚本
+     */
+    public static final String LUA_SCRIPT_RELEASE_LOCK_AND_SIGNAL =
+            "if redis.call(\"get\",KEYS[1]) == ARGV[1] then " +
+                    "    redis.call(\"del\",KEYS[1]) " +
+                    "    redis.call(\"rpush\",KEYS[2],1) " +
+                    "    redis.call(\"ltrim\",KEYS[2],0,0) " +
+                    "    redis.call(\"pexpire\",KEYS[2],ARGV[2]) " +
+                    "    return 1 " +
+                    "else " +
+                    "    return 0 " +
+                    "end";
+
+    /**
+     * 多数派锁续活-lua脚本，各节点时钟相互独立，按相对时长续期
+     */
+    public static final String LUA_SCRIPT_PROLONG_QUORUM_LOCK =
+            "if redis.call(\"get\",KEYS[1]) == ARGV[1] then " +
+                    "    return redis.call(\"pexpire\",KEYS[1],ARGV[2]) " +
+                    "else " +
+                    "    return 0 " +
+                    "end";
+
+    /**
+     * 带fencing token加锁-lua脚本，加锁成功时递增计数器key并返回递增后的值，失败时返回0
+     * <p>计数器key不设置过期时间，保证同一lockKey的token单调递增。ARGV[2]为锁过期毫秒数。</p>
+     */
+    public static final String LUA_SCRIPT_ACQUIRE_FENCED_LOCK =
+            "if redis.call(\"set\",KEYS[1],ARGV[1],\"NX\",\"PX\",ARGV[2]) then " +
+                    "    return redis.call(\"incr\",KEYS[2]) " +
+                    "else " +
+                    "    return 0 " +
+                    "end";
+
+    /**
+     * 多key加锁-lua脚本，所有key均不存在时才全部加锁，ARGV[2]为锁过期毫秒数
+     */
+    public static final String LUA_SCRIPT_ACQUIRE_MULTI_LOCK =
+            "for i = 1, #KEYS do " +
+                    "    if redis.call(\"exists\",KEYS[i]) == 1 then " +
+                    "        return 0 " +
+                    "    end " +
+                    "end " +
+                    "for i = 1, #KEYS do " +
+                    "    redis.call(\"set\",KEYS[i],ARGV[1],\"PX\",ARGV[2]) " +
+                    "end " +
+                    "return 1";
+
+    /**
+     * 多key锁续活-lua脚本，任一key已不属于当前锁时视为锁丢失，ARGV[2]为续期毫秒数
+     */
+    public static final String LUA_SCRIPT_PROLONG_MULTI_LOCK =
+            "for i = 1, #KEYS do " +
+                    "    if redis.call(\"get\",KEYS[i]) ~= ARGV[1] then " +
+                    "        return 0 " +
+                    "    end " +
+                    "end " +
+                    "for i = 1, #KEYS do " +
+                    "    redis.call(\"pexpire\",KEYS[i],ARGV[2]) " +
+                    "end " +
+                    "return 1";
+
+    /**
+     * 多key释放锁-lua脚本，返回删除的key数量
+     */
+    public static final String LUA_SCRIPT_RELEASE_MULTI_LOCK =
+            "local released = 0 " +
+                    "for i = 1, #KEYS do " +
+                    "    if redis.call(\"get\",KEYS[i]) == ARGV[1] then " +
+                    "        released = released + redis.call(\"del\",KEYS[i]) " +
+                    "    end " +
+                    "end " +
+                    "return released";
+
+    /**
+     * 获取读锁-lua脚本
+     * <p>读写锁以hash存储：writer字段为写锁标识，reader:{锁标识}字段为各读锁的过期时间，expireAt字段为整个key的过期时间。
+     * KEYS[2]存在时为写锁等待标记，标记存在时新的读锁需等待（写锁优先）。</p>
+     */
+    public static final String LUA_SCRIPT_ACQUIRE_READ_LOCK =
+            "if redis.call(\"hexists\",KEYS[1],\"writer\") == 1 then " +
+                    "    return 0 " +
+                    "end " +
+                    "if #KEYS > 1 and redis.call(\"exists\",KEYS[2]) == 1 then " +
+                    "    return 0 " +
+                    "end " +
+                    "redis.call(\"hset\",KEYS[1],\"reader:\" .. ARGV[1],ARGV[2]) " +
+                    "if tonumber(ARGV[2]) > tonumber(redis.call(\"hget\",KEYS[1],\"expireAt\") or \"0\") then " +
+                    "    redis.call(\"hset\",KEYS[1],\"expireAt\",ARGV[2]) " +
+                    "    redis.call(\"PEXPIREAT\",KEYS[1],ARGV[2]) " +
+                    "end " +
+                    "return 1";
+
+    /**
+     * 读锁续活-lua脚本
+     */
+    public static final String LUA_SCRIPT_PROLONG_READ_LOCK =
+            "if redis.call(\"hexists\",KEYS[1],\"reader:\" .. ARGV[1]) == 0 then " +
+                    "    return 0 " +
+                    "end " +
+                    "redis.call(\"hset\",KEYS[1],\"reader:\" .. ARGV[1],ARGV[2]) " +
+                    "if tonumber(ARGV[2]) > tonumber(redis.call(\"hget\",KEYS[1],\"expireAt\") or \"0\") then " +
+                    "    redis.call(\"hset\",KEYS[1],\"expireAt\",ARGV[2]) " +
+                    "    redis.call(\"PEXPIREAT\",KEYS[1],ARGV[2]) " +
+                    "end " +
+                    "return 1";
+
+    /**
+     * 释放读锁-lua脚本，最后一个读锁释放时删除key
+     */
+    public static final String LUA_SCRIPT_RELEASE_READ_LOCK =
+            "if redis.call(\"hdel\",KEYS[1],\"reader:\" .. ARGV[1]) == 0 then " +
+                    "    return 0 " +
+                    "end " +
+                    "if redis.call(\"hlen\",KEYS[1]) <= 1 then " +
+                    "    redis.call(\"del\",KEYS[1]) " +
+                    "end " +
+                    "return 1";
+
+    /**
+     * 获取写锁-lua脚本
+     * <p>先清理已过期（持有者崩溃未释放）的读锁，无读锁和写锁时获取成功；获取失败且KEYS[2]存在时设置写锁等待标记，获取成功时清除标记（其余等待中的写锁下次重试时重新设置）。
+     * ARGV[3]为当前时间戳，ARGV[4]为等待标记过期毫秒数。</p>
+     */
+    public static final String LUA_SCRIPT_ACQUIRE_WRITE_LOCK =
+            "local fields = redis.call(\"hgetall\",KEYS[1]) " +
+                    "local readers = 0 " +
+                    "for i = 1, #fields, 2 do " +
+                    "    if string.sub(fields[i],1,7) == \"reader:\" then " +
+                    "        if tonumber(fields[i + 1]) < tonumber(ARGV[3]) then " +
+                    "            redis.call(\"hdel\",KEYS[1],fields[i]) " +
+                    "        else " +
+                    "            readers = readers + 1 " +
+                    "        end " +
+                    "    end " +
+                    "end " +
+                    "if readers > 0 or redis.call(\"hexists\",KEYS[1],\"writer\") == 1 then " +
+                    "    if #KEYS > 1 then " +
+                    "        redis.call(\"set\",KEYS[2],ARGV[1],\"PX\",ARGV[4]) " +
+                    "    end " +
+                    "    return 0 " +
+                    "end " +
+                    "redis.call(\"del\",KEYS[1]) " +
+                    "redis.call(\"hset\",KEYS[1],\"writer\",ARGV[1]) " +
+                    "redis.call(\"hset\",KEYS[1],\"expireAt\",ARGV[2]) " +
+                    "redis.call(\"PEXPIREAT\",KEYS[1],ARGV[2]) " +
+                    "if #KEYS > 1 then " +
+                    "    redis.call(\"del\",KEYS[2]) " +
+                    "end " +
+                    "return 1";
+
+    /**
+     * 写锁续活-lua脚本
+     */
+    public static final String LUA_SCRIPT_PROLONG_WRITE_LOCK =
+            "if redis.call(\"hget\",KEYS[1],\"writer\") == ARGV[1] then " +
+                    "    redis.call(\"hset\",KEYS[1],\"expireAt\",ARGV[2]) " +
                     "    return redis.call(\"PEXPIREAT\",KEYS[1],ARGV[2]) " +
                     "else " +
                     "    return 0 " +
                     "end";
 
+    /**
+     * 释放写锁-lua脚本
+     */
+    public static final String LUA_SCRIPT_RELEASE_WRITE_LOCK =
+            "if redis.call(\"hget\",KEYS[1],\"writer\") == ARGV[1] then " +
+                    "    return redis.call(\"del\",KEYS[1]) " +
+                    "else " +
+                    "    return 0 " +
+                    "end";
+
+    /**
+     * lua脚本公共部分：以redis服务端时间计算当前时间戳
+     */
+    private static final String LUA_SERVER_NOW =
+            "local time = redis.call(\"TIME\") " +
+                    "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) ";
+
+    /**
+     * 获取信号量许可-lua脚本
+     * <p>许可以zset存储，member为租约标识，score为以redis服务端时间计算的租约过期时间，各客户端时钟偏差不影响租约有效期。
+     * 先清理已过期租约，剩余租约数小于许可总数时新增租约。ARGV[2]为租约毫秒数，ARGV[3]为许可总数。</p>
+     */
+    public static final String LUA_SCRIPT_ACQUIRE_SEMAPHORE =
+            LUA_SERVER_NOW +
+                    "redis.call(\"zremrangebyscore\",KEYS[1],\"-inf\",\"(\" .. now) " +
+                    "if redis.call(\"zcard\",KEYS[1]) >= tonumber(ARGV[3]) then " +
+                    "    return 0 " +
+                    "end " +
+                    "redis.call(\"zadd\",KEYS[1],now + tonumber(ARGV[2]),ARGV[1]) " +
+                    "local last = redis.call(\"zrange\",KEYS[1],-1,-1,\"WITHSCORES\") " +
+                    "redis.call(\"PEXPIREAT\",KEYS[1],last[2]) " +
+                    "return 1";
+
+    /**
+     * 信号量租约续活-lua脚本
+     * <p>ARGV[2]为续期毫秒数，以redis服务端时间计算新的过期时间。</p>
+     */
+    public static final String LUA_SCRIPT_PROLONG_SEMAPHORE =
+            LUA_SERVER_NOW +
+                    "if not redis.call(\"zscore\",KEYS[1],ARGV[1]) then " +
+                    "    return 0 " +
+                    "end " +
+                    "redis.call(\"zadd\",KEYS[1],now + tonumber(ARGV[2]),ARGV[1]) " +
+                    "local last = redis.call(\"zrange\",KEYS[1],-1,-1,\"WITHSCORES\") " +
+                    "redis.call(\"PEXPIREAT\",KEYS[1],last[2]) " +
+                    "return 1";
 
     /**
-     * redis中缓存lock key默认过期毫秒数
+     * 释放信号量许可-lua脚本
+     */
+    public static final String LUA_SCRIPT_RELEASE_SEMAPHORE =
+            "return redis.call(\"zrem\",KEYS[1],ARGV[1])";
+
+    /**
+     * 公平锁等待者超时毫秒数，等待者每次轮询时刷新，超时未刷新（进程崩溃）的等待者将被移出队列
+     */
+    public static final long FAIR_LOCK_WAITER_TIMEOUT_MILLIS = 3000L;
+
+    /**
+     * 公平锁等待者轮询间隔毫秒数，固定间隔以保证可预期的等待时延
+     */
+    public static final long FAIR_LOCK_POLL_MILLIS = 100L;
+
+    /**
+     * 获取公平锁-lua脚本
+     * <p>KEYS[1]为锁key，KEYS[2]为等待队列(list)，KEYS[3]为等待者超时时间(zset)。ARGV[2]为锁过期毫秒数，ARGV[3]为等待者超时毫秒数。</p>
+     * <p>先清理队首已超时的等待者；锁已移交给当前请求或锁空闲且当前请求位于队首（或队列为空）时获取成功，否则入队并刷新超时时间。</p>
+     */
+    public static final String LUA_SCRIPT_ACQUIRE_FAIR_LOCK =
+            LUA_SERVER_NOW +
+                    "while true do " +
+                    "    local head = redis.call(\"lindex\",KEYS[2],0) " +
+                    "    if not head then " +
+                    "        break " +
+                    "    end " +
+                    "    local timeout = redis.call(\"zscore\",KEYS[3],head) " +
+                    "    if timeout and tonumber(timeout) >= now then " +
+                    "        break " +
+                    "    end " +
+                    "    redis.call(\"lpop\",KEYS[2]) " +
+                    "    redis.call(\"zrem\",KEYS[3],head) " +
+                    "end " +
+                    "local holder = redis.call(\"get\",KEYS[1]) " +
+                    "if holder == ARGV[1] then " +
+                    "    redis.call(\"pexpire\",KEYS[1],ARGV[2]) " +
+                    "    return 1 " +
+                    "end " +
+                    "if not holder then " +
+                    "    local head = redis.call(\"lindex\",KEYS[2],0) " +
+                    "    if not head or head == ARGV[1] then " +
+                    "        if head then " +
+                    "            redis.call(\"lpop\",KEYS[2]) " +
+                    "            redis.call(\"zrem\",KEYS[3],head) " +
+                    "        end " +
+                    "        redis.call(\"set\",KEYS[1],ARGV[1],\"PX\",ARGV[2]) " +
+                    "        return 1 " +
+                    "    end " +
+                    "end " +
+                    "if not redis.call(\"zscore\",KEYS[3],ARGV[1]) then " +
+                    "    redis.call(\"rpush\",KEYS[2],ARGV[1]) " +
+                    "end " +
+                    "redis.call(\"zadd\",KEYS[3],now + tonumber(ARGV[3]),ARGV[1]) " +
+                    "redis.call(\"pexpire\",KEYS[2],ARGV[3]) " +
+                    "redis.call(\"pexpire\",KEYS[3],ARGV[3]) " +
+                    "return 0";
+
+    /**
+     * 释放公平锁-lua脚本，同时用于放弃等待
+     * <p>先将自身移出等待队列；持有锁时将锁直接移交给队首未超时的等待者（移交后锁的过期时间为等待者超时毫秒数，由等待者获取时重置），无等待者时删除锁。</p>
+     */
+    public static final String LUA_SCRIPT_RELEASE_FAIR_LOCK =
+            "redis.call(\"lrem\",KEYS[2],0,ARGV[1]) " +
+                    "redis.call(\"zrem\",KEYS[3],ARGV[1]) " +
+                    "if redis.call(\"get\",KEYS[1]) ~= ARGV[1] then " +
+                    "    return 0 " +
+                    "end " +
+                    LUA_SERVER_NOW +
+                    "while true do " +
+                    "    local head = redis.call(\"lpop\",KEYS[2]) " +
+                    "    if not head then " +
+                    "        return redis.call(\"del\",KEYS[1]) " +
+                    "    end " +
+                    "    local timeout = redis.call(\"zscore\",KEYS[3],head) " +
+                    "    redis.call(\"zrem\",KEYS[3],head) " +
+                    "    if timeout and tonumber(timeout) >= now then " +
+                    "        redis.call(\"set\",KEYS[1],head,\"PX\"," + FAIR_LOCK_WAITER_TIMEOUT_MILLIS + ") " +
+                    "        return 1 " +
+                    "    end " +
+                    "end";
+
+    /**
+     * 释放锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript RELEASE_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_RELEASE_LOCK);
+
+    /**
+     * 锁续活-脚本（EVALSHA执行）
+     */
+    public static final RedisScript PROLONG_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_PROLONG_LOCK);
+
+    /**
+     * 释放锁并写入释放通知-脚本（EVALSHA执行）
+     */
+    public static final RedisScript RELEASE_LOCK_AND_SIGNAL_SCRIPT = new RedisScript(LUA_SCRIPT_RELEASE_LOCK_AND_SIGNAL);
+
+    /**
+     * 多数派锁续活-脚本（EVALSHA执行）
+     */
+    public static final RedisScript PROLONG_QUORUM_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_PROLONG_QUORUM_LOCK);
+
+    /**
+     * 带fencing token加锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript ACQUIRE_FENCED_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_ACQUIRE_FENCED_LOCK);
+
+    /**
+     * 多key加锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript ACQUIRE_MULTI_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_ACQUIRE_MULTI_LOCK);
+
+    /**
+     * 多key锁续活-脚本（EVALSHA执行）
+     */
+    public static final RedisScript PROLONG_MULTI_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_PROLONG_MULTI_LOCK);
+
+    /**
+     * 多key释放锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript RELEASE_MULTI_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_RELEASE_MULTI_LOCK);
+
+    /**
+     * 获取读锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript ACQUIRE_READ_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_ACQUIRE_READ_LOCK);
+
+    /**
+     * 读锁续活-脚本（EVALSHA执行）
+     */
+    public static final RedisScript PROLONG_READ_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_PROLONG_READ_LOCK);
+
+    /**
+     * 释放读锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript RELEASE_READ_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_RELEASE_READ_LOCK);
+
+    /**
+     * 获取写锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript ACQUIRE_WRITE_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_ACQUIRE_WRITE_LOCK);
+
+    /**
+     * 写锁续活-脚本（EVALSHA执行）
+     */
+    public static final RedisScript PROLONG_WRITE_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_PROLONG_WRITE_LOCK);
+
+    /**
+     * 释放写锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript RELEASE_WRITE_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_RELEASE_WRITE_LOCK);
+
+    /**
+     * 获取信号量许可-脚本（EVALSHA执行）
+     */
+    public static final RedisScript ACQUIRE_SEMAPHORE_SCRIPT = new RedisScript(LUA_SCRIPT_ACQUIRE_SEMAPHORE);
+
+    /**
+     * 信号量租约续活-脚本（EVALSHA执行）
+     */
+    public static final RedisScript PROLONG_SEMAPHORE_SCRIPT = new RedisScript(LUA_SCRIPT_PROLONG_SEMAPHORE);
+
+    /**
+     * 释放信号量许可-脚本（EVALSHA执行）
+     */
+    public static final RedisScript RELEASE_SEMAPHORE_SCRIPT = new RedisScript(LUA_SCRIPT_RELEASE_SEMAPHORE);
+
+    /**
+     * 获取公平锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript ACQUIRE_FAIR_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_ACQUIRE_FAIR_LOCK);
+
+    /**
+     * 释放公平锁-脚本（EVALSHA执行）
+     */
+    public static final RedisScript RELEASE_FAIR_LOCK_SCRIPT = new RedisScript(LUA_SCRIPT_RELEASE_FAIR_LOCK);
+
+
+    /**
+     * redis中缓存lock key默认过期毫秒数，即默认租约时长，可按{@link RedisLock}实例或按锁指定
      */
     public static final long DEFAULT_REDIS_KEY_EXPIRE_MILLIS = 30 * 1000L;
 
+    /**
+     * 租约时长下限
+     */
+    public static final long MIN_LEASE_MILLIS = 1000L;
+
+    /**
+     * 看门狗单次pipeline批量续活的锁数量上限
+     */
+    public static final int PROLONG_BATCH_SIZE = 200;
+
+    /**
+     * 看门狗时间轮tick毫秒数，即锁检查时间的精度。看门狗按最早的检查时间唤醒，不按tick定时执行
+     */
+    public static final long WATCHDOG_TICK_MILLIS = 100L;
+
+    /**
+     * 续期请求异常时的重试间隔毫秒数
+     */
+    public static final long WATCHDOG_RETRY_MILLIS = 1000L;
+
+    /**
+     * 续期时间随机抖动上限为租约时长的1/WATCHDOG_JITTER_DIVISOR，避免同时加锁的大量锁集中续期
+     */
+    public static final int WATCHDOG_JITTER_DIVISOR = 10;
+
+    /**
+     * 不自动续期的锁检查持有线程存活状态的间隔毫秒数
+     */
+    public static final long OWNER_CHECK_INTERVAL_MILLIS = DEFAULT_REDIS_KEY_EXPIRE_MILLIS / 3;
+
+    /**
+     * 锁释放通知在redis中的保留毫秒数，无等待者时通知自动过期
+     */
+    public static final long WAIT_SIGNAL_EXPIRE_MILLIS = 1000L;
+
+    /**
+     * fencing token计数器key后缀，计数器与锁key位于同一slot
+     */
+    public static final String FENCING_TOKEN_KEY_SUFFIX = ":fencing";
+
+    /**
+     * 写锁等待标记过期毫秒数，需大于获取锁的最大退避时间
+     */
+    public static final long WRITER_WAIT_MARKER_EXPIRE_MILLIS = 2000L;
+
+    /**
+     * 共享看门狗续期线程数上限
+     */
+    public static final int WATCHDOG_RENEWAL_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * 异步加锁/释放锁线程池大小
+     */
+    public static final int ASYNC_THREAD_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 多数派锁并行访问各节点的共享线程数上限
+     */
+    public static final int QUORUM_LOCK_FAN_OUT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 多数派锁时钟漂移系数，有效期扣除租约时长乘以该系数再加2毫秒
+     */
+    public static final double QUORUM_LOCK_CLOCK_DRIFT_FACTOR = 0.01;
+
+    /**
+     * 多数派锁默认单次访问节点的超时毫秒数，应远小于租约时长，避免个别节点无响应时耗尽锁有效期
+     */
+    public static final long DEFAULT_QUORUM_LOCK_NODE_TIMEOUT_MILLIS = 500L;
+
 
 }
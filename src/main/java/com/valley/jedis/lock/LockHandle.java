@@ -0,0 +1,91 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.lock.exception.RedisLockExpiredException;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 锁句柄，由{@link RedisLock#tryLockHandle(String, long)}返回
+ * <p>句柄直接持有锁状态，释放时不再按lockKey查找锁状态及校验持有者，可配合try-with-resources使用：</p>
+ * <pre>
+ * try (LockHandle lockHandle = redisLock.tryLockHandle(lockKey, waitSeconds)) {
+ *     if (lockHandle != null) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * <p>每个句柄对应一次加锁（重入时同样返回新的句柄），关闭句柄即释放一次，重复关闭无副作用。</p>
+ */
+public final class LockHandle implements AutoCloseable {
+    private static final AtomicIntegerFieldUpdater<LockHandle> RELEASED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(LockHandle.class, "released");
+
+    private final RedisLock redisLock;
+    private final LockStatus lockStatus;
+    private volatile int released;
+
+    LockHandle(RedisLock redisLock, LockStatus lockStatus) {
+        this.redisLock = redisLock;
+        this.lockStatus = lockStatus;
+    }
+
+    public String getLockKey() {
+        return lockStatus.getLockKey();
+    }
+
+    public String getLockValue() {
+        return lockStatus.getLockValue();
+    }
+
+    /**
+     * 加锁时生成的fencing token，仅{@link RedisLock#tryFencedLock(String, long)}获取的锁有效，否则返回0
+     */
+    public long getFencingToken() {
+        return lockStatus.getFencingToken();
+    }
+
+    /**
+     * 锁是否仍被当前句柄持有，句柄已释放或锁已过期时返回false
+     */
+    public boolean isHeld() {
+        return released == 0 && redisLock.isHeld(lockStatus);
+    }
+
+    /**
+     * 校验锁仍被当前句柄持有，可在执行关键写操作前调用
+     *
+     * @throws RedisLockExpiredException 句柄已释放，或续期时发现锁已过期或已被其他持有者获取
+     */
+    public void ensureHeld() {
+        if (released != 0) {
+            throw new RedisLockExpiredException("lock handle released. lockKey:" + lockStatus.getLockKey());
+        }
+        redisLock.ensureHeld(lockStatus);
+    }
+
+    /**
+     * 释放锁
+     *
+     * @return 锁释放结果，句柄已释放时返回false
+     */
+    public boolean release() {
+        if (!RELEASED_UPDATER.compareAndSet(this, 0, 1)) {
+            return false;
+        }
+        return redisLock.releaseLock(lockStatus);
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    @Override
+    public String toString() {
+        return "LockHandle{" +
+                "lockKey='" + lockStatus.getLockKey() + '\'' +
+                ", lockValue='" + lockStatus.getLockValue() + '\'' +
+                ", fencingToken=" + lockStatus.getFencingToken() +
+                ", released=" + (released != 0) +
+                '}';
+    }
+}
@@ -0,0 +1,156 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.util.StringUtils;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预先编码的锁key
+ * <p>创建时完成key的编码，加锁、续期、释放时直接将字节数组交给jedis。
+ * 同一key反复加锁时建议复用同一个实例，以字符串或字节数组key加锁的接口每次调用都会创建新实例。</p>
+ * <p>以字节数组创建时，若内容是合法的UTF-8编码则与同内容的字符串key视为同一把锁，可通过字符串接口重入或释放。</p>
+ */
+public final class LockKey {
+    /**
+     * 非UTF-8字节数组key在本地索引中的名称前缀，U+FFFF为非字符，不会出现在正常的字符串key中
+     */
+    private static final String BINARY_NAME_PREFIX = "\uFFFFbinary:";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String name;
+    private final byte[] raw;
+    private final List<byte[]> rawKeys;
+    private final boolean text;
+
+    private LockKey(String name, byte[] raw, boolean text) {
+        this.name = name;
+        this.raw = raw;
+        this.rawKeys = Collections.singletonList(raw);
+        this.text = text;
+    }
+
+    public static LockKey of(String lockKey) {
+        if (StringUtils.isBlank(lockKey)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey);
+        }
+        return new LockKey(lockKey, SafeEncoder.encode(lockKey), true);
+    }
+
+    public static LockKey of(byte[] lockKey) {
+        if (lockKey == null || lockKey.length == 0) {
+            throw new IllegalArgumentException("empty argument founded. lockKey");
+        }
+        byte[] raw = lockKey.clone();
+        if (isUtf8(raw)) {
+            return new LockKey(new String(raw, StandardCharsets.UTF_8), raw, true);
+        }
+        return new LockKey(BINARY_NAME_PREFIX + hex(raw), raw, false);
+    }
+
+    /**
+     * 锁在本地索引中的名称，字符串key即为key本身
+     */
+    public String getName() {
+        return name;
+    }
+
+    public byte[] getBytes() {
+        return raw.clone();
+    }
+
+    /**
+     * key是否为合法的UTF-8字符串，可用于拼接辅助key
+     */
+    boolean isText() {
+        return text;
+    }
+
+    byte[] raw() {
+        return raw;
+    }
+
+    /**
+     * 以当前key作为唯一KEYS参数的列表，不可修改
+     */
+    List<byte[]> rawKeys() {
+        return rawKeys;
+    }
+
+    /**
+     * 是否为合法的UTF-8编码（拒绝超长编码、代理区码点及超出U+10FFFF的码点），与解码后重新编码结果一致的判断等价，但不产生中间对象
+     */
+    static boolean isUtf8(byte[] bytes) {
+        int i = 0;
+        while (i < bytes.length) {
+            int b = bytes[i];
+            if (b >= 0) {
+                i++;
+                continue;
+            }
+            int length;
+            int min;
+            if ((b & 0xE0) == 0xC0) {
+                length = 2;
+                min = 0x80;
+            } else if ((b & 0xF0) == 0xE0) {
+                length = 3;
+                min = 0x800;
+            } else if ((b & 0xF8) == 0xF0) {
+                length = 4;
+                min = 0x10000;
+            } else {
+                return false;
+            }
+            if (i + length > bytes.length) {
+                return false;
+            }
+            int codePoint = b & (0x7F >> length);
+            for (int j = 1; j < length; j++) {
+                int next = bytes[i + j];
+                if ((next & 0xC0) != 0x80) {
+                    return false;
+                }
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                    || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                return false;
+            }
+            i += length;
+        }
+        return true;
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LockKey)) {
+            return false;
+        }
+        return name.equals(((LockKey) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
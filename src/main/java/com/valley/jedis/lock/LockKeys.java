@@ -0,0 +1,26 @@
+package com.valley.jedis.lock;
+
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.JedisClusterHashTag;
+
+/**
+ * 锁相关redis key工具
+ */
+final class LockKeys {
+
+    private LockKeys() {
+    }
+
+    /**
+     * 计算与lockKey处于同一slot的辅助key，便于在同一脚本中访问
+     *
+     * @param lockKey 锁key
+     * @param suffix  辅助key后缀
+     * @return 辅助key，无法与lockKey处于同一slot时返回null
+     */
+    static String colocatedKey(String lockKey, String suffix) {
+        String hashTag = JedisClusterHashTag.getHashTag(lockKey);
+        String colocatedKey = hashTag.equals(lockKey) ? "{" + lockKey + "}" + suffix : lockKey + suffix;
+        return JedisClusterCRC16.getSlot(colocatedKey) == JedisClusterCRC16.getSlot(lockKey) ? colocatedKey : null;
+    }
+}
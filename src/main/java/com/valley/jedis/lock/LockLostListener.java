@@ -0,0 +1,16 @@
+package com.valley.jedis.lock;
+
+/**
+ * 锁丢失监听器，通过{@link RedisLock#addLockLostListener(LockLostListener)}注册
+ * <p>续期时发现锁已过期或已被其他持有者获取时回调，每把锁最多回调一次，已被持有者释放的锁不会回调。
+ * 回调在发现锁丢失的线程中执行：通常为看门狗续期线程，重入加锁时续期失败则为加锁线程，请勿执行耗时操作。</p>
+ */
+@FunctionalInterface
+public interface LockLostListener {
+
+    /**
+     * @param lockKey   锁在本地锁状态容器中的索引key，单key锁即为redis lock key
+     * @param lockValue 锁标识
+     */
+    void onLockLost(String lockKey, String lockValue);
+}
@@ -0,0 +1,122 @@
+package com.valley.jedis.lock;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 锁持有者
+ * <p>用于锁重入判断以及看门狗判断是否继续续期。默认以当前线程（包括虚拟线程）作为持有者，
+ * 也可以通过{@link #of(String)}以显式标识（如请求上下文、协程）作为持有者，此时可在任意线程重入或释放锁。</p>
+ * <p>自定义实现需正确实现equals/hashCode：同一持有者的多次调用必须相等。</p>
+ */
+public interface LockOwner {
+
+    /**
+     * 持有者是否存活，不存活时看门狗将释放其持有的锁
+     */
+    boolean isAlive();
+
+    /**
+     * 当前线程作为持有者，仅弱引用线程对象，不会阻止已结束线程被回收。同一线程多次调用返回同一实例
+     */
+    static LockOwner currentThread() {
+        return ThreadOwner.CURRENT.get();
+    }
+
+    /**
+     * 显式标识作为持有者，始终视为存活，需由调用方保证释放
+     */
+    static LockOwner of(String token) {
+        return of(token, () -> true);
+    }
+
+    /**
+     * 显式标识作为持有者
+     *
+     * @param token 持有者标识
+     * @param alive 持有者存活判断
+     */
+    static LockOwner of(String token, BooleanSupplier alive) {
+        return new TokenOwner(token, alive);
+    }
+
+    final class ThreadOwner implements LockOwner {
+        /**
+         * 每个线程缓存一个实例，加锁、释放时不再重复创建
+         */
+        private static final ThreadLocal<ThreadOwner> CURRENT = ThreadLocal.withInitial(() -> new ThreadOwner(Thread.currentThread()));
+
+        private final WeakReference<Thread> threadRef;
+        private final int hash;
+
+        private ThreadOwner(Thread thread) {
+            this.threadRef = new WeakReference<>(thread);
+            this.hash = System.identityHashCode(thread);
+        }
+
+        @Override
+        public boolean isAlive() {
+            Thread thread = threadRef.get();
+            return thread != null && thread.isAlive();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ThreadOwner)) {
+                return false;
+            }
+            Thread thread = threadRef.get();
+            return thread != null && thread == ((ThreadOwner) o).threadRef.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "ThreadOwner{" + threadRef.get() + '}';
+        }
+    }
+
+    final class TokenOwner implements LockOwner {
+        private final String token;
+        private final BooleanSupplier alive;
+
+        private TokenOwner(String token, BooleanSupplier alive) {
+            this.token = Objects.requireNonNull(token, "token");
+            this.alive = Objects.requireNonNull(alive, "alive");
+        }
+
+        @Override
+        public boolean isAlive() {
+            return alive.getAsBoolean();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TokenOwner)) {
+                return false;
+            }
+            return token.equals(((TokenOwner) o).token);
+        }
+
+        @Override
+        public int hashCode() {
+            return token.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "TokenOwner{" + token + '}';
+        }
+    }
+}
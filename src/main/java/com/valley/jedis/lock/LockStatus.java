@@ -1,20 +1,140 @@
 package com.valley.jedis.lock;
 
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
+/**
+ * 本进程已获取的锁状态，同时记录持有者及重入次数
+ */
 class LockStatus {
+    private static final AtomicIntegerFieldUpdater<LockStatus> HOLD_COUNT_UPDATER = AtomicIntegerFieldUpdater.newUpdater(LockStatus.class, "holdCount");
+    private static final AtomicIntegerFieldUpdater<LockStatus> LOST_UPDATER = AtomicIntegerFieldUpdater.newUpdater(LockStatus.class, "lost");
+
+    /**
+     * 未放入时间轮
+     */
+    static final long UNSCHEDULED = Long.MIN_VALUE;
+
     private final String lockKey;
     private final String lockValue;
+    private final LockType lockType;
+    /**
+     * 锁对应的redis key，单key锁即为lockKey
+     */
+    private final List<String> redisKeys;
+    /**
+     * 预先编码的redis key及锁标识，续期、释放时直接使用
+     */
+    private final List<byte[]> binaryRedisKeys;
+    private final byte[] lockValueBytes;
+    private final List<byte[]> binaryLockValueArgs;
+    /**
+     * 单key锁的预编码key，其他类型为null
+     */
+    private final LockKey key;
     private final boolean expiredTimeRenewable;
-    private final Thread ownerThread;
-    private long expireAt;
+    /**
+     * 租约时长，自动续期时每次续期至当前时间加租约时长的4/3
+     */
+    private final long leaseMillis;
+    private final LockOwner owner;
+    /**
+     * fencing token，0表示加锁时未生成token
+     */
+    private final long fencingToken;
+    private volatile long expireAt;
+    /**
+     * 续期参数，续期毫秒数固定的锁类型在首次续期时编码后复用
+     */
+    private volatile List<byte[]> prolongArgs;
+    /**
+     * 获取锁时的System.nanoTime()，用于统计持有时长
+     */
+    private final long acquiredNanos = System.nanoTime();
+    /**
+     * 持有次数，首次获取为1，重入时递增
+     */
+    private volatile int holdCount = 1;
+    /**
+     * 所在时间轮tick，由LockStatusContainer在持有当前对象锁时维护
+     */
+    private long wheelTick = UNSCHEDULED;
+    /**
+     * 续期时发现锁已丢失（已过期或被其他持有者获取）时置为1
+     */
+    private volatile int lost;
 
     public LockStatus(long expireAt, String lockKey, String lockValue, boolean expiredTimeRenewable) {
+        this(expireAt, lockKey, lockValue, expiredTimeRenewable, LockOwner.currentThread());
+    }
+
+    /**
+     * @param owner 锁持有者，用于重入判断及看门狗续期判断，见{@link LockOwner}：默认为当前线程，也可以是显式标识（如异步加锁时的锁标识）。
+     *              为null时不支持重入，仅能通过锁标识释放
+     */
+    public LockStatus(long expireAt, String lockKey, String lockValue, boolean expiredTimeRenewable, LockOwner owner) {
+        this(expireAt, LockKey.of(lockKey), lockValue, SafeEncoder.encode(lockValue), expiredTimeRenewable, owner, LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS);
+    }
+
+    /**
+     * 单key锁
+     *
+     * @param lockValueBytes 已编码的锁标识
+     */
+    LockStatus(long expireAt, LockKey key, String lockValue, byte[] lockValueBytes, boolean expiredTimeRenewable, LockOwner owner, long leaseMillis) {
+        this(expireAt, key, lockValue, lockValueBytes, expiredTimeRenewable, owner, leaseMillis, 0L);
+    }
+
+    /**
+     * 带fencing token的单key锁
+     *
+     * @param fencingToken 加锁时生成的fencing token，0表示未生成
+     */
+    LockStatus(long expireAt, LockKey key, String lockValue, byte[] lockValueBytes, boolean expiredTimeRenewable, LockOwner owner, long leaseMillis, long fencingToken) {
+        this(expireAt, key.getName(), lockValue, lockValueBytes, expiredTimeRenewable, owner, leaseMillis, LockType.REENTRANT,
+                Collections.singletonList(key.getName()), key.rawKeys(), key, fencingToken);
+    }
+
+    /**
+     * @param lockKey     锁在LockStatusContainer中的索引key
+     * @param leaseMillis 租约时长
+     * @param lockType    锁类型
+     * @param redisKeys   锁对应的redis key
+     */
+    public LockStatus(long expireAt, String lockKey, String lockValue, boolean expiredTimeRenewable, LockOwner owner, long leaseMillis, LockType lockType, List<String> redisKeys) {
+        this(expireAt, lockKey, lockValue, SafeEncoder.encode(lockValue), expiredTimeRenewable, owner, leaseMillis, lockType, redisKeys, encode(redisKeys), null, 0L);
+    }
+
+    private LockStatus(long expireAt, String lockKey, String lockValue, byte[] lockValueBytes, boolean expiredTimeRenewable, LockOwner owner,
+                       long leaseMillis, LockType lockType, List<String> redisKeys, List<byte[]> binaryRedisKeys, LockKey key, long fencingToken) {
         this.expireAt = expireAt;
         this.lockKey = lockKey;
         this.lockValue = lockValue;
+        this.lockType = lockType;
+        this.redisKeys = redisKeys;
+        this.binaryRedisKeys = binaryRedisKeys;
+        this.lockValueBytes = lockValueBytes;
+        this.binaryLockValueArgs = Collections.singletonList(lockValueBytes);
+        this.key = key;
         this.expiredTimeRenewable = expiredTimeRenewable;
-        this.ownerThread = Thread.currentThread();
+        this.leaseMillis = leaseMillis;
+        this.owner = owner;
+        this.fencingToken = fencingToken;
+    }
+
+    private static List<byte[]> encode(List<String> keys) {
+        List<byte[]> encoded = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            encoded.add(SafeEncoder.encode(key));
+        }
+        return encoded;
     }
 
     public long getExpireAt() {
@@ -29,16 +149,116 @@ class LockStatus {
         return lockValue;
     }
 
-    public void setExpireAt(Long expireAt) {
+    public byte[] getLockValueBytes() {
+        return lockValueBytes;
+    }
+
+    /**
+     * 以锁标识作为唯一ARGV参数的列表
+     */
+    public List<byte[]> getBinaryLockValueArgs() {
+        return binaryLockValueArgs;
+    }
+
+    public List<byte[]> getBinaryRedisKeys() {
+        return binaryRedisKeys;
+    }
+
+    LockKey getKey() {
+        return key;
+    }
+
+    public long getAcquiredNanos() {
+        return acquiredNanos;
+    }
+
+    public LockType getLockType() {
+        return lockType;
+    }
+
+    public List<String> getRedisKeys() {
+        return redisKeys;
+    }
+
+    public void setExpireAt(long expireAt) {
         this.expireAt = expireAt;
     }
 
+    long getWheelTick() {
+        return wheelTick;
+    }
+
+    void setWheelTick(long wheelTick) {
+        this.wheelTick = wheelTick;
+    }
+
     public boolean isExpiredTimeRenewable() {
         return expiredTimeRenewable;
     }
 
-    public boolean isOwnerThreadAlive(){
-        return ownerThread.isAlive();
+    public long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    /**
+     * 每次续期的时长，为租约时长的4/3
+     */
+    public long getProlongMillis() {
+        return leaseMillis * 4 / 3;
+    }
+
+    /**
+     * 续期脚本参数
+     *
+     * @param newExpireAt 续期后的过期时间戳，续期脚本以毫秒数续期时不使用
+     */
+    List<byte[]> getProlongArgs(long newExpireAt) {
+        if (!lockType.isRelativeProlong()) {
+            return Arrays.asList(lockValueBytes, Protocol.toByteArray(newExpireAt));
+        }
+        List<byte[]> args = prolongArgs;
+        if (args == null) {
+            args = Arrays.asList(lockValueBytes, Protocol.toByteArray(getProlongMillis()));
+            prolongArgs = args;
+        }
+        return args;
+    }
+
+    public LockOwner getOwner() {
+        return owner;
+    }
+
+    public boolean isOwnedBy(LockOwner lockOwner) {
+        return owner != null && owner.equals(lockOwner);
+    }
+
+    public boolean isOwnerAlive() {
+        return owner == null || owner.isAlive();
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public boolean isLost() {
+        return lost != 0;
+    }
+
+    /**
+     * 标记锁已丢失
+     *
+     * @return 首次标记时返回true
+     */
+    boolean markLost() {
+        return LOST_UPDATER.compareAndSet(this, 0, 1);
+    }
+
+    public int incrHoldCount() {
+        return HOLD_COUNT_UPDATER.incrementAndGet(this);
+    }
+
+    public int decrHoldCount() {
+        return HOLD_COUNT_UPDATER.decrementAndGet(this);
     }
 
     @Override
@@ -63,7 +283,12 @@ class LockStatus {
         return "LockStatus{" +
                 "lockKey='" + lockKey + '\'' +
                 ", lockValue='" + lockValue + '\'' +
+                ", lockType=" + lockType +
                 ", expiredTimeRenewable=" + expiredTimeRenewable +
+                ", owner=" + owner +
+                ", holdCount=" + holdCount +
+                ", fencingToken=" + fencingToken +
+                ", lost=" + (lost != 0) +
                 ", expireAt=" + expireAt +
                 '}';
     }
@@ -3,41 +3,226 @@ package com.valley.jedis.lock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Objects;
-import java.util.TreeSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * 锁状态容器
+ * <ul>
+ *     <li>索引：每种锁类型一个ConcurrentHashMap，按lockKey索引，加锁/释放锁之间不存在全局锁竞争。不同类型的锁使用相同key时互不影响</li>
+ *     <li>到期调度：哈希时间轮，每个锁按下次检查时间(dueAt)放入对应槽位，各槽位独立加锁。看门狗每次只处理到期槽位中的锁，无需复制全部锁状态</li>
+ *     <li>最早到期时间：各槽位记录其中最早的tick，看门狗据此决定下次唤醒时间</li>
+ * </ul>
+ */
 class LockStatusContainer {
+    private static final int WHEEL_SIZE = 512;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
-    private final HashMap<String, LockStatus> lockMap = new HashMap<>();
-    private final TreeSet<LockStatus> lockSet = new TreeSet<>(Comparator.comparing(LockStatus::getExpireAt));
+    /**
+     * 构造后不再修改，并发读取安全
+     */
+    private final Map<LockType, ConcurrentHashMap<String, LockStatus>> lockMaps = new EnumMap<>(LockType.class);
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    /**
+     * 调度时所在槽位已被处理过的锁，下次poll时立即处理
+     */
+    private final ConcurrentLinkedQueue<LockStatus> overdue = new ConcurrentLinkedQueue<>();
+    private final long tickMillis;
+    /**
+     * 上次poll处理到的tick，仅看门狗线程访问
+     */
+    private long polledTick;
 
-    public synchronized void add(LockStatus status) {
-        LockStatus lockStatus = lockMap.get(status.getLockKey());
-        if (lockStatus != null) {
-            lockSet.remove(lockStatus);
+    public LockStatusContainer(long tickMillis) {
+        this.tickMillis = tickMillis;
+        for (LockType lockType : LockType.values()) {
+            lockMaps.put(lockType, new ConcurrentHashMap<>());
+        }
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
         }
+        this.polledTick = System.currentTimeMillis() / tickMillis - 1;
+    }
 
-        lockMap.put(status.getLockKey(), status);
-        lockSet.add(status);
+    /**
+     * 添加锁状态
+     *
+     * @param status 锁状态
+     * @param dueAt  下次检查时间
+     */
+    public void add(LockStatus status, long dueAt) {
+        LockStatus previous = lockMaps.get(status.getLockType()).put(status.getLockKey(), status);
+        if (previous != null && previous != status) {
+            unschedule(previous);
+        }
+        schedule(status, dueAt);
         logger.debug("LockStatusContainer add item: {}", status);
     }
 
-    public synchronized void remove(String lockKey, String lockValue) {
+    /**
+     * 移除锁状态
+     *
+     * @return 被移除的锁状态，不存在或锁标识不匹配时返回null
+     */
+    public LockStatus remove(LockType lockType, String lockKey, String lockValue) {
+        ConcurrentHashMap<String, LockStatus> lockMap = lockMaps.get(lockType);
         LockStatus lockStatus = lockMap.get(lockKey);
-        if (lockStatus != null && Objects.equals(lockStatus.getLockValue(), lockValue)) {
-            lockMap.remove(lockKey);
-            lockSet.remove(lockStatus);
+        if (lockStatus != null && Objects.equals(lockStatus.getLockValue(), lockValue) && lockMap.remove(lockKey, lockStatus)) {
+            unschedule(lockStatus);
             logger.debug("LockStatusContainer remove item: {}", lockStatus);
+            return lockStatus;
+        }
+        return null;
+    }
+
+    public LockStatus getLockStatus(LockType lockType, String lockKey) {
+        return lockMaps.get(lockType).get(lockKey);
+    }
+
+    /**
+     * 当前所有锁状态的快照
+     */
+    public List<LockStatus> snapshot() {
+        List<LockStatus> lockStatuses = new ArrayList<>();
+        for (ConcurrentHashMap<String, LockStatus> lockMap : lockMaps.values()) {
+            lockStatuses.addAll(lockMap.values());
         }
+        return lockStatuses;
     }
 
-    public LockStatus getLockStatus(String lockKey) {
-        return lockMap.get(lockKey);
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, LockStatus> lockMap : lockMaps.values()) {
+            size += lockMap.size();
+        }
+        return size;
     }
 
-    public TreeSet<LockStatus> getLockStatus() {
-        return new TreeSet<>(lockSet);
+    /**
+     * 重新调度锁的下次检查时间（续期后expireAt变化时调用）
+     *
+     * @param status 锁状态
+     * @param dueAt  下次检查时间
+     */
+    public void schedule(LockStatus status, long dueAt) {
+        long tick = Math.max(dueAt / tickMillis, System.currentTimeMillis() / tickMillis);
+        synchronized (status) {
+            removeFromWheel(status);
+            status.setWheelTick(tick);
+            if (!wheel[bucketIndex(tick)].add(status, tick)) {
+                overdue.add(status);
+            }
+        }
+    }
+
+    /**
+     * 取出所有已到期（dueAt不晚于now）的锁，取出的锁不再参与调度，需重新{@link #schedule(LockStatus, long)}
+     *
+     * @param now 当前时间
+     * @return 到期的锁
+     */
+    public Collection<LockStatus> pollDue(long now) {
+        long nowTick = now / tickMillis;
+        Set<LockStatus> dueSet = new LinkedHashSet<>();
+        LockStatus overdueStatus;
+        while ((overdueStatus = overdue.poll()) != null) {
+            dueSet.add(overdueStatus);
+        }
+        if (nowTick - polledTick >= WHEEL_SIZE) {
+            for (Bucket bucket : wheel) {
+                bucket.drainDue(nowTick, dueSet);
+            }
+        } else {
+            for (long tick = polledTick + 1; tick <= nowTick; tick++) {
+                wheel[bucketIndex(tick)].drainDue(tick, dueSet);
+            }
+        }
+        polledTick = Math.max(polledTick, nowTick);
+        dueSet.removeIf(status -> getLockStatus(status.getLockType(), status.getLockKey()) != status);
+        return dueSet;
+    }
+
+    /**
+     * 最早的下次检查时间，用于决定看门狗下次唤醒时间
+     * <p>已移除的锁可能使结果偏早，仅导致看门狗提前唤醒一次。</p>
+     *
+     * @return 最早的下次检查时间，存在待立即处理的锁时返回0，没有任何锁时返回Long.MAX_VALUE
+     */
+    public long nextDueAt() {
+        if (!overdue.isEmpty()) {
+            return 0L;
+        }
+        long minTick = Long.MAX_VALUE;
+        for (Bucket bucket : wheel) {
+            minTick = Math.min(minTick, bucket.minTick());
+        }
+        return minTick == Long.MAX_VALUE ? Long.MAX_VALUE : minTick * tickMillis;
+    }
+
+    private void unschedule(LockStatus status) {
+        synchronized (status) {
+            removeFromWheel(status);
+        }
+    }
+
+    private void removeFromWheel(LockStatus status) {
+        long tick = status.getWheelTick();
+        if (tick != LockStatus.UNSCHEDULED) {
+            wheel[bucketIndex(tick)].remove(status);
+            status.setWheelTick(LockStatus.UNSCHEDULED);
+        }
+    }
+
+    private static int bucketIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+    }
+
+    private static class Bucket {
+        private final Set<LockStatus> statuses = new HashSet<>();
+        /**
+         * 已处理到的tick，调度到不晚于此tick的锁将不会再被本槽位处理
+         */
+        private long processedTick = Long.MIN_VALUE;
+        /**
+         * 槽位中最早的tick，移除锁时不重新计算，可能偏早
+         */
+        private long minTick = Long.MAX_VALUE;
+
+        synchronized boolean add(LockStatus status, long tick) {
+            if (tick <= processedTick) {
+                return false;
+            }
+            statuses.add(status);
+            minTick = Math.min(minTick, tick);
+            return true;
+        }
+
+        synchronized void remove(LockStatus status) {
+            statuses.remove(status);
+            if (statuses.isEmpty()) {
+                minTick = Long.MAX_VALUE;
+            }
+        }
+
+        synchronized long minTick() {
+            return minTick;
+        }
+
+        synchronized void drainDue(long tick, Set<LockStatus> dueSet) {
+            long remainingMinTick = Long.MAX_VALUE;
+            Iterator<LockStatus> iterator = statuses.iterator();
+            while (iterator.hasNext()) {
+                LockStatus status = iterator.next();
+                if (status.getWheelTick() <= tick) {
+                    iterator.remove();
+                    dueSet.add(status);
+                } else {
+                    remainingMinTick = Math.min(remainingMinTick, status.getWheelTick());
+                }
+            }
+            minTick = remainingMinTick;
+            processedTick = Math.max(processedTick, tick);
+        }
     }
 }
@@ -0,0 +1,64 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.script.RedisScript;
+
+/**
+ * 锁类型，决定看门狗续期及释放锁时使用的脚本
+ * <p>续期脚本参数：KEYS为锁对应的redis key，ARGV[1]为锁标识，ARGV[2]为新的过期时间戳（{@link #isRelativeProlong()}时为续期毫秒数），成功时返回1。</p>
+ * <p>释放脚本参数：KEYS为锁对应的redis key，ARGV[1]为锁标识，成功时返回大于0的值。</p>
+ */
+enum LockType {
+    /**
+     * 单key可重入锁
+     */
+    REENTRANT(LockConfig.PROLONG_LOCK_SCRIPT, LockConfig.RELEASE_LOCK_SCRIPT, true),
+    /**
+     * 多key锁（同一slot内的一组key）
+     */
+    MULTI(LockConfig.PROLONG_MULTI_LOCK_SCRIPT, LockConfig.RELEASE_MULTI_LOCK_SCRIPT, true),
+    /**
+     * 读锁
+     */
+    READ(LockConfig.PROLONG_READ_LOCK_SCRIPT, LockConfig.RELEASE_READ_LOCK_SCRIPT),
+    /**
+     * 写锁
+     */
+    WRITE(LockConfig.PROLONG_WRITE_LOCK_SCRIPT, LockConfig.RELEASE_WRITE_LOCK_SCRIPT),
+    /**
+     * 信号量租约
+     */
+    SEMAPHORE(LockConfig.PROLONG_SEMAPHORE_SCRIPT, LockConfig.RELEASE_SEMAPHORE_SCRIPT, true),
+    /**
+     * 公平锁，KEYS[1]为锁key，续活与可重入锁相同
+     */
+    FAIR(LockConfig.PROLONG_LOCK_SCRIPT, LockConfig.RELEASE_FAIR_LOCK_SCRIPT, true);
+
+    private final RedisScript prolongScript;
+    private final RedisScript releaseScript;
+    private final boolean relativeProlong;
+
+    LockType(RedisScript prolongScript, RedisScript releaseScript) {
+        this(prolongScript, releaseScript, false);
+    }
+
+    LockType(RedisScript prolongScript, RedisScript releaseScript, boolean relativeProlong) {
+        this.prolongScript = prolongScript;
+        this.releaseScript = releaseScript;
+        this.relativeProlong = relativeProlong;
+    }
+
+    public RedisScript getProlongScript() {
+        return prolongScript;
+    }
+
+    public RedisScript getReleaseScript() {
+        return releaseScript;
+    }
+
+    /**
+     * 续期脚本的ARGV[2]是否为续期毫秒数，为续期毫秒数时各锁的续期参数固定，可在首次续期后复用
+     */
+    public boolean isRelativeProlong() {
+        return relativeProlong;
+    }
+}
@@ -0,0 +1,15 @@
+package com.valley.jedis.lock;
+
+/**
+ * 获取锁失败后的等待方式
+ */
+public enum LockWaitMode {
+    /**
+     * 指数退避轮询（默认），不依赖redis额外功能。本进程内释放锁时立即唤醒同一lockKey的等待线程，跨进程竞争者按退避时间轮询
+     */
+    POLLING,
+    /**
+     * 在POLLING基础上，释放锁时向redis信号列表写入通知，其他进程通过BLPOP等待通知（每个进程每个lockKey仅竞争者占用一个连接阻塞等待）
+     */
+    REDIS_NOTIFY
+}
@@ -0,0 +1,116 @@
+package com.valley.jedis.lock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按lockKey组织的本地等待队列
+ * <ul>
+ *     <li>本地仲裁：同一lockKey在本进程内同一时刻只有一个线程（竞争者）访问redis争抢锁，其余线程按FIFO顺序在本地排队</li>
+ *     <li>释放通知：释放锁时递增对应节点的generation并唤醒竞争者，竞争者通过比较generation避免遗漏在其检查与等待之间发生的释放通知</li>
+ * </ul>
+ */
+class LockWaitQueue {
+    private static final String SIGNAL_SUFFIX = ":signal";
+
+    private final ConcurrentHashMap<String, WaitNode> waitNodes = new ConcurrentHashMap<>();
+
+    /**
+     * 登记等待lockKey，需与{@link #exit(String, WaitNode)}成对调用
+     */
+    public WaitNode enter(String lockKey) {
+        return waitNodes.compute(lockKey, (key, node) -> {
+            WaitNode waitNode = node == null ? new WaitNode() : node;
+            waitNode.waiters++;
+            return waitNode;
+        });
+    }
+
+    public void exit(String lockKey, WaitNode waitNode) {
+        waitNodes.computeIfPresent(lockKey, (key, node) -> {
+            if (node != waitNode) {
+                return node;
+            }
+            return --node.waiters > 0 ? node : null;
+        });
+    }
+
+    /**
+     * lockKey在本进程内是否有线程正在等待或竞争
+     */
+    public boolean hasWaiters(String lockKey) {
+        return waitNodes.containsKey(lockKey);
+    }
+
+    /**
+     * 唤醒lockKey上的所有本地等待线程
+     */
+    public void signal(String lockKey) {
+        WaitNode waitNode = waitNodes.get(lockKey);
+        if (waitNode != null) {
+            waitNode.signalAll();
+        }
+    }
+
+    /**
+     * 计算lockKey对应的redis信号列表key，保证与lockKey处于同一slot
+     *
+     * @return 信号列表key，无法与lockKey处于同一slot时返回null
+     */
+    static String signalKey(String lockKey) {
+        return LockKeys.colocatedKey(lockKey, SIGNAL_SUFFIX);
+    }
+
+    static class WaitNode {
+        /**
+         * 仅在ConcurrentHashMap.compute内修改
+         */
+        private int waiters;
+        private long generation;
+        /**
+         * 公平信号量，持有者即竞争者
+         */
+        private final Semaphore competitor = new Semaphore(1, true);
+
+        public synchronized long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * 等待释放通知
+         *
+         * @param generation 上次尝试加锁前读取的generation
+         * @param millis     最长等待毫秒数
+         * @return 期间是否收到释放通知
+         */
+        public synchronized boolean await(long generation, long millis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + millis;
+            long remaining = millis;
+            while (this.generation == generation && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return this.generation != generation;
+        }
+
+        public synchronized void signalAll() {
+            generation++;
+            notifyAll();
+        }
+
+        /**
+         * 成为本进程内该lockKey的竞争者
+         *
+         * @param millis 最长等待毫秒数
+         * @return 是否成为竞争者
+         */
+        public boolean tryAcquireCompetitor(long millis) throws InterruptedException {
+            return competitor.tryAcquire(Math.max(millis, 0L), TimeUnit.MILLISECONDS);
+        }
+
+        public void releaseCompetitor() {
+            competitor.release();
+        }
+    }
+}
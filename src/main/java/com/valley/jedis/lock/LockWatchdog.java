@@ -0,0 +1,134 @@
+package com.valley.jedis.lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 锁看门狗调度器，可由多个{@link RedisLock}实例共享
+ * <ul>
+ *     <li>定时：单个定时线程负责所有实例的唤醒，到期后将续期任务提交到续期线程池执行</li>
+ *     <li>续期：续期任务在续期线程池中执行，不同实例（不同连接）的续期互不阻塞，单个节点响应慢时不影响其他实例</li>
+ *     <li>线程数：与实例数量无关，默认为1个定时线程加不超过{@link LockConfig#WATCHDOG_RENEWAL_THREADS}个续期线程，空闲时续期线程自动回收</li>
+ * </ul>
+ * <p>未指定看门狗的{@link RedisLock}使用{@link #shared()}。</p>
+ */
+public class LockWatchdog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LockWatchdog.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final Executor renewalExecutor;
+    /**
+     * 是否由当前对象创建线程池，仅此时关闭看门狗会关闭线程池
+     */
+    private final boolean ownsExecutors;
+
+    /**
+     * 使用外部线程池，关闭看门狗时不关闭外部线程池
+     *
+     * @param scheduler       定时线程池，仅用于唤醒，不执行续期请求
+     * @param renewalExecutor 续期线程池
+     */
+    public LockWatchdog(ScheduledExecutorService scheduler, Executor renewalExecutor) {
+        this(scheduler, renewalExecutor, false);
+    }
+
+    private LockWatchdog(ScheduledExecutorService scheduler, Executor renewalExecutor, boolean ownsExecutors) {
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        this.renewalExecutor = Objects.requireNonNull(renewalExecutor, "renewalExecutor");
+        this.ownsExecutors = ownsExecutors;
+    }
+
+    /**
+     * 进程内共享的看门狗，线程均为守护线程，不可关闭
+     */
+    public static LockWatchdog shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * 创建使用平台线程的看门狗
+     *
+     * @param renewalThreads 续期线程数上限
+     */
+    public static LockWatchdog create(int renewalThreads) {
+        if (renewalThreads <= 0) {
+            throw new IllegalArgumentException("renewalThreads must be positive. renewalThreads:" + renewalThreads);
+        }
+        return new LockWatchdog(newScheduler(), newRenewalExecutor(renewalThreads), true);
+    }
+
+    /**
+     * 创建以虚拟线程执行续期的看门狗，运行环境不支持虚拟线程(JDK21以下)时退化为平台线程
+     */
+    public static LockWatchdog virtualThreads() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new LockWatchdog(newScheduler(), (ExecutorService) method.invoke(null), true);
+        } catch (ReflectiveOperationException e) {
+            logger.info("virtual threads not supported, fallback to platform threads.");
+            return create(LockConfig.WATCHDOG_RENEWAL_THREADS);
+        }
+    }
+
+    /**
+     * 延迟delayMillis毫秒后在续期线程池中执行task
+     *
+     * @return 取消后不再提交task，已提交的task不受影响
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return scheduler.schedule(() -> execute(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void execute(Runnable task) {
+        try {
+            renewalExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("watchdog task rejected. task:{}", task, e);
+        }
+    }
+
+    /**
+     * 关闭看门狗。外部传入的线程池及共享看门狗不会被关闭
+     */
+    @Override
+    public void close() {
+        if (!ownsExecutors) {
+            return;
+        }
+        scheduler.shutdownNow();
+        if (renewalExecutor instanceof ExecutorService) {
+            ((ExecutorService) renewalExecutor).shutdown();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, daemonThreadFactory("RedisLock-WatchDog"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static ThreadPoolExecutor newRenewalExecutor(int renewalThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(renewalThreads, renewalThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreadFactory("RedisLock-Renewal"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, namePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class SharedHolder {
+        private static final LockWatchdog INSTANCE = new LockWatchdog(newScheduler(), newRenewalExecutor(LockConfig.WATCHDOG_RENEWAL_THREADS), false);
+    }
+}
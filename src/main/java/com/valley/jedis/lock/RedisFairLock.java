@@ -0,0 +1,174 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于{@link RedisLock}实现的分布式公平锁
+ * <P>支持功能&实现原理：</P>
+ * <ul>
+ *     <li>FIFO排队：获取锁失败的请求按到达顺序进入redis等待队列(list)，锁空闲时仅队首可以获取锁，避免退避轮询下的饥饿</li>
+ *     <li>直接移交：释放锁时在同一脚本中将锁移交给队首等待者，其他请求无法插队</li>
+ *     <li>超时清理：等待者每次轮询时刷新自身超时时间(zset)，崩溃或放弃等待的等待者在到达队首时被移出队列</li>
+ *     <li>可重入、自动续期：与{@link RedisLock}相同，锁登记到看门狗批量续期，持有者崩溃后释放并移交给下一个等待者</li>
+ * </ul>
+ *
+ * <P>注意事项</P>
+ * <ul>
+ *     <li>公平锁使用的lockKey不能与普通锁共用</li>
+ *     <li>等待者以固定间隔{@link LockConfig#FAIR_LOCK_POLL_MILLIS}轮询，获取锁时延上限为队列中前序持有时间之和加一个轮询间隔</li>
+ * </ul>
+ */
+public class RedisFairLock {
+    private static final Logger logger = LoggerFactory.getLogger(RedisFairLock.class);
+
+    private static final String QUEUE_SUFFIX = ":queue";
+    private static final String TIMEOUT_SUFFIX = ":timeout";
+
+    private final RedisLock redisLock;
+
+    public RedisFairLock(RedisLock redisLock) {
+        this.redisLock = Objects.requireNonNull(redisLock, "redisLock");
+    }
+
+    /**
+     * 公平锁申请
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(String lockKey, long waitSeconds) {
+        return this.tryLock(lockKey, waitSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以指定持有者申请公平锁
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(String lockKey, long waitSeconds, LockOwner owner) {
+        Objects.requireNonNull(owner, "owner");
+        List<String> keys = lockKeys(lockKey);
+
+        //锁重入
+        LockStatus heldLockStatus = redisLock.getLockStatus(LockType.FAIR, lockKey);
+        if (heldLockStatus != null && heldLockStatus.isOwnedBy(owner)) {
+            int holdCount = heldLockStatus.incrHoldCount();
+            redisLock.getMetrics().recordReentry();
+            logger.debug("reentry fair lock:{} {} times by owner:{}", lockKey, holdCount, owner);
+            return heldLockStatus.getLockValue();
+        }
+
+        long startNanos = System.nanoTime();
+        int attempts = 0;
+        long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
+        String lockValue = RedisLock.newLockValue();
+        List<String> args = Arrays.asList(lockValue, String.valueOf(redisLock.getLeaseMillis()), String.valueOf(LockConfig.FAIR_LOCK_WAITER_TIMEOUT_MILLIS));
+        try {
+            while (true) {
+                long expireAtMilliseconds = System.currentTimeMillis() + redisLock.getLeaseMillis();
+                attempts++;
+                if (tryLockOnce(lockKey, keys, args)) {
+                    redisLock.addLockStatus(new LockStatus(expireAtMilliseconds, lockKey, lockValue, true, owner, redisLock.getLeaseMillis(), LockType.FAIR, keys));
+                    redisLock.getMetrics().recordAcquire(System.nanoTime() - startNanos, attempts, true);
+                    return lockValue;
+                }
+                long remaining = tryAcquireBefore - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                Thread.sleep(Math.min(LockConfig.FAIR_LOCK_POLL_MILLIS, remaining));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("tryLock interrupted", e);
+        }
+        cancelWaiting(lockKey, keys, lockValue);
+        redisLock.getMetrics().recordAcquire(System.nanoTime() - startNanos, attempts, false);
+        return null;
+    }
+
+    private boolean tryLockOnce(String lockKey, List<String> keys, List<String> args) {
+        try {
+            Object object = LockConfig.ACQUIRE_FAIR_LOCK_SCRIPT.eval(redisLock.getUnifiedJedis(), keys, args);
+            logger.debug("redis acquire fair lock key:{} value:{} resp:{}", lockKey, args.get(0), object);
+            return object instanceof Long && (Long) object == 1L;
+        } catch (Exception e) {
+            logger.warn("tryLockOnce failed. lockKey:{}, lockValue:{}", lockKey, args.get(0), e);
+            return false;
+        }
+    }
+
+    /**
+     * 放弃等待：移出等待队列，若锁恰好已移交给当前请求则继续移交给下一个等待者
+     */
+    private void cancelWaiting(String lockKey, List<String> keys, String lockValue) {
+        try {
+            LockConfig.RELEASE_FAIR_LOCK_SCRIPT.eval(redisLock.getUnifiedJedis(), keys, Collections.singletonList(lockValue));
+        } catch (Exception e) {
+            logger.warn("cancel waiting fair lock failed. lockKey:{}, lockValue:{}", lockKey, lockValue, e);
+        }
+    }
+
+    /**
+     * 公平锁释放
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @return 锁释放结果
+     */
+    public boolean releaseLock(String lockKey, String lockValue) {
+        return this.releaseLock(lockKey, lockValue, LockOwner.currentThread());
+    }
+
+    /**
+     * 由指定持有者释放公平锁，存在等待者时锁直接移交给队首等待者
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @param owner     锁持有者
+     * @return 锁释放结果
+     */
+    public boolean releaseLock(String lockKey, String lockValue, LockOwner owner) {
+        if (StringUtils.isAnyBlank(lockKey, lockValue)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey + "lockValue:" + lockValue);
+        }
+        LockStatus lockStatus = redisLock.getLockStatus(LockType.FAIR, lockKey);
+        if (lockStatus == null || !lockStatus.isOwnedBy(owner)) {
+            logger.warn("release fair lock failed. the lock can only be released by it's owner. lockKey:{},lockValue:{}", lockKey, lockValue);
+            return false;
+        } else if (!Objects.equals(lockValue, lockStatus.getLockValue())) {
+            logger.warn("releaseLock failed. invalid lockValue. key:{} inputValue:{} acquiredValue:{}", lockKey, lockValue, lockStatus.getLockValue());
+            return false;
+        }
+        if (lockStatus.decrHoldCount() > 0) {
+            return true;
+        }
+        return redisLock.deleteLock(lockStatus);
+    }
+
+    /**
+     * 锁key、等待队列key及等待者超时key，三者位于同一slot
+     */
+    private static List<String> lockKeys(String lockKey) {
+        if (StringUtils.isBlank(lockKey)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey);
+        }
+        String queueKey = LockKeys.colocatedKey(lockKey, QUEUE_SUFFIX);
+        String timeoutKey = LockKeys.colocatedKey(lockKey, TIMEOUT_SUFFIX);
+        if (queueKey == null || timeoutKey == null) {
+            throw new IllegalArgumentException("lockKey can not be used as fair lock key. lockKey:" + lockKey);
+        }
+        return Arrays.asList(lockKey, queueKey, timeoutKey);
+    }
+}
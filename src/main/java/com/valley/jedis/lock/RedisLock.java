@@ -1,24 +1,54 @@
 package com.valley.jedis.lock;
 
+import com.valley.jedis.client.batch.RedisBatchExecutor;
 import com.valley.jedis.client.factory.RedisFactory;
+import com.valley.jedis.lock.exception.RedisLockExpiredException;
+import com.valley.jedis.lock.exception.RedisLockTimeoutException;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.script.RedisScript;
 import com.valley.jedis.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.security.SecureRandom;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 /**
  * 基于jedis实现的分布式锁
  * <P>支持功能&实现原理：</P>
  * <ul>
- *     <li>可重入锁：通过ThreadLocal变量记录当前线程持有锁的数量，当锁数量再次归零时删除对应redis key</li>
- *     <li>自动续期：加锁成功后定期检查锁状态，对即将过期但线程仍处于存活状态的锁进行自动续期</li>
+ *     <li>可重入锁：锁状态中记录持有者({@link LockOwner})及持有次数，当持有次数再次归零时删除对应redis key。默认以当前线程为持有者，也可显式指定持有者</li>
+ *     <li>自动续期：加锁成功后定期检查锁状态，对即将过期但持有者仍处于存活状态的锁进行自动续期（按批次通过pipeline批量续期）。租约时长可按实例或按锁指定，看门狗按最早的续期时间唤醒</li>
  *     <li>自动失效：通过redis自动过期机制实现锁超期自动释放</li>
+ *     <li>本地仲裁：同一进程内同一lockKey仅有一个线程访问redis争抢锁，其余线程本地公平排队</li>
+ *     <li>释放通知（可选）：通过{@link LockWaitMode}开启，释放锁时立即唤醒等待线程，默认仍为不依赖redis额外功能的退避轮询</li>
+ *     <li>多key锁：{@link #tryLock(Collection, long)}通过一次脚本调用原子地获取一组key（全部成功或全部失败），集群模式下按slot分组后依次获取</li>
+ *     <li>异步接口：{@link #tryLockAsync(String, long, long)}不阻塞调用线程，重试由共享定时线程池调度；异步获取的锁归属于锁标识而非线程，不支持重入，持有者（默认为调用线程）不再存活时由看门狗释放</li>
+ *     <li>共享看门狗：续期由{@link LockWatchdog}调度，默认所有实例共享同一组守护线程，线程数与实例数量无关；{@link #close()}停止续期并释放本实例持有的锁</li>
+ *     <li>fencing token（可选）：{@link #tryFencedLock(String, long)}加锁时在同一脚本中递增锁key对应的计数器，返回单调递增的token供下游存储校验</li>
+ *     <li>锁丢失检测：续期时发现锁已过期或已被其他持有者获取时，通过{@link LockLostListener}通知，{@link LockHandle#ensureHeld()}抛出{@link RedisLockExpiredException}</li>
+ *     <li>指标采集（可选）：通过{@link LockMetrics}记录加锁耗时、重试次数、持有时长、看门狗执行情况及锁丢失等指标</li>
  * </ul>
  *
  * <P>暂时不支持功能&注意事项</P>
@@ -28,33 +58,135 @@ import java.util.concurrent.TimeUnit;
  * </ul>
  *
  **/
-public class RedisLock {
+public class RedisLock implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(RedisLock.class);
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /**
-     * 记录当前线程锁状态
+     * 锁标识进程级随机前缀
      */
-    private final ThreadLocal<Map<String, ThreadLockStatus>> THREAD_LOCK = ThreadLocal.withInitial(HashMap::new);
+    private static final char[] LOCK_VALUE_PREFIX = String.format("%016x", new SecureRandom().nextLong()).toCharArray();
+
+    private static final AtomicLong LOCK_VALUE_SEQUENCE = new AtomicLong();
 
     /**
-     * 记录所有线程已获取的锁状态
+     * SET NX参数，仅在当前线程构建命令期间使用，按线程复用
      */
-    private final LockStatusContainer LOCK_STATUS_CONTAINER = new LockStatusContainer();
+    private static final ThreadLocal<SetParams> SET_PARAMS = ThreadLocal.withInitial(() -> new SetParams().nx());
+
+    private static final String WAIT_SIGNAL_EXPIRE_MILLIS_ARG = String.valueOf(LockConfig.WAIT_SIGNAL_EXPIRE_MILLIS);
 
     /**
-     * 定时续活线程池
+     * 记录所有持有者已获取的锁状态及重入次数
      */
-    private final ScheduledThreadPoolExecutor SCHEDULED_THREAD_POOL_EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "RedisLock-WatchDog"));
+    private final LockStatusContainer LOCK_STATUS_CONTAINER = new LockStatusContainer(LockConfig.WATCHDOG_TICK_MILLIS);
+
+
+    /**
+     * 本地锁等待队列
+     */
+    private final LockWaitQueue LOCK_WAIT_QUEUE = new LockWaitQueue();
+
+    /**
+     * 异步加锁/释放锁线程池，所有实例共享，空闲时线程自动回收
+     */
+    private static final ScheduledThreadPoolExecutor ASYNC_THREAD_POOL_EXECUTOR = newAsyncThreadPoolExecutor();
 
 
     private final UnifiedJedis unifiedJedis;
 
+    private final LockWaitMode waitMode;
+
+    private final LockMetrics metrics;
+
+    private final List<LockLostListener> lockLostListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 默认租约时长
+     */
+    private final long leaseMillis;
+
+    /**
+     * 看门狗调度器，可由多个实例共享
+     */
+    private final LockWatchdog watchdog;
+
+    /**
+     * 批量执行器，非空时普通锁的加锁及释放命令与其他线程的命令合并提交
+     */
+    private final RedisBatchExecutor batchExecutor;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * 续期任务是否正在执行，保证同一实例的续期任务不会并发执行
+     */
+    private final AtomicBoolean watchdogRunning = new AtomicBoolean();
+
+    private final Object watchdogMonitor = new Object();
+
+    /**
+     * 看门狗下次唤醒时间，Long.MAX_VALUE表示未调度
+     */
+    private volatile long watchdogWakeAt = Long.MAX_VALUE;
+
+    /**
+     * 看门狗下次执行任务，仅在持有watchdogMonitor时访问
+     */
+    private ScheduledFuture<?> watchdogFuture;
+
     public RedisLock(RedisFactory redisFactory) {
+        this(redisFactory, LockWaitMode.POLLING);
+    }
+
+    public RedisLock(RedisFactory redisFactory, LockWaitMode waitMode) {
+        this(redisFactory, waitMode, LockMetrics.NOOP);
+    }
+
+    public RedisLock(RedisFactory redisFactory, LockWaitMode waitMode, LockMetrics metrics) {
+        this(redisFactory, waitMode, metrics, LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS);
+    }
+
+    /**
+     * @param leaseMillis 默认租约时长。自动续期的锁在持有者崩溃后最长保留租约时长的4/3，不小于{@link LockConfig#MIN_LEASE_MILLIS}
+     */
+    public RedisLock(RedisFactory redisFactory, LockWaitMode waitMode, LockMetrics metrics, long leaseMillis) {
+        this(redisFactory, waitMode, metrics, leaseMillis, LockWatchdog.shared());
+    }
+
+    /**
+     * @param leaseMillis 默认租约时长
+     * @param watchdog    看门狗调度器，多个实例可共享同一个看门狗
+     */
+    public RedisLock(RedisFactory redisFactory, LockWaitMode waitMode, LockMetrics metrics, long leaseMillis, LockWatchdog watchdog) {
+        this(redisFactory, waitMode, metrics, leaseMillis, watchdog, null);
+    }
+
+    /**
+     * @param leaseMillis   默认租约时长
+     * @param watchdog      看门狗调度器，多个实例可共享同一个看门狗
+     * @param batchExecutor 批量执行器，为null时逐个命令执行。高并发短锁场景下可降低连接池压力，单次加锁/释放延迟最多增加一个收集窗口
+     */
+    public RedisLock(RedisFactory redisFactory, LockWaitMode waitMode, LockMetrics metrics, long leaseMillis, LockWatchdog watchdog, RedisBatchExecutor batchExecutor) {
         this.unifiedJedis = redisFactory.getUnifiedJedis();
+        this.waitMode = Objects.requireNonNull(waitMode, "waitMode");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.leaseMillis = checkLeaseMillis(leaseMillis);
+        this.watchdog = Objects.requireNonNull(watchdog, "watchdog");
+        this.batchExecutor = batchExecutor;
+    }
 
-        SCHEDULED_THREAD_POOL_EXECUTOR.setRemoveOnCancelPolicy(true);
-        long schedulePeriod = LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS / 3;
-        SCHEDULED_THREAD_POOL_EXECUTOR.scheduleAtFixedRate(this::tryProlong, schedulePeriod, schedulePeriod, TimeUnit.MILLISECONDS);
+    private static ScheduledThreadPoolExecutor newAsyncThreadPoolExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(LockConfig.ASYNC_THREAD_POOL_SIZE, r -> {
+            Thread thread = new Thread(r, "RedisLock-Async-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(60L, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -80,74 +212,610 @@ public class RedisLock {
      * @return 获取锁成功时返回锁标识，失败时返回null
      */
     public String tryLock(String lockKey, long waitSeconds, long releaseSeconds) {
+        return this.tryLock(lockKey, waitSeconds, releaseSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以指定持有者申请锁
+     * <p>同一持有者可在任意线程重入或释放锁，适用于请求上下文、协程等不与线程绑定的场景。</p>
+     *
+     * @param lockKey        redis lock key
+     * @param waitSeconds    获取锁动作超时时间
+     * @param releaseSeconds redis锁自动释放时间，-1L表示自动续期
+     * @param owner          锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(String lockKey, long waitSeconds, long releaseSeconds, LockOwner owner) {
+        return this.tryLock(LockKey.of(lockKey), waitSeconds, releaseSeconds, owner);
+    }
+
+    /**
+     * 以字节数组key申请锁，与{@link #tryLock(String, long)}相同
+     * <p>每次调用都会复制并校验key，同一key反复加锁时建议复用{@link LockKey}并调用{@link #tryLock(LockKey, long)}。</p>
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(byte[] lockKey, long waitSeconds) {
+        return this.tryLock(LockKey.of(lockKey), waitSeconds, -1L, LockOwner.currentThread());
+    }
+
+    /**
+     * 以预编码key申请锁，与{@link #tryLock(String, long)}相同
+     *
+     * @param lockKey     预编码的redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(LockKey lockKey, long waitSeconds) {
+        return this.tryLock(lockKey, waitSeconds, -1L, LockOwner.currentThread());
+    }
+
+    /**
+     * 以预编码key及指定持有者申请锁
+     * <p>key在{@link LockKey}创建时完成编码，加锁、续期、释放时不再重复编码。</p>
+     *
+     * @param lockKey        预编码的redis lock key
+     * @param waitSeconds    获取锁动作超时时间
+     * @param releaseSeconds redis锁自动释放时间，-1L表示自动续期
+     * @param owner          锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(LockKey lockKey, long waitSeconds, long releaseSeconds, LockOwner owner) {
+        LockStatus lockStatus = acquire(lockKey, waitSeconds, releaseSeconds, owner, leaseMillis, null);
+        return lockStatus == null ? null : lockStatus.getLockValue();
+    }
+
+    /**
+     * 以指定租约时长申请自动续期的锁
+     * <p>租约越短，持有者崩溃后锁释放越快，续期越频繁。重入时沿用首次加锁时的租约时长。</p>
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param lease       租约时长，不小于{@link LockConfig#MIN_LEASE_MILLIS}毫秒
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(String lockKey, long waitSeconds, Duration lease) {
+        return this.tryLock(LockKey.of(lockKey), waitSeconds, lease, LockOwner.currentThread());
+    }
+
+    /**
+     * 以指定租约时长及持有者申请自动续期的锁
+     *
+     * @param lockKey     预编码的redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param lease       租约时长，不小于{@link LockConfig#MIN_LEASE_MILLIS}毫秒
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(LockKey lockKey, long waitSeconds, Duration lease, LockOwner owner) {
+        LockStatus lockStatus = acquire(lockKey, waitSeconds, -1L, owner, checkLeaseMillis(lease.toMillis()), null);
+        return lockStatus == null ? null : lockStatus.getLockValue();
+    }
+
+    /**
+     * 锁申请，返回可用于try-with-resources的锁句柄
+     * <p>句柄直接持有锁状态，释放时无需再按lockKey查找。关闭句柄即释放锁，重复关闭无副作用。</p>
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁句柄，失败时返回null
+     */
+    public LockHandle tryLockHandle(String lockKey, long waitSeconds) {
+        return this.tryLockHandle(LockKey.of(lockKey), waitSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以预编码key及指定持有者申请锁，返回可用于try-with-resources的锁句柄
+     *
+     * @param lockKey     预编码的redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁句柄，失败时返回null
+     */
+    public LockHandle tryLockHandle(LockKey lockKey, long waitSeconds, LockOwner owner) {
+        LockStatus lockStatus = acquire(lockKey, waitSeconds, -1L, owner, leaseMillis, null);
+        return lockStatus == null ? null : new LockHandle(this, lockStatus);
+    }
+
+    /**
+     * 以指定租约时长及持有者申请锁，返回可用于try-with-resources的锁句柄
+     *
+     * @param lockKey     预编码的redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param lease       租约时长，不小于{@link LockConfig#MIN_LEASE_MILLIS}毫秒
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁句柄，失败时返回null
+     */
+    public LockHandle tryLockHandle(LockKey lockKey, long waitSeconds, Duration lease, LockOwner owner) {
+        LockStatus lockStatus = acquire(lockKey, waitSeconds, -1L, owner, checkLeaseMillis(lease.toMillis()), null);
+        return lockStatus == null ? null : new LockHandle(this, lockStatus);
+    }
+
+    /**
+     * 带fencing token的锁申请
+     * <p>加锁成功时在同一脚本中递增锁key对应的计数器（key为lockKey加{@link LockConfig#FENCING_TOKEN_KEY_SUFFIX}后缀，与锁key位于同一slot），
+     * 同一lockKey的token单调递增。下游存储可拒绝token小于已见最大token的写入，避免锁过期后旧持有者的写入覆盖新持有者。</p>
+     * <p>锁自动续期，重入时返回首次加锁时的token。</p>
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁句柄，通过{@link LockHandle#getFencingToken()}获取token，失败时返回null
+     */
+    public LockHandle tryFencedLock(String lockKey, long waitSeconds) {
+        return this.tryFencedLock(LockKey.of(lockKey), waitSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以预编码key及指定持有者申请带fencing token的锁
+     *
+     * @param lockKey     预编码的redis lock key，不支持非UTF-8字节数组key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁句柄，失败时返回null
+     * @see #tryFencedLock(String, long)
+     */
+    public LockHandle tryFencedLock(LockKey lockKey, long waitSeconds, LockOwner owner) {
+        Objects.requireNonNull(lockKey, "lockKey");
+        String fencingKey = lockKey.isText() ? LockKeys.colocatedKey(lockKey.getName(), LockConfig.FENCING_TOKEN_KEY_SUFFIX) : null;
+        if (fencingKey == null) {
+            throw new IllegalArgumentException("fencing token is not supported for lockKey:" + lockKey);
+        }
+        LockStatus lockStatus = acquire(lockKey, waitSeconds, -1L, owner, leaseMillis, SafeEncoder.encode(fencingKey));
+        return lockStatus == null ? null : new LockHandle(this, lockStatus);
+    }
+
+    /**
+     * 持有锁执行action，执行完成后释放锁
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param action      持有锁期间执行的操作
+     * @return action的执行结果
+     * @throws RedisLockTimeoutException 等待超时未获取到锁
+     */
+    public <T> T withLock(String lockKey, long waitSeconds, Supplier<T> action) {
+        return this.withLock(LockKey.of(lockKey), waitSeconds, action);
+    }
+
+    /**
+     * 以预编码key持有锁执行action，执行完成后释放锁
+     *
+     * @param lockKey     预编码的redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param action      持有锁期间执行的操作
+     * @return action的执行结果
+     * @throws RedisLockTimeoutException 等待超时未获取到锁
+     */
+    public <T> T withLock(LockKey lockKey, long waitSeconds, Supplier<T> action) {
+        Objects.requireNonNull(action, "action");
+        try (LockHandle lockHandle = tryLockHandle(lockKey, waitSeconds, LockOwner.currentThread())) {
+            if (lockHandle == null) {
+                throw new RedisLockTimeoutException("acquire lock timeout. lockKey:" + lockKey + " waitSeconds:" + waitSeconds);
+            }
+            return action.get();
+        }
+    }
+
+    /**
+     * 锁申请
+     *
+     * @param leaseMillis 自动续期时的租约时长
+     * @param fencingKey  fencing token计数器key，为null时不生成token
+     * @return 获取锁成功时返回锁状态，失败时返回null
+     */
+    private LockStatus acquire(LockKey lockKey, long waitSeconds, long releaseSeconds, LockOwner owner, long leaseMillis, byte[] fencingKey) {
+        Objects.requireNonNull(lockKey, "lockKey");
+        Objects.requireNonNull(owner, "owner");
+        ensureOpen();
         String lockValue;
 
         //锁重入
-        ThreadLockStatus threadLockStatus = THREAD_LOCK.get().get(lockKey);
-        if (threadLockStatus != null) {
-            LockStatus lockStatus = LOCK_STATUS_CONTAINER.getLockStatus(lockKey);
-            if (lockStatus != null && Objects.equals(lockStatus.getLockValue(), threadLockStatus.getLockValue())) {
-                if (!lockStatus.isExpiredTimeRenewable()) {
-                    throw new UnsupportedOperationException("The lock with an expiration time does not support reentrancy.");
+        LockStatus heldLockStatus = LOCK_STATUS_CONTAINER.getLockStatus(LockType.REENTRANT, lockKey.getName());
+        if (heldLockStatus != null && heldLockStatus.isOwnedBy(owner)) {
+            if (!heldLockStatus.isExpiredTimeRenewable()) {
+                throw new UnsupportedOperationException("The lock with an expiration time does not support reentrancy.");
+            }
+            if (fencingKey != null && heldLockStatus.getFencingToken() == 0L) {
+                throw new UnsupportedOperationException("The lock acquired without fencing token does not support fenced reentrancy.");
+            }
+            //续期失败说明锁已丢失，重新申请
+            if (prolongLock(heldLockStatus)) {
+                int holdCount = heldLockStatus.incrHoldCount();
+                metrics.recordReentry();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("reentry lock:{} {} times by owner:{}", lockKey, holdCount, owner);
                 }
-                prolongLock(lockStatus);
-            } else {
-                //线程变量中记录的锁信息和全局变量不一致意味着线程所持有锁已经过期or丢失
-                logger.warn("find lock expired when reentry. lockKey:{}", lockKey);
+                return heldLockStatus;
             }
-
-            //只要线程变量中记录有锁信息无论锁信息在redis中是否已失效均当做未失效情况允许锁重入。
-            long lockedTimes = threadLockStatus.incrLockCount();
-            logger.debug("reentry lock:{} {} times by thread:{}", lockKey, lockedTimes, Thread.currentThread());
-            return threadLockStatus.getLockValue();
         }
 
+        long startNanos = System.nanoTime();
+        int attempts = 0;
         long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
-        lockValue = UUID.randomUUID().toString().replaceAll("-", "");
-        long sleepTime = 50L;
-        while (System.currentTimeMillis() <= tryAcquireBefore) {
-            boolean acquired = tryLockOnce(lockKey, lockValue, releaseSeconds);
-            if (acquired) {
-                return lockValue;
+        lockValue = newLockValue();
+        byte[] lockValueBytes = SafeEncoder.encode(lockValue);
+
+        //本地无等待者时直接尝试一次，无竞争时不创建本地等待节点
+        boolean fastPathFailed = false;
+        if (!LOCK_WAIT_QUEUE.hasWaiters(lockKey.getName())) {
+            attempts++;
+            LockStatus lockStatus = tryLockOnce(lockKey, lockValue, lockValueBytes, releaseSeconds, owner, leaseMillis, fencingKey);
+            if (lockStatus != null) {
+                metrics.recordAcquire(System.nanoTime() - startNanos, attempts, true);
+                return lockStatus;
+            }
+            if (System.currentTimeMillis() >= tryAcquireBefore) {
+                metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
+                return null;
             }
+            fastPathFailed = true;
+        }
 
-            try {
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("tryLock interrupted", e);
+        long sleepTime = 50L;
+        LockWaitQueue.WaitNode waitNode = LOCK_WAIT_QUEUE.enter(lockKey.getName());
+        try {
+            //本地仲裁：仅竞争者访问redis，其余线程本地排队
+            if (!waitNode.tryAcquireCompetitor(tryAcquireBefore - System.currentTimeMillis())) {
+                metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
                 return null;
             }
-            sleepTime = Math.min(sleepTime * 2, 500L) + new Random().nextInt(50);
+            try {
+                while (System.currentTimeMillis() <= tryAcquireBefore) {
+                    long generation = waitNode.getGeneration();
+                    if (fastPathFailed) {
+                        //快速尝试刚刚失败，先等待再重试
+                        fastPathFailed = false;
+                    } else {
+                        attempts++;
+                        LockStatus lockStatus = tryLockOnce(lockKey, lockValue, lockValueBytes, releaseSeconds, owner, leaseMillis, fencingKey);
+                        if (lockStatus != null) {
+                            metrics.recordAcquire(System.nanoTime() - startNanos, attempts, true);
+                            return lockStatus;
+                        }
+                    }
+
+                    //退避期间本进程内释放锁时立即唤醒
+                    awaitRelease(lockKey, waitNode, generation, Math.min(sleepTime, Math.max(tryAcquireBefore - System.currentTimeMillis(), 1L)));
+                    sleepTime = Math.min(sleepTime * 2, 500L) + ThreadLocalRandom.current().nextInt(50);
+                }
+            } finally {
+                waitNode.releaseCompetitor();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("tryLock interrupted", e);
+        } finally {
+            LOCK_WAIT_QUEUE.exit(lockKey.getName(), waitNode);
         }
+        metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
         return null;
     }
 
-    private boolean tryLockOnce(String lockKey, String lockValue, long releaseSeconds) {
-        boolean acquired = false;
-        boolean expiredTimeRenewable = (releaseSeconds == -1L);
-        long expireAtMilliseconds;
-        if (expiredTimeRenewable) {
-            expireAtMilliseconds = System.currentTimeMillis() + LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS;
-        } else {
-            expireAtMilliseconds = System.currentTimeMillis() + releaseSeconds * 1000L;
+    /**
+     * 等待锁释放通知，最长等待waitMillis毫秒
+     */
+    private void awaitRelease(LockKey lockKey, LockWaitQueue.WaitNode waitNode, long generation, long waitMillis) throws InterruptedException {
+        if (waitMode == LockWaitMode.REDIS_NOTIFY) {
+            String signalKey = signalKey(lockKey);
+            if (signalKey != null) {
+                try {
+                    unifiedJedis.blpop(waitMillis / 1000.0, signalKey);
+                    return;
+                } catch (Exception e) {
+                    logger.warn("wait release signal failed. lockKey:{}", lockKey, e);
+                }
+            }
         }
-        try {
-            String resp = unifiedJedis.set(lockKey, lockValue, new SetParams().nx().pxAt(expireAtMilliseconds));
-            logger.debug("redis set lock key:{} value:{} expireAt:{} resp:{}", lockKey, lockValue, new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(expireAtMilliseconds), resp);
-            acquired = "OK".equals(resp);
+        waitNode.await(generation, waitMillis);
+    }
 
-            if (acquired) {
-                ThreadLockStatus threadLockStatus = new ThreadLockStatus(lockValue);
-                THREAD_LOCK.get().put(lockKey, threadLockStatus);
-                logger.debug("put threadLocal key:{} threadLockStatus:{}", lockKey, threadLockStatus);
-                LockStatus lockStatus = new LockStatus(expireAtMilliseconds, lockKey, lockValue, expiredTimeRenewable);
-                LOCK_STATUS_CONTAINER.add(lockStatus);
+    /**
+     * 异步锁申请
+     * <p>锁自动续期直到调用{@link #releaseLockAsync(String, String)}释放，不支持锁重入。</p>
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public CompletableFuture<String> tryLockAsync(String lockKey, long waitSeconds) {
+        return this.tryLockAsync(lockKey, waitSeconds, -1L);
+    }
+
+    /**
+     * 异步锁申请
+     * <p>获取锁期间不占用调用线程，每次重试由共享线程池按退避时间调度。锁归属于返回的锁标识，不归属于调用线程，可在任意线程释放。</p>
+     * <p>取消返回的future时停止重试，若此时已获取锁则立即释放。自动续期的锁持续续期直至释放或{@link #close()}，需由调用方保证释放；
+     * 需要随某个生命周期自动释放时使用{@link #tryLockAsync(String, long, long, LockOwner)}。</p>
+     *
+     * @param lockKey        redis lock key
+     * @param waitSeconds    获取锁动作超时时间
+     * @param releaseSeconds redis锁自动释放时间，-1L表示自动续期
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public CompletableFuture<String> tryLockAsync(String lockKey, long waitSeconds, long releaseSeconds) {
+        return this.submitLockAsync(lockKey, waitSeconds, releaseSeconds, () -> true);
+    }
+
+    /**
+     * 以指定持有者异步申请锁
+     * <p>持有者仅用于判断是否继续续期：自动续期的锁在持有者不再存活时由看门狗释放，如传入{@link LockOwner#currentThread()}时随调用线程结束释放，
+     * 传入{@link LockOwner#of(String, BooleanSupplier)}时由存活判断决定。异步获取的锁不能通过该持有者重入或释放。</p>
+     *
+     * @param lockKey        redis lock key
+     * @param waitSeconds    获取锁动作超时时间
+     * @param releaseSeconds redis锁自动释放时间，-1L表示自动续期
+     * @param owner          锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public CompletableFuture<String> tryLockAsync(String lockKey, long waitSeconds, long releaseSeconds, LockOwner owner) {
+        Objects.requireNonNull(owner, "owner");
+        return this.submitLockAsync(lockKey, waitSeconds, releaseSeconds, owner::isAlive);
+    }
+
+    private CompletableFuture<String> submitLockAsync(String lockKey, long waitSeconds, long releaseSeconds, BooleanSupplier alive) {
+        ensureOpen();
+        CompletableFuture<String> future = new CompletableFuture<>();
+        long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
+        LockKey key = LockKey.of(lockKey);
+        String lockValue = newLockValue();
+        byte[] lockValueBytes = SafeEncoder.encode(lockValue);
+        //以锁标识作为持有者标识，同步接口无法重入异步获取的锁
+        LockOwner asyncOwner = LockOwner.of(lockValue, alive);
+        long startNanos = System.nanoTime();
+        ASYNC_THREAD_POOL_EXECUTOR.execute(() -> tryLockAsync(future, key, lockValue, lockValueBytes, releaseSeconds, asyncOwner, tryAcquireBefore, 50L, startNanos, 1));
+        return future;
+    }
+
+    private void tryLockAsync(CompletableFuture<String> future, LockKey lockKey, String lockValue, byte[] lockValueBytes, long releaseSeconds, LockOwner owner,
+                              long tryAcquireBefore, long sleepTime, long startNanos, int attempts) {
+        if (future.isDone()) {
+            return;
+        }
+        if (closed.get()) {
+            future.complete(null);
+            return;
+        }
+        if (tryLockOnce(lockKey, lockValue, lockValueBytes, releaseSeconds, owner, leaseMillis, null) != null) {
+            if (future.complete(lockValue)) {
+                metrics.recordAcquire(System.nanoTime() - startNanos, attempts, true);
+                return;
+            }
+            //获取锁期间future已被取消，本地锁状态先于redis删除，释放失败时锁不再续期并在租约到期后自动释放
+            try {
+                deleteLock(lockKey, lockValue);
+            } catch (Exception e) {
+                logger.warn("release cancelled async lock failed. lockKey:{} lockValue:{}", lockKey, lockValue, e);
+            }
+            metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
+            return;
+        }
+        long remaining = tryAcquireBefore - System.currentTimeMillis();
+        if (remaining < 0) {
+            future.complete(null);
+            metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
+            return;
+        }
+        long nextSleepTime = Math.min(sleepTime * 2, 500L) + ThreadLocalRandom.current().nextInt(50);
+        ASYNC_THREAD_POOL_EXECUTOR.schedule(() -> tryLockAsync(future, lockKey, lockValue, lockValueBytes, releaseSeconds, owner, tryAcquireBefore, nextSleepTime, startNanos, attempts + 1),
+                Math.min(sleepTime, remaining), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步锁释放
+     * <p>用于释放{@link #tryLockAsync(String, long, long)}获取的锁，仅校验锁标识不校验线程。</p>
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @return 锁释放结果
+     */
+    public CompletableFuture<Boolean> releaseLockAsync(String lockKey, String lockValue) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        ASYNC_THREAD_POOL_EXECUTOR.execute(() -> {
+            try {
+                future.complete(deleteLock(LockKey.of(lockKey), lockValue));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private LockStatus tryLockOnce(LockKey lockKey, String lockValue, byte[] lockValueBytes, long releaseSeconds, LockOwner owner, long leaseMillis, byte[] fencingKey) {
+        LockStatus lockStatus = null;
+        boolean expiredTimeRenewable = (releaseSeconds == -1L);
+        long expireMillis = expiredTimeRenewable ? leaseMillis : releaseSeconds * 1000L;
+        long expireAtMilliseconds = System.currentTimeMillis() + expireMillis;
+        try {
+            if (fencingKey != null) {
+                return tryFencedLockOnce(lockKey, lockValue, lockValueBytes, owner, leaseMillis, fencingKey, expireMillis, expireAtMilliseconds);
+            }
+            String resp;
+            if (batchExecutor != null) {
+                //命令在刷新线程中编码，不能复用当前线程的SetParams
+                SetParams setParams = new SetParams().nx().pxAt(expireAtMilliseconds);
+                resp = batchExecutor.execute(pipeline -> pipeline.set(lockKey.raw(), lockValueBytes, setParams));
+            } else {
+                resp = unifiedJedis.set(lockKey.raw(), lockValueBytes, SET_PARAMS.get().pxAt(expireAtMilliseconds));
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("redis set lock key:{} value:{} expireAt:{} resp:{}", lockKey, lockValue, new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(expireAtMilliseconds), resp);
+            }
+            if ("OK".equals(resp)) {
+                lockStatus = new LockStatus(expireAtMilliseconds, lockKey, lockValue, lockValueBytes, expiredTimeRenewable, owner, leaseMillis);
+                addLockStatus(lockStatus);
             }
         } catch (Exception e) {
             logger.warn("tryLockOnce failed. lockKey:{}, lockValue:{}, releaseSeconds:{}", lockKey, lockValue, releaseSeconds, e);
         }
-        return acquired;
+        return lockStatus;
+    }
+
+    private LockStatus tryFencedLockOnce(LockKey lockKey, String lockValue, byte[] lockValueBytes, LockOwner owner, long leaseMillis, byte[] fencingKey,
+                                         long expireMillis, long expireAtMilliseconds) {
+        Object object = LockConfig.ACQUIRE_FENCED_LOCK_SCRIPT.evalBinary(unifiedJedis, Arrays.asList(lockKey.raw(), fencingKey),
+                Arrays.asList(lockValueBytes, Protocol.toByteArray(expireMillis)));
+        if (logger.isDebugEnabled()) {
+            logger.debug("redis set fenced lock key:{} value:{} expireAt:{} resp:{}", lockKey, lockValue, expireAtMilliseconds, object);
+        }
+        if (!(object instanceof Long) || (Long) object <= 0L) {
+            return null;
+        }
+        LockStatus lockStatus = new LockStatus(expireAtMilliseconds, lockKey, lockValue, lockValueBytes, true, owner, leaseMillis, (Long) object);
+        addLockStatus(lockStatus);
+        return lockStatus;
+    }
+
+    /**
+     * 多key锁申请
+     * <p>所有key通过一次脚本调用原子地加锁（全部成功或全部失败），共享同一个锁标识并作为一个整体自动续期。</p>
+     * <p>集群模式下key按slot分组，各组按slot顺序依次加锁，任一组失败时释放已获取的组后重试。</p>
+     *
+     * @param lockKeys    redis lock keys
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(Collection<String> lockKeys, long waitSeconds) {
+        return this.tryLock(lockKeys, waitSeconds, -1L);
+    }
+
+    /**
+     * 多key锁申请
+     *
+     * @param lockKeys       redis lock keys
+     * @param waitSeconds    获取锁动作超时时间
+     * @param releaseSeconds redis锁自动释放时间，-1L表示自动续期
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     * @see #tryLock(Collection, long)
+     */
+    public String tryLock(Collection<String> lockKeys, long waitSeconds, long releaseSeconds) {
+        List<List<String>> slotGroups = groupBySlot(lockKeys);
+        LockOwner owner = LockOwner.currentThread();
+
+        //锁重入
+        String heldLockValue = reentryMultiLock(slotGroups, owner);
+        if (heldLockValue != null) {
+            return heldLockValue;
+        }
+
+        long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
+        String lockValue = newLockValue();
+        return retryUntil(tryAcquireBefore, () -> tryMultiLockOnce(slotGroups, lockValue, releaseSeconds, owner)) ? lockValue : null;
+    }
+
+    private String reentryMultiLock(List<List<String>> slotGroups, LockOwner owner) {
+        List<LockStatus> heldLockStatuses = new ArrayList<>(slotGroups.size());
+        for (List<String> slotGroup : slotGroups) {
+            LockStatus lockStatus = LOCK_STATUS_CONTAINER.getLockStatus(LockType.MULTI, multiLockKey(slotGroup));
+            if (lockStatus == null || !lockStatus.isOwnedBy(owner)) {
+                return null;
+            }
+            heldLockStatuses.add(lockStatus);
+        }
+        if (!heldLockStatuses.get(0).isExpiredTimeRenewable()) {
+            throw new UnsupportedOperationException("The lock with an expiration time does not support reentrancy.");
+        }
+        for (LockStatus lockStatus : heldLockStatuses) {
+            lockStatus.incrHoldCount();
+        }
+        metrics.recordReentry();
+        logger.debug("reentry multi lock:{} by owner:{}", slotGroups, owner);
+        return heldLockStatuses.get(0).getLockValue();
+    }
+
+    private boolean tryMultiLockOnce(List<List<String>> slotGroups, String lockValue, long releaseSeconds, LockOwner owner) {
+        boolean expiredTimeRenewable = (releaseSeconds == -1L);
+        List<LockStatus> acquiredLockStatuses = new ArrayList<>(slotGroups.size());
+        List<String> args = Arrays.asList(lockValue, String.valueOf(expiredTimeRenewable ? leaseMillis : releaseSeconds * 1000L));
+        try {
+            for (List<String> slotGroup : slotGroups) {
+                long expireAtMilliseconds = System.currentTimeMillis() + (expiredTimeRenewable ? leaseMillis : releaseSeconds * 1000L);
+                Object object = LockConfig.ACQUIRE_MULTI_LOCK_SCRIPT.eval(unifiedJedis, slotGroup, args);
+                logger.debug("redis set multi lock keys:{} value:{} expireAt:{} resp:{}", slotGroup, lockValue, expireAtMilliseconds, object);
+                if (!(object instanceof Long && (Long) object == 1L)) {
+                    break;
+                }
+                LockStatus lockStatus = new LockStatus(expireAtMilliseconds, multiLockKey(slotGroup), lockValue, expiredTimeRenewable, owner, leaseMillis, LockType.MULTI, slotGroup);
+                addLockStatus(lockStatus);
+                acquiredLockStatuses.add(lockStatus);
+            }
+        } catch (Exception e) {
+            logger.warn("tryMultiLockOnce failed. lockKeys:{}, lockValue:{}, releaseSeconds:{}", slotGroups, lockValue, releaseSeconds, e);
+        }
+        if (acquiredLockStatuses.size() == slotGroups.size()) {
+            return true;
+        }
+        //部分slot加锁失败时释放已获取的部分
+        for (LockStatus lockStatus : acquiredLockStatuses) {
+            try {
+                deleteLock(lockStatus);
+            } catch (Exception e) {
+                logger.warn("rollback multi lock failed. lockKeys:{} lockValue:{}", lockStatus.getRedisKeys(), lockValue, e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 多key锁释放
+     *
+     * @param lockKeys  redis lock keys
+     * @param lockValue redis lock value
+     * @return 全部key释放成功时返回true
+     */
+    public boolean releaseLock(Collection<String> lockKeys, String lockValue) {
+        if (StringUtils.isBlank(lockValue)) {
+            throw new IllegalArgumentException("blank argument founded. lockKeys:" + lockKeys + "lockValue:" + lockValue);
+        }
+        LockOwner owner = LockOwner.currentThread();
+        List<LockStatus> lockStatuses = new ArrayList<>();
+        for (List<String> slotGroup : groupBySlot(lockKeys)) {
+            LockStatus lockStatus = LOCK_STATUS_CONTAINER.getLockStatus(LockType.MULTI, multiLockKey(slotGroup));
+            if (lockStatus == null || !lockStatus.isOwnedBy(owner)) {
+                logger.warn("release lock failed. the lock can only be released by it's owner. lockKeys:{},lockValue:{}", slotGroup, lockValue);
+                return false;
+            } else if (!Objects.equals(lockValue, lockStatus.getLockValue())) {
+                logger.warn("releaseLock failed. invalid lockValue. keys:{} inputValue:{} acquiredValue:{}", slotGroup, lockValue, lockStatus.getLockValue());
+                return false;
+            }
+            lockStatuses.add(lockStatus);
+        }
+        boolean released = true;
+        for (LockStatus lockStatus : lockStatuses) {
+            if (lockStatus.decrHoldCount() <= 0) {
+                released &= deleteLock(lockStatus);
+            }
+        }
+        return released;
+    }
+
+    /**
+     * 按slot对key分组（排序并去重），非集群模式下所有key为一组
+     */
+    private List<List<String>> groupBySlot(Collection<String> lockKeys) {
+        if (lockKeys == null || lockKeys.isEmpty()) {
+            throw new IllegalArgumentException("lockKeys must not be empty");
+        }
+        TreeSet<String> sortedKeys = new TreeSet<>();
+        for (String lockKey : lockKeys) {
+            if (StringUtils.isBlank(lockKey)) {
+                throw new IllegalArgumentException("blank argument founded. lockKeys:" + lockKeys);
+            }
+            sortedKeys.add(lockKey);
+        }
+        if (!(unifiedJedis instanceof JedisCluster)) {
+            return Collections.singletonList(new ArrayList<>(sortedKeys));
+        }
+        TreeMap<Integer, List<String>> slotGroups = new TreeMap<>();
+        for (String lockKey : sortedKeys) {
+            slotGroups.computeIfAbsent(JedisClusterCRC16.getSlot(lockKey), slot -> new ArrayList<>()).add(lockKey);
+        }
+        return new ArrayList<>(slotGroups.values());
+    }
+
+    private static String multiLockKey(List<String> slotGroup) {
+        return String.join(",", slotGroup);
     }
 
     /**
@@ -158,86 +826,501 @@ public class RedisLock {
      * @return 锁释放结果
      */
     public boolean releaseLock(String lockKey, String lockValue) {
-        return this.releaseLock(lockKey,lockValue,true);
+        return this.releaseLock(lockKey, lockValue, LockOwner.currentThread());
     }
 
     /**
-     * 锁释放
+     * 由指定持有者释放锁
      *
      * @param lockKey   redis lock key
      * @param lockValue redis lock value
-     * @param deleteByOwner 是否是线程释放自己的锁
+     * @param owner     锁持有者
      * @return 锁释放结果
      */
-    private boolean releaseLock(String lockKey, String lockValue, boolean deleteByOwner) {
+    public boolean releaseLock(String lockKey, String lockValue, LockOwner owner) {
         if (StringUtils.isAnyBlank(lockKey, lockValue)) {
             throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey + "lockValue:" + lockValue);
         }
         //重入锁处理
-        if (deleteByOwner){
-            ThreadLockStatus threadLockStatus = THREAD_LOCK.get().get(lockKey);
-            if (threadLockStatus == null) {
-                logger.warn("release lock failed. the lock can only be released by it's owner. lockKey:{},lockValue:{}", lockKey, lockValue);
-                return false;
-            } else if (!Objects.equals(lockValue, threadLockStatus.getLockValue())) {
-                logger.warn("releaseLock failed. invalid lockValue. key:{} inputValue:{} acquiredValue:{}", lockKey, lockValue, threadLockStatus.getLockValue());
-                return false;
-            }
-            if (threadLockStatus.decrLockCount() > 0) {
-                return true;
-            }
+        LockStatus lockStatus = LOCK_STATUS_CONTAINER.getLockStatus(LockType.REENTRANT, lockKey);
+        if (lockStatus == null || !lockStatus.isOwnedBy(owner)) {
+            logger.warn("release lock failed. the lock can only be released by it's owner. lockKey:{},lockValue:{}", lockKey, lockValue);
+            return false;
+        } else if (!Objects.equals(lockValue, lockStatus.getLockValue())) {
+            logger.warn("releaseLock failed. invalid lockValue. key:{} inputValue:{} acquiredValue:{}", lockKey, lockValue, lockStatus.getLockValue());
+            return false;
+        }
+        return releaseLock(lockStatus);
+    }
+
+    /**
+     * 以字节数组key释放锁，与{@link #releaseLock(String, String)}相同，建议复用{@link LockKey}并调用{@link #releaseLock(LockKey, String)}
+     */
+    public boolean releaseLock(byte[] lockKey, String lockValue) {
+        return this.releaseLock(LockKey.of(lockKey).getName(), lockValue, LockOwner.currentThread());
+    }
+
+    /**
+     * 以预编码key释放锁，与{@link #releaseLock(String, String)}相同
+     */
+    public boolean releaseLock(LockKey lockKey, String lockValue) {
+        return this.releaseLock(lockKey, lockValue, LockOwner.currentThread());
+    }
 
-            THREAD_LOCK.get().remove(lockKey);
-            logger.debug("remove threadLocal key:{} threadLockStatus:{}", lockKey, threadLockStatus);
+    /**
+     * 由指定持有者以预编码key释放锁
+     */
+    public boolean releaseLock(LockKey lockKey, String lockValue, LockOwner owner) {
+        Objects.requireNonNull(lockKey, "lockKey");
+        return this.releaseLock(lockKey.getName(), lockValue, owner);
+    }
+
+    /**
+     * 通过锁句柄释放锁，锁状态已由句柄持有，无需查找及校验持有者
+     */
+    boolean releaseLock(LockStatus lockStatus) {
+        if (lockStatus.decrHoldCount() > 0) {
+            return true;
         }
+        return deleteLock(lockStatus);
+    }
 
-        LOCK_STATUS_CONTAINER.remove(lockKey, lockValue);
-        Object object = unifiedJedis.eval(LockConfig.LUA_SCRIPT_RELEASE_LOCK, Collections.singletonList(lockKey), Collections.singletonList(lockValue));
+    /**
+     * 锁句柄对应的锁是否仍被持有
+     */
+    boolean isHeld(LockStatus lockStatus) {
+        return LOCK_STATUS_CONTAINER.getLockStatus(lockStatus.getLockType(), lockStatus.getLockKey()) == lockStatus;
+    }
+
+    /**
+     * 删除锁，不校验持有者
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @return 锁释放结果
+     */
+    private boolean deleteLock(LockKey lockKey, String lockValue) {
+        if (StringUtils.isBlank(lockValue)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey + "lockValue:" + lockValue);
+        }
+        LockStatus removed = LOCK_STATUS_CONTAINER.remove(LockType.REENTRANT, lockKey.getName(), lockValue);
+        recordHold(removed);
+        String signalKey = waitMode == LockWaitMode.REDIS_NOTIFY ? signalKey(lockKey) : null;
+        Object object;
+        if (signalKey != null) {
+            object = LockConfig.RELEASE_LOCK_AND_SIGNAL_SCRIPT.eval(unifiedJedis, Arrays.asList(lockKey.getName(), signalKey), Arrays.asList(lockValue, WAIT_SIGNAL_EXPIRE_MILLIS_ARG));
+        } else if (removed != null) {
+            //复用锁状态中缓存的已编码参数
+            object = evalRelease(removed.getBinaryRedisKeys(), removed.getBinaryLockValueArgs());
+        } else {
+            object = evalRelease(lockKey.rawKeys(), Collections.singletonList(SafeEncoder.encode(lockValue)));
+        }
         if (object instanceof Long && (Long) object == 1L) {
             logger.debug("releaseLock key:{} value:{}", lockKey, lockValue);
+            LOCK_WAIT_QUEUE.signal(lockKey.getName());
             return true;
         }
         logger.warn("releaseLock failed. key:{} value:{}", lockKey, lockValue);
         return false;
     }
 
+    private Object evalRelease(List<byte[]> keys, List<byte[]> args) {
+        if (batchExecutor != null) {
+            return RedisBatchExecutor.await(batchExecutor.evalBinary(LockConfig.RELEASE_LOCK_SCRIPT, keys, args));
+        }
+        return LockConfig.RELEASE_LOCK_SCRIPT.evalBinary(unifiedJedis, keys, args);
+    }
+
+    /**
+     * 删除任意类型的锁，不校验持有者
+     *
+     * @param lockStatus 锁状态
+     * @return 锁释放结果
+     */
+    boolean deleteLock(LockStatus lockStatus) {
+        if (lockStatus.getLockType() == LockType.REENTRANT) {
+            return deleteLock(lockStatus.getKey(), lockStatus.getLockValue());
+        }
+        recordHold(LOCK_STATUS_CONTAINER.remove(lockStatus.getLockType(), lockStatus.getLockKey(), lockStatus.getLockValue()));
+        Object object = lockStatus.getLockType().getReleaseScript().evalBinary(unifiedJedis, lockStatus.getBinaryRedisKeys(), lockStatus.getBinaryLockValueArgs());
+        if (object instanceof Long && (Long) object > 0L) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("releaseLock {} keys:{} value:{}", lockStatus.getLockType(), lockStatus.getRedisKeys(), lockStatus.getLockValue());
+            }
+            return true;
+        }
+        logger.warn("releaseLock failed. {} keys:{} value:{}", lockStatus.getLockType(), lockStatus.getRedisKeys(), lockStatus.getLockValue());
+        return false;
+    }
+
+
+    private void recordHold(LockStatus removed) {
+        if (removed != null) {
+            metrics.recordHold(System.nanoTime() - removed.getAcquiredNanos());
+        }
+    }
 
     /**
      * 锁续活
      *
      * @param lockStatus lockStatus
+     * @return 续活结果，锁已丢失时返回false
      */
-    private void prolongLock(LockStatus lockStatus) {
+    private boolean prolongLock(LockStatus lockStatus) {
         String lockKey = lockStatus.getLockKey();
         String lockValue = lockStatus.getLockValue();
-        long newExpireAt = System.currentTimeMillis() + (LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS * 4 / 3);
-        Object object = unifiedJedis.eval(LockConfig.LUA_SCRIPT_PROLONG_LOCK, Collections.singletonList(lockKey), Arrays.asList(lockValue, newExpireAt + ""));
+        long newExpireAt = System.currentTimeMillis() + lockStatus.getProlongMillis();
+        Object object = LockConfig.PROLONG_LOCK_SCRIPT.evalBinary(unifiedJedis, lockStatus.getBinaryRedisKeys(), lockStatus.getProlongArgs(newExpireAt));
         if (object instanceof Long && (Long) object == 1L) {
             lockStatus.setExpireAt(newExpireAt);
-            logger.debug("prolongLock success. lockKey:{} lockValue:{} reset expireAt:{}", lockKey, lockValue, newExpireAt);
-        } else {
-            logger.debug("prolongLock failed. lockKey:{} lockValue:{}", lockKey, lockValue);
+            scheduleCheck(lockStatus, nextCheckAt(lockStatus, System.currentTimeMillis()));
+            if (logger.isDebugEnabled()) {
+                logger.debug("prolongLock success. lockKey:{} lockValue:{} reset expireAt:{}", lockKey, lockValue, newExpireAt);
+            }
+            return true;
         }
+        lockLost(lockStatus);
+        return false;
     }
 
     /**
-     * 检查所有锁并根据情况进行续活
+     * 批量锁续活
+     * <p>按{@link LockConfig#PROLONG_BATCH_SIZE}分批，每批通过一次pipeline提交续活脚本(EVALSHA)后统一解析结果。
+     * 集群模式下由ClusterPipeline按节点分组发送。</p>
+     *
+     * @param lockStatuses 待续活的锁
+     */
+    void prolongLocks(List<LockStatus> lockStatuses) {
+        for (int from = 0; from < lockStatuses.size(); from += LockConfig.PROLONG_BATCH_SIZE) {
+            List<LockStatus> batch = lockStatuses.subList(from, Math.min(from + LockConfig.PROLONG_BATCH_SIZE, lockStatuses.size()));
+            long now = System.currentTimeMillis();
+            long[] newExpireAts = new long[batch.size()];
+            List<List<byte[]>> argsList = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                LockStatus lockStatus = batch.get(i);
+                newExpireAts[i] = now + lockStatus.getProlongMillis();
+                argsList.add(lockStatus.getProlongArgs(newExpireAts[i]));
+            }
+            List<Response<Object>> responses = new ArrayList<>(batch.size());
+            try (AbstractPipeline pipeline = unifiedJedis.pipelined()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    LockStatus lockStatus = batch.get(i);
+                    responses.add(lockStatus.getLockType().getProlongScript().evalBinary(pipeline, lockStatus.getBinaryRedisKeys(), argsList.get(i)));
+                }
+                pipeline.sync();
+            } catch (Exception e) {
+                logger.warn("prolongLocks pipeline failed. batchSize:{}", batch.size(), e);
+                metrics.recordRenewalFailure(batch.size());
+                batch.forEach(this::scheduleRetry);
+                continue;
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                LockStatus lockStatus = batch.get(i);
+                Object object;
+                try {
+                    try {
+                        object = responses.get(i).get();
+                    } catch (Exception e) {
+                        if (!RedisScript.isNoScript(e)) {
+                            throw e;
+                        }
+                        //节点缺失脚本时单独重试，重试过程中会加载脚本
+                        object = lockStatus.getLockType().getProlongScript().evalBinary(unifiedJedis, lockStatus.getBinaryRedisKeys(), argsList.get(i));
+                    }
+                } catch (Exception e) {
+                    logger.warn("prolongLock failed. lockKey:{} lockValue:{}", lockStatus.getLockKey(), lockStatus.getLockValue(), e);
+                    metrics.recordRenewalFailure(1);
+                    scheduleRetry(lockStatus);
+                    continue;
+                }
+                if (object instanceof Long && (Long) object == 1L) {
+                    lockStatus.setExpireAt(newExpireAts[i]);
+                    scheduleCheck(lockStatus, nextCheckAt(lockStatus, System.currentTimeMillis()));
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("prolongLock success. lockKey:{} lockValue:{} reset expireAt:{}", lockStatus.getLockKey(), lockStatus.getLockValue(), newExpireAts[i]);
+                    }
+                } else {
+                    lockLost(lockStatus);
+                }
+            }
+        }
+    }
+
+    /**
+     * 锁已丢失：从本地锁状态容器中移除并通知监听器，不再访问redis
+     * <p>续期期间锁已被持有者释放（本地锁状态已移除）时不视为丢失。</p>
+     */
+    private void lockLost(LockStatus lockStatus) {
+        LockStatus removed = LOCK_STATUS_CONTAINER.remove(lockStatus.getLockType(), lockStatus.getLockKey(), lockStatus.getLockValue());
+        if (removed == null || !lockStatus.markLost()) {
+            return;
+        }
+        recordHold(removed);
+        metrics.recordLockLost();
+        logger.warn("lock lost. lockKey:{} lockValue:{}", lockStatus.getLockKey(), lockStatus.getLockValue());
+        if (lockStatus.getLockType() == LockType.REENTRANT) {
+            LOCK_WAIT_QUEUE.signal(lockStatus.getLockKey());
+        }
+        for (LockLostListener listener : lockLostListeners) {
+            try {
+                listener.onLockLost(lockStatus.getLockKey(), lockStatus.getLockValue());
+            } catch (Exception e) {
+                logger.warn("lock lost listener failed. lockKey:{} lockValue:{}", lockStatus.getLockKey(), lockStatus.getLockValue(), e);
+            }
+        }
+    }
+
+    /**
+     * 注册锁丢失监听器
+     */
+    public void addLockLostListener(LockLostListener listener) {
+        lockLostListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeLockLostListener(LockLostListener listener) {
+        lockLostListeners.remove(listener);
+    }
+
+    /**
+     * 校验锁句柄对应的锁仍被持有
+     */
+    void ensureHeld(LockStatus lockStatus) {
+        if (lockStatus.isLost() || !isHeld(lockStatus)) {
+            throw new RedisLockExpiredException("lock is no longer held. lockKey:" + lockStatus.getLockKey() + " lockValue:" + lockStatus.getLockValue());
+        }
+    }
+
+    /**
+     * 续活请求异常时，在下一个tick重试
+     */
+    private void scheduleRetry(LockStatus lockStatus) {
+        scheduleCheck(lockStatus, Math.min(lockStatus.getExpireAt(), System.currentTimeMillis() + LockConfig.WATCHDOG_RETRY_MILLIS));
+    }
+
+    /**
+     * 锁释放通知key，非UTF-8字节数组key无法拼接通知key时返回null
+     */
+    private static String signalKey(LockKey lockKey) {
+        return lockKey.isText() ? LockWaitQueue.signalKey(lockKey.getName()) : null;
+    }
+
+    /**
+     * 生成锁标识：32位十六进制，前16位为进程级随机前缀，后16位为进程内递增序号
+     * <p>同一进程内不会重复，不同进程间依赖64位随机前缀区分。</p>
+     */
+    static String newLockValue() {
+        long sequence = LOCK_VALUE_SEQUENCE.incrementAndGet();
+        char[] chars = new char[32];
+        System.arraycopy(LOCK_VALUE_PREFIX, 0, chars, 0, 16);
+        for (int i = 31; i >= 16; i--) {
+            chars[i] = HEX_DIGITS[(int) (sequence & 0xF)];
+            sequence >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 按退避时间重复尝试直至成功或超时，至少尝试一次
+     *
+     * @param tryAcquireBefore 截止时间
+     * @param attempt          单次尝试
+     * @return 是否成功
+     */
+    boolean retryUntil(long tryAcquireBefore, BooleanSupplier attempt) {
+        ensureOpen();
+        long startNanos = System.nanoTime();
+        int attempts = 0;
+        long sleepTime = 50L;
+        while (true) {
+            attempts++;
+            if (attempt.getAsBoolean()) {
+                metrics.recordAcquire(System.nanoTime() - startNanos, attempts, true);
+                return true;
+            }
+            long remaining = tryAcquireBefore - System.currentTimeMillis();
+            if (remaining <= 0) {
+                metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
+                return false;
+            }
+            try {
+                Thread.sleep(Math.min(sleepTime, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("tryLock interrupted", e);
+                metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
+                return false;
+            }
+            sleepTime = Math.min(sleepTime * 2, 500L) + ThreadLocalRandom.current().nextInt(50);
+        }
+    }
+
+    /**
+     * 关闭当前实例：停止续期并释放本实例持有的所有锁，关闭后不能再获取锁
+     * <p>共享的看门狗及线程池不受影响。</p>
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (watchdogMonitor) {
+            if (watchdogFuture != null) {
+                watchdogFuture.cancel(false);
+                watchdogFuture = null;
+            }
+            //不再调度看门狗
+            watchdogWakeAt = Long.MIN_VALUE;
+        }
+        for (LockStatus lockStatus : LOCK_STATUS_CONTAINER.snapshot()) {
+            try {
+                deleteLock(lockStatus);
+            } catch (Exception e) {
+                logger.warn("release lock on close failed. lockKey:{} lockValue:{}", lockStatus.getLockKey(), lockStatus.getLockValue(), e);
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    private void ensureOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("RedisLock is closed");
+        }
+    }
+
+    LockMetrics getMetrics() {
+        return metrics;
+    }
+
+    UnifiedJedis getUnifiedJedis() {
+        return unifiedJedis;
+    }
+
+    LockStatus getLockStatus(LockType lockType, String lockKey) {
+        return LOCK_STATUS_CONTAINER.getLockStatus(lockType, lockKey);
+    }
+
+    /**
+     * 登记已获取的锁，由看门狗负责续期及清理
+     */
+    void addLockStatus(LockStatus lockStatus) {
+        long dueAt = nextCheckAt(lockStatus, System.currentTimeMillis());
+        LOCK_STATUS_CONTAINER.add(lockStatus, dueAt);
+        wakeWatchdogBy(dueAt);
+    }
+
+    /**
+     * 重新调度锁的下次检查时间
+     */
+    private void scheduleCheck(LockStatus lockStatus, long dueAt) {
+        LOCK_STATUS_CONTAINER.schedule(lockStatus, dueAt);
+        wakeWatchdogBy(dueAt);
+    }
+
+    /**
+     * 保证看门狗不晚于dueAt唤醒
+     * <p>仅当dueAt早于已调度的唤醒时间时重新调度，看门狗执行期间不重新调度，由执行结束时统一计算下次唤醒时间。</p>
+     */
+    private void wakeWatchdogBy(long dueAt) {
+        if (dueAt >= watchdogWakeAt) {
+            return;
+        }
+        synchronized (watchdogMonitor) {
+            if (dueAt >= watchdogWakeAt) {
+                return;
+            }
+            if (watchdogFuture != null) {
+                watchdogFuture.cancel(false);
+            }
+            long now = System.currentTimeMillis();
+            long wakeAt = Math.max(dueAt, now);
+            watchdogWakeAt = wakeAt;
+            watchdogFuture = watchdog.schedule(this::tryProlong, wakeAt - now);
+        }
+    }
+
+    long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    private static long checkLeaseMillis(long leaseMillis) {
+        if (leaseMillis < LockConfig.MIN_LEASE_MILLIS) {
+            throw new IllegalArgumentException("leaseMillis must not be less than " + LockConfig.MIN_LEASE_MILLIS + ". leaseMillis:" + leaseMillis);
+        }
+        return leaseMillis;
+    }
+
+    /**
+     * 计算锁的下次检查时间
+     * <ul>
+     *     <li>自动续期的锁：剩余有效期不足租约时长的2/3时续期，另加不超过租约时长1/{@link LockConfig#WATCHDOG_JITTER_DIVISOR}的随机抖动</li>
+     *     <li>不自动续期的锁：定期检查持有线程存活状态，最晚在过期时清理</li>
+     * </ul>
+     */
+    private static long nextCheckAt(LockStatus lockStatus, long now) {
+        if (lockStatus.isExpiredTimeRenewable()) {
+            long leaseMillis = lockStatus.getLeaseMillis();
+            return lockStatus.getExpireAt() - leaseMillis * 2 / 3 + ThreadLocalRandom.current().nextLong(leaseMillis / LockConfig.WATCHDOG_JITTER_DIVISOR);
+        }
+        return Math.min(lockStatus.getExpireAt(), now + LockConfig.OWNER_CHECK_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 检查到期的锁并根据情况进行续活
      */
     private void tryProlong() {
+        //已取消的任务可能与新任务同时提交，正在执行的任务结束时会重新调度
+        if (!watchdogRunning.compareAndSet(false, true)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long wakeAt;
+        synchronized (watchdogMonitor) {
+            if (closed.get()) {
+                watchdogRunning.set(false);
+                return;
+            }
+            wakeAt = watchdogWakeAt;
+            //执行期间调度的检查时间均不早于now，不触发重新调度
+            watchdogWakeAt = now;
+        }
         try {
-            for (LockStatus lockStatus : LOCK_STATUS_CONTAINER.getLockStatus()) {
-                if (!lockStatus.isOwnerThreadAlive() || lockStatus.getExpireAt() < System.currentTimeMillis()){
-                    releaseLock(lockStatus.getLockKey(),lockStatus.getLockValue(),false);
-                } else if (lockStatus.isExpiredTimeRenewable()) {
-                    if (lockStatus.getExpireAt() < System.currentTimeMillis() + LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS) {
-                        prolongLock(lockStatus);
-                    } else {
-                        break;
+            long startNanos = System.nanoTime();
+            long lagMillis = wakeAt == Long.MAX_VALUE ? 0L : Math.max(0L, now - wakeAt);
+            List<LockStatus> prolongList = new ArrayList<>();
+            Collection<LockStatus> dueLockStatuses = LOCK_STATUS_CONTAINER.pollDue(now);
+            for (LockStatus lockStatus : dueLockStatuses) {
+                if (!lockStatus.isOwnerAlive() || lockStatus.getExpireAt() < now) {
+                    if (lockStatus.isExpiredTimeRenewable() && lockStatus.isOwnerAlive()) {
+                        //续期持续失败直至过期
+                        lockLost(lockStatus);
+                    }
+                    try {
+                        deleteLock(lockStatus);
+                    } catch (Exception e) {
+                        logger.warn("release expired lock failed. lockKey:{} lockValue:{}", lockStatus.getLockKey(), lockStatus.getLockValue(), e);
                     }
+                } else if (lockStatus.isExpiredTimeRenewable()) {
+                    prolongList.add(lockStatus);
+                } else {
+                    scheduleCheck(lockStatus, nextCheckAt(lockStatus, now));
                 }
             }
+            prolongLocks(prolongList);
+            metrics.recordWatchdogPass(System.nanoTime() - startNanos, lagMillis, dueLockStatuses.size());
         } catch (Exception e) {
             logger.error("scheduled tryProlong task failed.", e);
+        } finally {
+            watchdogRunning.set(false);
+            synchronized (watchdogMonitor) {
+                if (!closed.get()) {
+                    watchdogWakeAt = Long.MAX_VALUE;
+                }
+            }
+            wakeWatchdogBy(LOCK_STATUS_CONTAINER.nextDueAt());
         }
     }
 
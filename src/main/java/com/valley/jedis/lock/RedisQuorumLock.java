@@ -0,0 +1,537 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.client.factory.RedisFactory;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 基于多个相互独立的redis节点实现的多数派锁（Redlock）
+ * <P>支持功能&实现原理：</P>
+ * <ul>
+ *     <li>并行加锁：同时向所有节点发送SET NX PX，多数节点成功且扣除加锁耗时及时钟漂移后仍有剩余有效期时加锁成功，否则释放所有节点后退避重试</li>
+ *     <li>并行访问：各节点的请求在扇出线程池中并行执行，多数节点返回后即得出结果，耗时取决于最慢的多数派节点而非所有节点耗时之和。
+ *     加锁、续期时最长等待节点超时时间（加锁时同时不超过剩余等待时间），未返回的节点视为不可用；每次加锁尝试使用新的锁标识，超时节点上迟到的命令不影响后续尝试</li>
+ *     <li>自动续期：由{@link LockWatchdog}每隔租约时长的1/3并行续期所有节点，多数节点明确拒绝续期或有效期耗尽时视为锁丢失并通知{@link LockLostListener}</li>
+ *     <li>释放：并行在所有节点执行释放脚本（包括加锁失败的节点）并等待所有节点返回，多数节点释放成功时返回true</li>
+ *     <li>可重入锁：与{@link RedisLock}相同，按{@link LockOwner}重入</li>
+ * </ul>
+ *
+ * <P>注意事项</P>
+ * <ul>
+ *     <li>各节点应为相互独立的master，而非同一集群或主从架构中的节点，节点数建议为奇数</li>
+ *     <li>各节点按相对时长过期，不依赖节点间时钟一致</li>
+ * </ul>
+ */
+public class RedisQuorumLock implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RedisQuorumLock.class);
+
+    /**
+     * 并行访问各节点的线程池，所有实例共享，空闲时线程自动回收
+     */
+    private static final ThreadPoolExecutor FAN_OUT_EXECUTOR = newFanOutExecutor();
+
+    private final List<UnifiedJedis> nodes;
+
+    /**
+     * 多数派节点数
+     */
+    private final int quorum;
+
+    private final long leaseMillis;
+
+    private final LockMetrics metrics;
+
+    private final LockWatchdog watchdog;
+
+    private final Executor fanOutExecutor;
+
+    /**
+     * 单次访问节点的超时时间
+     */
+    private final long nodeTimeoutMillis;
+
+    /**
+     * 本实例已获取的锁，lockKey -> 锁
+     */
+    private final ConcurrentHashMap<String, QuorumLock> heldLocks = new ConcurrentHashMap<>();
+
+    private final List<LockLostListener> lockLostListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public RedisQuorumLock(List<? extends RedisFactory> redisFactories) {
+        this(redisFactories, LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS);
+    }
+
+    /**
+     * @param leaseMillis 租约时长，不小于{@link LockConfig#MIN_LEASE_MILLIS}
+     */
+    public RedisQuorumLock(List<? extends RedisFactory> redisFactories, long leaseMillis) {
+        this(redisFactories, leaseMillis, LockMetrics.NOOP, LockWatchdog.shared(), FAN_OUT_EXECUTOR);
+    }
+
+    /**
+     * @param redisFactories 相互独立的redis节点
+     * @param leaseMillis    租约时长
+     * @param metrics        指标采集
+     * @param watchdog       看门狗调度器，可与{@link RedisLock}共享
+     * @param fanOutExecutor 并行访问各节点的线程池，并发度不足时各节点请求将排队执行
+     */
+    public RedisQuorumLock(List<? extends RedisFactory> redisFactories, long leaseMillis, LockMetrics metrics, LockWatchdog watchdog, Executor fanOutExecutor) {
+        this(redisFactories, leaseMillis, metrics, watchdog, fanOutExecutor, LockConfig.DEFAULT_QUORUM_LOCK_NODE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param redisFactories    相互独立的redis节点
+     * @param leaseMillis       租约时长
+     * @param metrics           指标采集
+     * @param watchdog          看门狗调度器，可与{@link RedisLock}共享
+     * @param fanOutExecutor    并行访问各节点的线程池，并发度不足时各节点请求将排队执行
+     * @param nodeTimeoutMillis 单次访问节点的超时时间，需小于租约时长
+     */
+    public RedisQuorumLock(List<? extends RedisFactory> redisFactories, long leaseMillis, LockMetrics metrics, LockWatchdog watchdog, Executor fanOutExecutor,
+                           long nodeTimeoutMillis) {
+        if (redisFactories == null || redisFactories.isEmpty()) {
+            throw new IllegalArgumentException("redisFactories must not be empty");
+        }
+        if (leaseMillis < LockConfig.MIN_LEASE_MILLIS) {
+            throw new IllegalArgumentException("leaseMillis must not be less than " + LockConfig.MIN_LEASE_MILLIS + ". leaseMillis:" + leaseMillis);
+        }
+        if (nodeTimeoutMillis <= 0 || nodeTimeoutMillis >= leaseMillis) {
+            throw new IllegalArgumentException("nodeTimeoutMillis must be positive and less than leaseMillis. nodeTimeoutMillis:" + nodeTimeoutMillis);
+        }
+        List<UnifiedJedis> nodes = new ArrayList<>(redisFactories.size());
+        for (RedisFactory redisFactory : redisFactories) {
+            nodes.add(redisFactory.getUnifiedJedis());
+        }
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.quorum = nodes.size() / 2 + 1;
+        this.leaseMillis = leaseMillis;
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.watchdog = Objects.requireNonNull(watchdog, "watchdog");
+        this.fanOutExecutor = Objects.requireNonNull(fanOutExecutor, "fanOutExecutor");
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        if (nodes.size() % 2 == 0) {
+            logger.warn("quorum lock with even number of nodes. nodes:{} quorum:{}", nodes.size(), quorum);
+        }
+    }
+
+    private static ThreadPoolExecutor newFanOutExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(LockConfig.QUORUM_LOCK_FAN_OUT_THREADS, LockConfig.QUORUM_LOCK_FAN_OUT_THREADS,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "RedisQuorumLock-FanOut-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 锁申请，锁自动续期且支持重入
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(String lockKey, long waitSeconds) {
+        return this.tryLock(lockKey, waitSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以指定持有者申请锁
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryLock(String lockKey, long waitSeconds, LockOwner owner) {
+        if (StringUtils.isBlank(lockKey)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey);
+        }
+        Objects.requireNonNull(owner, "owner");
+        ensureOpen();
+
+        //锁重入
+        QuorumLock heldLock = heldLocks.get(lockKey);
+        if (heldLock != null && heldLock.lockStatus.isOwnedBy(owner) && !heldLock.lockStatus.isLost()) {
+            int holdCount = heldLock.lockStatus.incrHoldCount();
+            metrics.recordReentry();
+            if (logger.isDebugEnabled()) {
+                logger.debug("reentry quorum lock:{} {} times by owner:{}", lockKey, holdCount, owner);
+            }
+            return heldLock.lockStatus.getLockValue();
+        }
+
+        LockKey key = LockKey.of(lockKey);
+        long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
+        long startNanos = System.nanoTime();
+        int attempts = 0;
+        long sleepTime = 50L;
+        try {
+            while (true) {
+                attempts++;
+                //首次尝试始终等待节点超时时间，重试时不超过剩余等待时间
+                long remainingWait = tryAcquireBefore - System.currentTimeMillis();
+                long awaitMillis = attempts == 1 ? nodeTimeoutMillis : Math.max(1L, Math.min(remainingWait, nodeTimeoutMillis));
+                String lockValue = RedisLock.newLockValue();
+                byte[] lockValueBytes = SafeEncoder.encode(lockValue);
+                if (tryLockOnce(key, lockValue, lockValueBytes, owner, awaitMillis)) {
+                    metrics.recordAcquire(System.nanoTime() - startNanos, attempts, true);
+                    return lockValue;
+                }
+                long remaining = tryAcquireBefore - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                Thread.sleep(Math.min(sleepTime, remaining));
+                sleepTime = Math.min(sleepTime * 2, 500L) + ThreadLocalRandom.current().nextInt(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("tryLock interrupted", e);
+        }
+        metrics.recordAcquire(System.nanoTime() - startNanos, attempts, false);
+        return null;
+    }
+
+    /**
+     * @param awaitMillis 等待各节点返回的最长时间
+     */
+    private boolean tryLockOnce(LockKey lockKey, String lockValue, byte[] lockValueBytes, LockOwner owner, long awaitMillis) throws InterruptedException {
+        long startMillis = System.currentTimeMillis();
+        QuorumResult result = fanOut(node -> "OK".equals(node.set(lockKey.raw(), lockValueBytes, new SetParams().nx().px(leaseMillis))), false, awaitMillis);
+        long validityMillis = validityMillis(startMillis);
+        if (logger.isDebugEnabled()) {
+            logger.debug("quorum set lock key:{} value:{} acquired:{}/{} validity:{}", lockKey, lockValue, result.succeeded, nodes.size(), validityMillis);
+        }
+        if (result.succeeded >= quorum && validityMillis > 0) {
+            QuorumLock quorumLock = new QuorumLock(new LockStatus(startMillis + validityMillis, lockKey, lockValue, lockValueBytes, true, owner, leaseMillis));
+            QuorumLock existing;
+            while ((existing = heldLocks.putIfAbsent(lockKey.getName(), quorumLock)) != null) {
+                //已在多数节点获取锁，说明本地记录的持有者已在多数节点过期，按锁丢失处理后再登记
+                lockLost(existing);
+                heldLocks.remove(lockKey.getName(), existing);
+            }
+            scheduleRenewal(quorumLock, leaseMillis / 3);
+            return true;
+        }
+        //未达到多数派时释放已获取的节点
+        fanOut(node -> releaseOnNode(node, lockKey, lockValueBytes), true, nodeTimeoutMillis);
+        return false;
+    }
+
+    /**
+     * 锁释放
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @return 锁释放结果
+     */
+    public boolean releaseLock(String lockKey, String lockValue) {
+        return this.releaseLock(lockKey, lockValue, LockOwner.currentThread());
+    }
+
+    /**
+     * 由指定持有者释放锁
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @param owner     锁持有者
+     * @return 锁释放结果，多数节点释放成功时返回true
+     */
+    public boolean releaseLock(String lockKey, String lockValue, LockOwner owner) {
+        if (StringUtils.isAnyBlank(lockKey, lockValue)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey + "lockValue:" + lockValue);
+        }
+        QuorumLock quorumLock = heldLocks.get(lockKey);
+        if (quorumLock == null || !quorumLock.lockStatus.isOwnedBy(owner)) {
+            logger.warn("release quorum lock failed. the lock can only be released by it's owner. lockKey:{},lockValue:{}", lockKey, lockValue);
+            return false;
+        } else if (!Objects.equals(lockValue, quorumLock.lockStatus.getLockValue())) {
+            logger.warn("release quorum lock failed. invalid lockValue. key:{} inputValue:{} acquiredValue:{}", lockKey, lockValue, quorumLock.lockStatus.getLockValue());
+            return false;
+        }
+        if (quorumLock.lockStatus.decrHoldCount() > 0) {
+            return true;
+        }
+        return deleteLock(quorumLock);
+    }
+
+    /**
+     * 在所有节点删除锁，不校验持有者
+     */
+    private boolean deleteLock(QuorumLock quorumLock) {
+        LockStatus lockStatus = quorumLock.lockStatus;
+        if (heldLocks.remove(lockStatus.getLockKey(), quorumLock)) {
+            metrics.recordHold(System.nanoTime() - lockStatus.getAcquiredNanos());
+        }
+        quorumLock.cancelRenewal();
+        try {
+            QuorumResult result = fanOut(node -> releaseOnNode(node, lockStatus.getKey(), lockStatus.getLockValueBytes()), true, leaseMillis);
+            if (result.succeeded >= quorum) {
+                logger.debug("release quorum lock key:{} value:{}", lockStatus.getLockKey(), lockStatus.getLockValue());
+                return true;
+            }
+            logger.warn("release quorum lock failed. key:{} value:{} released:{}/{}", lockStatus.getLockKey(), lockStatus.getLockValue(), result.succeeded, nodes.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("releaseLock interrupted", e);
+        }
+        return false;
+    }
+
+    private static boolean releaseOnNode(UnifiedJedis node, LockKey lockKey, byte[] lockValueBytes) {
+        Object object = LockConfig.RELEASE_LOCK_SCRIPT.evalBinary(node, lockKey.rawKeys(), Collections.singletonList(lockValueBytes));
+        return object instanceof Long && (Long) object == 1L;
+    }
+
+    private void scheduleRenewal(QuorumLock quorumLock, long delayMillis) {
+        synchronized (quorumLock) {
+            if (!closed.get() && heldLocks.get(quorumLock.lockStatus.getLockKey()) == quorumLock) {
+                quorumLock.renewalFuture = watchdog.schedule(() -> renew(quorumLock), delayMillis);
+            }
+        }
+    }
+
+    /**
+     * 并行续期所有节点
+     * <ul>
+     *     <li>多数节点续期成功：按本次续期开始时间重新计算有效期</li>
+     *     <li>多数节点明确拒绝（锁已不存在或已被其他持有者获取）或有效期耗尽：锁丢失</li>
+     *     <li>其他情况（如节点超时）：在有效期内重试</li>
+     * </ul>
+     */
+    private void renew(QuorumLock quorumLock) {
+        LockStatus lockStatus = quorumLock.lockStatus;
+        if (closed.get() || heldLocks.get(lockStatus.getLockKey()) != quorumLock) {
+            return;
+        }
+        if (!lockStatus.isOwnerAlive()) {
+            deleteLock(quorumLock);
+            return;
+        }
+        long startMillis = System.currentTimeMillis();
+        byte[] leaseArg = Protocol.toByteArray(leaseMillis);
+        QuorumResult result;
+        try {
+            result = fanOut(node -> {
+                Object object = LockConfig.PROLONG_QUORUM_LOCK_SCRIPT.evalBinary(node, lockStatus.getBinaryRedisKeys(), Arrays.asList(lockStatus.getLockValueBytes(), leaseArg));
+                return object instanceof Long && (Long) object == 1L;
+            }, false, nodeTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long validityMillis = validityMillis(startMillis);
+        long now = System.currentTimeMillis();
+        if (result.succeeded >= quorum && validityMillis > 0) {
+            lockStatus.setExpireAt(startMillis + validityMillis);
+            scheduleRenewal(quorumLock, leaseMillis / 3);
+            if (logger.isDebugEnabled()) {
+                logger.debug("prolong quorum lock success. lockKey:{} lockValue:{} renewed:{}/{}", lockStatus.getLockKey(), lockStatus.getLockValue(), result.succeeded, nodes.size());
+            }
+        } else if (result.rejected > nodes.size() - quorum || now + LockConfig.WATCHDOG_RETRY_MILLIS >= lockStatus.getExpireAt()) {
+            lockLost(quorumLock);
+        } else {
+            metrics.recordRenewalFailure(1);
+            logger.warn("prolong quorum lock failed, retry later. lockKey:{} lockValue:{} renewed:{}/{}", lockStatus.getLockKey(), lockStatus.getLockValue(), result.succeeded, nodes.size());
+            scheduleRenewal(quorumLock, LockConfig.WATCHDOG_RETRY_MILLIS);
+        }
+    }
+
+    /**
+     * 锁已丢失：移除本地锁并通知监听器，同时释放仍持有的节点
+     */
+    private void lockLost(QuorumLock quorumLock) {
+        LockStatus lockStatus = quorumLock.lockStatus;
+        if (!lockStatus.markLost()) {
+            return;
+        }
+        metrics.recordLockLost();
+        logger.warn("quorum lock lost. lockKey:{} lockValue:{}", lockStatus.getLockKey(), lockStatus.getLockValue());
+        deleteLock(quorumLock);
+        for (LockLostListener listener : lockLostListeners) {
+            try {
+                listener.onLockLost(lockStatus.getLockKey(), lockStatus.getLockValue());
+            } catch (Exception e) {
+                logger.warn("lock lost listener failed. lockKey:{} lockValue:{}", lockStatus.getLockKey(), lockStatus.getLockValue(), e);
+            }
+        }
+    }
+
+    /**
+     * 加锁或续期后的剩余有效期：租约时长扣除请求耗时及时钟漂移
+     */
+    private long validityMillis(long startMillis) {
+        long driftMillis = (long) (leaseMillis * LockConfig.QUORUM_LOCK_CLOCK_DRIFT_FACTOR) + 2;
+        return leaseMillis - (System.currentTimeMillis() - startMillis) - driftMillis;
+    }
+
+    /**
+     * 在所有节点并行执行command
+     *
+     * @param command     单节点操作，返回false表示节点明确拒绝，抛出异常表示节点不可用
+     * @param all         是否等待所有节点返回，为false时多数节点成功或多数节点失败即返回，不等待其余节点
+     * @param awaitMillis 最长等待时间，超时未返回的节点不计入结果
+     */
+    private QuorumResult fanOut(Predicate<UnifiedJedis> command, boolean all, long awaitMillis) throws InterruptedException {
+        QuorumResult result = new QuorumResult(nodes.size(), quorum);
+        for (UnifiedJedis node : nodes) {
+            try {
+                fanOutExecutor.execute(() -> {
+                    Boolean success;
+                    try {
+                        success = command.test(node);
+                    } catch (Exception e) {
+                        logger.warn("quorum lock node request failed. node:{}", node, e);
+                        success = null;
+                    }
+                    result.complete(success);
+                });
+            } catch (RejectedExecutionException e) {
+                logger.warn("quorum lock node request rejected. node:{}", node, e);
+                result.complete(null);
+            }
+        }
+        result.await(awaitMillis, all);
+        return result;
+    }
+
+    /**
+     * 注册锁丢失监听器
+     */
+    public void addLockLostListener(LockLostListener listener) {
+        lockLostListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeLockLostListener(LockLostListener listener) {
+        lockLostListeners.remove(listener);
+    }
+
+    /**
+     * 当前线程是否持有锁
+     */
+    public boolean isHeldByCurrentThread(String lockKey) {
+        QuorumLock quorumLock = heldLocks.get(lockKey);
+        return quorumLock != null && quorumLock.lockStatus.isOwnedBy(LockOwner.currentThread()) && !quorumLock.lockStatus.isLost();
+    }
+
+    public int getQuorum() {
+        return quorum;
+    }
+
+    /**
+     * 关闭当前实例：停止续期并在所有节点释放本实例持有的锁，关闭后不能再获取锁
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (QuorumLock quorumLock : new ArrayList<>(heldLocks.values())) {
+            try {
+                deleteLock(quorumLock);
+            } catch (Exception e) {
+                logger.warn("release quorum lock on close failed. lockKey:{} lockValue:{}", quorumLock.lockStatus.getLockKey(), quorumLock.lockStatus.getLockValue(), e);
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    private void ensureOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("RedisQuorumLock is closed");
+        }
+    }
+
+    /**
+     * 已获取的多数派锁
+     */
+    private static final class QuorumLock {
+        private final LockStatus lockStatus;
+        /**
+         * 下次续期任务，仅在持有当前对象锁时访问
+         */
+        private ScheduledFuture<?> renewalFuture;
+
+        private QuorumLock(LockStatus lockStatus) {
+            this.lockStatus = lockStatus;
+        }
+
+        private synchronized void cancelRenewal() {
+            if (renewalFuture != null) {
+                renewalFuture.cancel(false);
+                renewalFuture = null;
+            }
+        }
+    }
+
+    /**
+     * 各节点执行结果汇总
+     */
+    private static final class QuorumResult {
+        private final int nodes;
+        private final int quorum;
+        /**
+         * 仅在持有当前对象锁时修改，返回后未完成的节点仍可能更新计数
+         */
+        private volatile int succeeded;
+        private volatile int rejected;
+        private volatile int failed;
+
+        private QuorumResult(int nodes, int quorum) {
+            this.nodes = nodes;
+            this.quorum = quorum;
+        }
+
+        /**
+         * @param success 节点执行结果，null表示节点不可用
+         */
+        private synchronized void complete(Boolean success) {
+            if (success == null) {
+                failed++;
+            } else if (success) {
+                succeeded++;
+            } else {
+                rejected++;
+            }
+            notifyAll();
+        }
+
+        private boolean isDecided(boolean all) {
+            if (all) {
+                return succeeded + rejected + failed >= nodes;
+            }
+            return succeeded >= quorum || rejected + failed > nodes - quorum;
+        }
+
+        private synchronized void await(long timeoutMillis, boolean all) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (!isDecided(all)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                wait(remaining);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于{@link RedisLock}实现的分布式读写锁
+ * <P>支持功能&实现原理：</P>
+ * <ul>
+ *     <li>读锁共享、写锁独占：同一lockKey以hash存储，writer字段记录写锁标识，reader:{锁标识}字段记录各读锁的过期时间</li>
+ *     <li>可重入：同一持有者重复获取读锁或写锁时仅在本地增加持有次数</li>
+ *     <li>自动续期：读锁和写锁均登记到{@link RedisLock}的看门狗，与其他锁一起批量续期，持有者崩溃后由看门狗或redis过期机制释放</li>
+ *     <li>写锁优先（可选）：写锁等待期间在redis上设置等待标记，新的读锁请求需等待标记消失，避免写锁饥饿</li>
+ * </ul>
+ *
+ * <P>注意事项</P>
+ * <ul>
+ *     <li>读写锁使用的lockKey不能与普通锁共用</li>
+ *     <li>不支持锁升级及降级：持有读锁时申请写锁、持有写锁时申请读锁均会等待至超时</li>
+ * </ul>
+ */
+public class RedisReadWriteLock {
+    private static final Logger logger = LoggerFactory.getLogger(RedisReadWriteLock.class);
+
+    private final RedisLock redisLock;
+
+    private final boolean writerPreferred;
+
+    /**
+     * lockKey -> 本进程持有的读锁，用于读锁重入查找
+     */
+    private final ConcurrentHashMap<String, Set<LockStatus>> readLockStatuses = new ConcurrentHashMap<>();
+
+    public RedisReadWriteLock(RedisLock redisLock) {
+        this(redisLock, false);
+    }
+
+    /**
+     * @param redisLock       共享看门狗及redis连接
+     * @param writerPreferred 是否写锁优先
+     */
+    public RedisReadWriteLock(RedisLock redisLock, boolean writerPreferred) {
+        this.redisLock = Objects.requireNonNull(redisLock, "redisLock");
+        this.writerPreferred = writerPreferred;
+    }
+
+    /**
+     * 读锁申请
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryReadLock(String lockKey, long waitSeconds) {
+        return this.tryReadLock(lockKey, waitSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以指定持有者申请读锁
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryReadLock(String lockKey, long waitSeconds, LockOwner owner) {
+        checkLockKey(lockKey);
+        Objects.requireNonNull(owner, "owner");
+
+        //锁重入
+        LockStatus heldLockStatus = findReadLockStatus(lockKey, owner, null);
+        if (heldLockStatus != null) {
+            int holdCount = heldLockStatus.incrHoldCount();
+            redisLock.getMetrics().recordReentry();
+            logger.debug("reentry read lock:{} {} times by owner:{}", lockKey, holdCount, owner);
+            return heldLockStatus.getLockValue();
+        }
+
+        long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
+        String lockValue = RedisLock.newLockValue();
+        List<String> keys = lockKeys(lockKey);
+        LockStatus[] acquired = new LockStatus[1];
+        boolean success = redisLock.retryUntil(tryAcquireBefore, () -> {
+            long expireAtMilliseconds = System.currentTimeMillis() + redisLock.getLeaseMillis();
+            try {
+                Object object = LockConfig.ACQUIRE_READ_LOCK_SCRIPT.eval(redisLock.getUnifiedJedis(), keys, Arrays.asList(lockValue, String.valueOf(expireAtMilliseconds)));
+                logger.debug("redis acquire read lock key:{} value:{} expireAt:{} resp:{}", lockKey, lockValue, expireAtMilliseconds, object);
+                if (object instanceof Long && (Long) object == 1L) {
+                    acquired[0] = new LockStatus(expireAtMilliseconds, lockKey + ":" + lockValue, lockValue, true, owner, redisLock.getLeaseMillis(), LockType.READ, Collections.singletonList(lockKey));
+                    return true;
+                }
+            } catch (Exception e) {
+                logger.warn("tryReadLock failed. lockKey:{}, lockValue:{}", lockKey, lockValue, e);
+            }
+            return false;
+        });
+        if (!success) {
+            return null;
+        }
+        redisLock.addLockStatus(acquired[0]);
+        readLockStatuses.compute(lockKey, (key, statuses) -> {
+            Set<LockStatus> result = statuses == null ? ConcurrentHashMap.newKeySet() : statuses;
+            result.add(acquired[0]);
+            return result;
+        });
+        return lockValue;
+    }
+
+    /**
+     * 读锁释放
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @return 锁释放结果
+     */
+    public boolean releaseReadLock(String lockKey, String lockValue) {
+        return this.releaseReadLock(lockKey, lockValue, LockOwner.currentThread());
+    }
+
+    /**
+     * 由指定持有者释放读锁
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @param owner     锁持有者
+     * @return 锁释放结果
+     */
+    public boolean releaseReadLock(String lockKey, String lockValue, LockOwner owner) {
+        if (StringUtils.isAnyBlank(lockKey, lockValue)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey + "lockValue:" + lockValue);
+        }
+        LockStatus lockStatus = findReadLockStatus(lockKey, owner, lockValue);
+        if (lockStatus == null) {
+            logger.warn("release read lock failed. the lock can only be released by it's owner. lockKey:{},lockValue:{}", lockKey, lockValue);
+            return false;
+        }
+        if (lockStatus.decrHoldCount() > 0) {
+            return true;
+        }
+        readLockStatuses.computeIfPresent(lockKey, (key, statuses) -> {
+            statuses.remove(lockStatus);
+            return statuses.isEmpty() ? null : statuses;
+        });
+        return redisLock.deleteLock(lockStatus);
+    }
+
+    /**
+     * 写锁申请
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryWriteLock(String lockKey, long waitSeconds) {
+        return this.tryWriteLock(lockKey, waitSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以指定持有者申请写锁
+     *
+     * @param lockKey     redis lock key
+     * @param waitSeconds 获取锁动作超时时间
+     * @param owner       锁持有者
+     * @return 获取锁成功时返回锁标识，失败时返回null
+     */
+    public String tryWriteLock(String lockKey, long waitSeconds, LockOwner owner) {
+        checkLockKey(lockKey);
+        Objects.requireNonNull(owner, "owner");
+
+        //锁重入
+        LockStatus heldLockStatus = redisLock.getLockStatus(LockType.WRITE, lockKey);
+        if (heldLockStatus != null && heldLockStatus.isOwnedBy(owner)) {
+            int holdCount = heldLockStatus.incrHoldCount();
+            redisLock.getMetrics().recordReentry();
+            logger.debug("reentry write lock:{} {} times by owner:{}", lockKey, holdCount, owner);
+            return heldLockStatus.getLockValue();
+        }
+
+        long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
+        String lockValue = RedisLock.newLockValue();
+        List<String> keys = lockKeys(lockKey);
+        LockStatus[] acquired = new LockStatus[1];
+        boolean success = redisLock.retryUntil(tryAcquireBefore, () -> {
+            long now = System.currentTimeMillis();
+            long expireAtMilliseconds = now + redisLock.getLeaseMillis();
+            try {
+                Object object = LockConfig.ACQUIRE_WRITE_LOCK_SCRIPT.eval(redisLock.getUnifiedJedis(), keys,
+                        Arrays.asList(lockValue, String.valueOf(expireAtMilliseconds), String.valueOf(now), String.valueOf(LockConfig.WRITER_WAIT_MARKER_EXPIRE_MILLIS)));
+                logger.debug("redis acquire write lock key:{} value:{} expireAt:{} resp:{}", lockKey, lockValue, expireAtMilliseconds, object);
+                if (object instanceof Long && (Long) object == 1L) {
+                    acquired[0] = new LockStatus(expireAtMilliseconds, lockKey, lockValue, true, owner, redisLock.getLeaseMillis(), LockType.WRITE, Collections.singletonList(lockKey));
+                    return true;
+                }
+            } catch (Exception e) {
+                logger.warn("tryWriteLock failed. lockKey:{}, lockValue:{}", lockKey, lockValue, e);
+            }
+            return false;
+        });
+        if (!success) {
+            return null;
+        }
+        redisLock.addLockStatus(acquired[0]);
+        return lockValue;
+    }
+
+    /**
+     * 写锁释放
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @return 锁释放结果
+     */
+    public boolean releaseWriteLock(String lockKey, String lockValue) {
+        return this.releaseWriteLock(lockKey, lockValue, LockOwner.currentThread());
+    }
+
+    /**
+     * 由指定持有者释放写锁
+     *
+     * @param lockKey   redis lock key
+     * @param lockValue redis lock value
+     * @param owner     锁持有者
+     * @return 锁释放结果
+     */
+    public boolean releaseWriteLock(String lockKey, String lockValue, LockOwner owner) {
+        if (StringUtils.isAnyBlank(lockKey, lockValue)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey + "lockValue:" + lockValue);
+        }
+        LockStatus lockStatus = redisLock.getLockStatus(LockType.WRITE, lockKey);
+        if (lockStatus == null || !lockStatus.isOwnedBy(owner)) {
+            logger.warn("release write lock failed. the lock can only be released by it's owner. lockKey:{},lockValue:{}", lockKey, lockValue);
+            return false;
+        } else if (!Objects.equals(lockValue, lockStatus.getLockValue())) {
+            logger.warn("releaseWriteLock failed. invalid lockValue. key:{} inputValue:{} acquiredValue:{}", lockKey, lockValue, lockStatus.getLockValue());
+            return false;
+        }
+        if (lockStatus.decrHoldCount() > 0) {
+            return true;
+        }
+        return redisLock.deleteLock(lockStatus);
+    }
+
+    /**
+     * 查找持有者已获取的读锁，同时清理已被看门狗释放的记录
+     *
+     * @param lockValue 为null时不校验锁标识
+     */
+    private LockStatus findReadLockStatus(String lockKey, LockOwner owner, String lockValue) {
+        Set<LockStatus> statuses = readLockStatuses.get(lockKey);
+        if (statuses == null) {
+            return null;
+        }
+        LockStatus found = null;
+        for (LockStatus lockStatus : statuses) {
+            if (redisLock.getLockStatus(LockType.READ, lockStatus.getLockKey()) != lockStatus) {
+                statuses.remove(lockStatus);
+            } else if (lockStatus.isOwnedBy(owner) && (lockValue == null || lockValue.equals(lockStatus.getLockValue()))) {
+                found = lockStatus;
+            }
+        }
+        if (statuses.isEmpty()) {
+            readLockStatuses.computeIfPresent(lockKey, (key, current) -> current.isEmpty() ? null : current);
+        }
+        return found;
+    }
+
+    /**
+     * 锁key及写锁等待标记key（仅写锁优先时需要，无法与锁key位于同一slot时忽略）
+     */
+    private List<String> lockKeys(String lockKey) {
+        String markerKey = writerPreferred ? LockKeys.colocatedKey(lockKey, ":wwait") : null;
+        if (markerKey == null) {
+            return Collections.singletonList(lockKey);
+        }
+        List<String> keys = new ArrayList<>(2);
+        keys.add(lockKey);
+        keys.add(markerKey);
+        return keys;
+    }
+
+    private static void checkLockKey(String lockKey) {
+        if (StringUtils.isBlank(lockKey)) {
+            throw new IllegalArgumentException("blank argument founded. lockKey:" + lockKey);
+        }
+    }
+}
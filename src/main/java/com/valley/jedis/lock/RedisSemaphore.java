@@ -0,0 +1,130 @@
+package com.valley.jedis.lock;
+
+import com.valley.jedis.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于{@link RedisLock}实现的分布式信号量
+ * <P>支持功能&实现原理：</P>
+ * <ul>
+ *     <li>租约：许可以zset存储，member为租约标识，score为租约过期时间，获取许可时先清理过期租约，无论许可总数多少均只需一次脚本调用</li>
+ *     <li>时钟：租约过期时间由脚本以redis服务端时间计算，客户端只传入租约时长，各客户端时钟偏差不影响租约有效期</li>
+ *     <li>自动续期：租约登记到{@link RedisLock}的看门狗，与其他锁一起批量续期，持有者崩溃后由看门狗释放或到期后被清理</li>
+ * </ul>
+ *
+ * <P>注意事项</P>
+ * <ul>
+ *     <li>许可总数以每次获取时传入的值为准，同一信号量的所有使用方应使用相同的许可总数</li>
+ *     <li>信号量不支持重入，同一持有者每次获取都会占用一个新的许可</li>
+ * </ul>
+ */
+public class RedisSemaphore {
+    private static final Logger logger = LoggerFactory.getLogger(RedisSemaphore.class);
+
+    private final RedisLock redisLock;
+
+    private final String semaphoreKey;
+
+    private final int permits;
+
+    /**
+     * @param redisLock    共享看门狗及redis连接
+     * @param semaphoreKey redis semaphore key
+     * @param permits      许可总数
+     */
+    public RedisSemaphore(RedisLock redisLock, String semaphoreKey, int permits) {
+        if (StringUtils.isBlank(semaphoreKey)) {
+            throw new IllegalArgumentException("blank argument founded. semaphoreKey:" + semaphoreKey);
+        }
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive. permits:" + permits);
+        }
+        this.redisLock = Objects.requireNonNull(redisLock, "redisLock");
+        this.semaphoreKey = semaphoreKey;
+        this.permits = permits;
+    }
+
+    /**
+     * 获取许可
+     * <p>许可将自动续期，直至调用{@link #release(String)}或获取许可的线程崩溃。</p>
+     *
+     * @param waitSeconds 获取许可动作超时时间
+     * @return 获取成功时返回租约标识，失败时返回null
+     */
+    public String tryAcquire(long waitSeconds) {
+        return this.tryAcquire(waitSeconds, LockOwner.currentThread());
+    }
+
+    /**
+     * 以指定持有者获取许可
+     *
+     * @param waitSeconds 获取许可动作超时时间
+     * @param owner       许可持有者，持有者不再存活时许可由看门狗释放
+     * @return 获取成功时返回租约标识，失败时返回null
+     */
+    public String tryAcquire(long waitSeconds, LockOwner owner) {
+        Objects.requireNonNull(owner, "owner");
+        long tryAcquireBefore = System.currentTimeMillis() + waitSeconds * 1000L;
+        String leaseId = RedisLock.newLockValue();
+        List<String> keys = Collections.singletonList(semaphoreKey);
+        LockStatus[] acquired = new LockStatus[1];
+        boolean success = redisLock.retryUntil(tryAcquireBefore, () -> {
+            long leaseMillis = redisLock.getLeaseMillis();
+            try {
+                Object object = LockConfig.ACQUIRE_SEMAPHORE_SCRIPT.eval(redisLock.getUnifiedJedis(), keys,
+                        Arrays.asList(leaseId, String.valueOf(leaseMillis), String.valueOf(permits)));
+                logger.debug("redis acquire semaphore key:{} lease:{} leaseMillis:{} resp:{}", semaphoreKey, leaseId, leaseMillis, object);
+                if (object instanceof Long && (Long) object == 1L) {
+                    //本地过期时间仅用于看门狗调度
+                    long expireAtMilliseconds = System.currentTimeMillis() + leaseMillis;
+                    acquired[0] = new LockStatus(expireAtMilliseconds, statusKey(leaseId), leaseId, true, owner, redisLock.getLeaseMillis(), LockType.SEMAPHORE, keys);
+                    return true;
+                }
+            } catch (Exception e) {
+                logger.warn("tryAcquire failed. semaphoreKey:{}, lease:{}", semaphoreKey, leaseId, e);
+            }
+            return false;
+        });
+        if (!success) {
+            return null;
+        }
+        redisLock.addLockStatus(acquired[0]);
+        return leaseId;
+    }
+
+    /**
+     * 释放许可，不校验持有者
+     *
+     * @param leaseId 租约标识
+     * @return 释放结果，租约已过期或已释放时返回false
+     */
+    public boolean release(String leaseId) {
+        if (StringUtils.isBlank(leaseId)) {
+            throw new IllegalArgumentException("blank argument founded. semaphoreKey:" + semaphoreKey + "leaseId:" + leaseId);
+        }
+        LockStatus lockStatus = redisLock.getLockStatus(LockType.SEMAPHORE, statusKey(leaseId));
+        if (lockStatus == null) {
+            logger.warn("release semaphore failed. lease not found. semaphoreKey:{},lease:{}", semaphoreKey, leaseId);
+            return false;
+        }
+        return redisLock.deleteLock(lockStatus);
+    }
+
+    public String getSemaphoreKey() {
+        return semaphoreKey;
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    private String statusKey(String leaseId) {
+        return semaphoreKey + ":" + leaseId;
+    }
+}
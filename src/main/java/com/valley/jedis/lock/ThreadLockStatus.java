@@ -1,30 +0,0 @@
-package com.valley.jedis.lock;
-
-class ThreadLockStatus {
-    private long lockCount;
-    private final String lockValue;
-
-    public ThreadLockStatus(String lockValue) {
-        this.lockValue = lockValue;
-    }
-
-    public long incrLockCount() {
-        return ++lockCount;
-    }
-
-    public long decrLockCount() {
-        return --lockCount;
-    }
-
-    public String getLockValue() {
-        return lockValue;
-    }
-
-    @Override
-    public String toString() {
-        return "ThreadLockStatus{" +
-                "lockCount=" + lockCount +
-                ", lockValue='" + lockValue + '\'' +
-                '}';
-    }
-}
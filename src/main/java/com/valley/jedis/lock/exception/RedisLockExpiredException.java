@@ -1,4 +1,14 @@
 package com.valley.jedis.lock.exception;
 
+/**
+ * 锁已过期或已被其他持有者获取
+ */
 public class RedisLockExpiredException extends RuntimeException {
+
+    public RedisLockExpiredException() {
+    }
+
+    public RedisLockExpiredException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,11 @@
+package com.valley.jedis.lock.exception;
+
+/**
+ * 等待超时未获取到锁
+ */
+public class RedisLockTimeoutException extends RuntimeException {
+
+    public RedisLockTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+package com.valley.jedis.metrics;
+
+/**
+ * 锁指标采集接口
+ * <p>所有方法在加锁/释放锁/看门狗线程中同步调用，参数均为基本类型，实现类应避免在记录时分配对象或阻塞。</p>
+ * <p>默认实现{@link #NOOP}不做任何记录；引入micrometer时可使用{@link com.valley.jedis.metrics.micrometer.MicrometerLockMetrics}。</p>
+ */
+public interface LockMetrics {
+
+    LockMetrics NOOP = new LockMetrics() {
+    };
+
+    /**
+     * 一次加锁请求结束（不含重入）
+     *
+     * @param waitNanos 加锁耗时
+     * @param attempts  访问redis尝试加锁的次数
+     * @param acquired  是否获取成功
+     */
+    default void recordAcquire(long waitNanos, int attempts, boolean acquired) {
+    }
+
+    /**
+     * 锁重入
+     */
+    default void recordReentry() {
+    }
+
+    /**
+     * 锁释放（包括看门狗清理持有者已失效的锁）
+     *
+     * @param holdNanos 从获取到释放的持有时长
+     */
+    default void recordHold(long holdNanos) {
+    }
+
+    /**
+     * 看门狗完成一次检查
+     *
+     * @param durationNanos 本次检查及续期耗时
+     * @param lagMillis     相对计划执行时间的延迟
+     * @param dueLocks      本次到期需要处理的锁数量
+     */
+    default void recordWatchdogPass(long durationNanos, long lagMillis, int dueLocks) {
+    }
+
+    /**
+     * 续期请求异常（网络异常等），将在{@link com.valley.jedis.lock.LockConfig#WATCHDOG_RETRY_MILLIS}后重试
+     *
+     * @param locks 受影响的锁数量
+     */
+    default void recordRenewalFailure(int locks) {
+    }
+
+    /**
+     * 续期时发现锁已丢失（已过期或被其他持有者获取）
+     */
+    default void recordLockLost() {
+    }
+}
@@ -0,0 +1,114 @@
+package com.valley.jedis.metrics.micrometer;
+
+import com.valley.jedis.client.factory.PoolStats;
+import com.valley.jedis.client.factory.RedisFactory;
+import com.valley.jedis.metrics.LockMetrics;
+import io.micrometer.core.instrument.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 基于micrometer的锁指标实现
+ * <p>所有meter在构造时注册，记录时不再查找或创建meter。</p>
+ */
+public class MicrometerLockMetrics implements LockMetrics {
+    private static final String PREFIX = "redis.lock";
+
+    private final Timer acquired;
+    private final Timer timeout;
+    private final DistributionSummary attempts;
+    private final Counter reentry;
+    private final Timer hold;
+    private final Timer watchdogPass;
+    private final DistributionSummary watchdogLag;
+    private final DistributionSummary watchdogDue;
+    private final Counter renewalFailures;
+    private final Counter lost;
+
+    public MicrometerLockMetrics(MeterRegistry registry) {
+        this(registry, Tags.empty());
+    }
+
+    /**
+     * @param registry meter registry
+     * @param tags     附加到所有meter的tag，如区分多个RedisLock实例
+     */
+    public MicrometerLockMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+        this.acquired = Timer.builder(PREFIX + ".acquire").tags(tags).tag("result", "acquired")
+                .description("lock acquire latency").publishPercentileHistogram().register(registry);
+        this.timeout = Timer.builder(PREFIX + ".acquire").tags(tags).tag("result", "timeout")
+                .description("lock acquire latency").publishPercentileHistogram().register(registry);
+        this.attempts = DistributionSummary.builder(PREFIX + ".acquire.attempts").tags(tags)
+                .description("redis attempts per acquire").register(registry);
+        this.reentry = Counter.builder(PREFIX + ".reentry").tags(tags).register(registry);
+        this.hold = Timer.builder(PREFIX + ".hold").tags(tags)
+                .description("lock hold time").publishPercentileHistogram().register(registry);
+        this.watchdogPass = Timer.builder(PREFIX + ".watchdog.pass").tags(tags).register(registry);
+        this.watchdogLag = DistributionSummary.builder(PREFIX + ".watchdog.lag").tags(tags).baseUnit("milliseconds").register(registry);
+        this.watchdogDue = DistributionSummary.builder(PREFIX + ".watchdog.due").tags(tags)
+                .description("locks due per watchdog pass").register(registry);
+        this.renewalFailures = Counter.builder(PREFIX + ".renewal.failures").tags(tags).register(registry);
+        this.lost = Counter.builder(PREFIX + ".lost").tags(tags).register(registry);
+    }
+
+    @Override
+    public void recordAcquire(long waitNanos, int attempts, boolean acquired) {
+        (acquired ? this.acquired : this.timeout).record(waitNanos, TimeUnit.NANOSECONDS);
+        this.attempts.record(attempts);
+    }
+
+    @Override
+    public void recordReentry() {
+        reentry.increment();
+    }
+
+    @Override
+    public void recordHold(long holdNanos) {
+        hold.record(holdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordWatchdogPass(long durationNanos, long lagMillis, int dueLocks) {
+        watchdogPass.record(durationNanos, TimeUnit.NANOSECONDS);
+        watchdogLag.record(lagMillis);
+        watchdogDue.record(dueLocks);
+    }
+
+    @Override
+    public void recordRenewalFailure(int locks) {
+        renewalFailures.increment(locks);
+    }
+
+    @Override
+    public void recordLockLost() {
+        lost.increment();
+    }
+
+    /**
+     * 注册连接池指标，每个节点一组gauge，节点以node tag区分
+     * <p>gauge仅在采集时读取{@link RedisFactory#getPoolStats()}，集群拓扑变化后新增的节点需重新注册。</p>
+     *
+     * @param registry meter registry
+     * @param name     连接池名称，作为pool tag
+     * @param factory  redis factory
+     */
+    public static void bindPoolStats(MeterRegistry registry, String name, RedisFactory factory) {
+        for (String node : factory.getPoolStats().keySet()) {
+            Tags tags = Tags.of("pool", name, "node", node);
+            poolGauge(registry, "redis.pool.active", tags, factory, node, PoolStats::getNumActive);
+            poolGauge(registry, "redis.pool.idle", tags, factory, node, PoolStats::getNumIdle);
+            poolGauge(registry, "redis.pool.waiters", tags, factory, node, PoolStats::getNumWaiters);
+            poolGauge(registry, "redis.pool.max", tags, factory, node, PoolStats::getMaxTotal);
+            poolGauge(registry, "redis.pool.borrow.wait.mean", tags, factory, node, PoolStats::getMeanBorrowWaitMillis);
+            poolGauge(registry, "redis.pool.borrow.wait.max", tags, factory, node, PoolStats::getMaxBorrowWaitMillis);
+        }
+    }
+
+    private static void poolGauge(MeterRegistry registry, String name, Tags tags, RedisFactory factory, String node, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(name, factory, f -> {
+            PoolStats poolStats = f.getPoolStats().get(node);
+            return poolStats == null ? Double.NaN : value.applyAsDouble(poolStats);
+        }).tags(tags).register(registry);
+    }
+}
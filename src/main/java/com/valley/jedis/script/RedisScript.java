@@ -0,0 +1,147 @@
+package com.valley.jedis.script;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * lua脚本
+ * <p>本地预先计算脚本SHA1，执行时通过EVALSHA仅发送摘要。节点返回NOSCRIPT时（首次访问、重启、哨兵主从切换、集群新增节点等）
+ * 通过SCRIPT LOAD将脚本加载到key所在节点后重试，因此每个节点只需加载一次。</p>
+ * <p>业务自定义脚本同样可以通过此类执行。</p>
+ */
+public class RedisScript {
+    private static final Logger logger = LoggerFactory.getLogger(RedisScript.class);
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String script;
+    private final String sha1;
+    private final byte[] scriptBytes;
+    private final byte[] sha1Bytes;
+
+    public RedisScript(String script) {
+        if (script == null || script.isEmpty()) {
+            throw new IllegalArgumentException("script must not be empty");
+        }
+        this.script = script;
+        this.sha1 = sha1Hex(script);
+        this.scriptBytes = SafeEncoder.encode(script);
+        this.sha1Bytes = SafeEncoder.encode(sha1);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param unifiedJedis unifiedJedis
+     * @param keys         KEYS，至少包含一个key，集群模式下用于路由
+     * @param args         ARGV
+     * @return 脚本执行结果
+     */
+    public Object eval(UnifiedJedis unifiedJedis, List<String> keys, List<String> args) {
+        try {
+            return unifiedJedis.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            load(unifiedJedis, keys.get(0));
+            return unifiedJedis.evalsha(sha1, keys, args);
+        }
+    }
+
+    /**
+     * 以二进制参数执行脚本，参数已编码时避免重复编码
+     *
+     * @param unifiedJedis unifiedJedis
+     * @param keys         KEYS，至少包含一个key，集群模式下用于路由
+     * @param args         ARGV
+     * @return 脚本执行结果，字符串结果以byte[]返回
+     */
+    public Object evalBinary(UnifiedJedis unifiedJedis, List<byte[]> keys, List<byte[]> args) {
+        try {
+            return unifiedJedis.evalsha(sha1Bytes, keys, args);
+        } catch (JedisNoScriptException e) {
+            load(unifiedJedis, keys.get(0));
+            return unifiedJedis.evalsha(sha1Bytes, keys, args);
+        }
+    }
+
+    /**
+     * 以二进制参数在pipeline中执行脚本，节点缺失脚本时响应抛出异常，由调用方通过{@link #evalScriptBinary(AbstractPipeline, List, List)}重试
+     */
+    public Response<Object> evalBinary(AbstractPipeline pipeline, List<byte[]> keys, List<byte[]> args) {
+        return pipeline.evalsha(sha1Bytes, keys, args);
+    }
+
+    /**
+     * 以脚本原文在pipeline中执行，节点执行的同时缓存脚本，用于缺失脚本后的重试
+     */
+    public Response<Object> evalScriptBinary(AbstractPipeline pipeline, List<byte[]> keys, List<byte[]> args) {
+        return pipeline.eval(scriptBytes, keys, args);
+    }
+
+    /**
+     * 将脚本加载到sampleKey所在节点
+     *
+     * @param unifiedJedis unifiedJedis
+     * @param sampleKey    用于路由的key
+     */
+    public void load(UnifiedJedis unifiedJedis, String sampleKey) {
+        String loadedSha1 = unifiedJedis.scriptLoad(script, sampleKey);
+        logger.debug("script loaded. sha1:{} sampleKey:{}", loadedSha1, sampleKey);
+    }
+
+    /**
+     * 将脚本加载到sampleKey所在节点
+     *
+     * @param unifiedJedis unifiedJedis
+     * @param sampleKey    用于路由的key
+     */
+    public void load(UnifiedJedis unifiedJedis, byte[] sampleKey) {
+        unifiedJedis.scriptLoad(scriptBytes, sampleKey);
+        logger.debug("script loaded. sha1:{}", sha1);
+    }
+
+    /**
+     * 判断异常是否由节点缺失脚本引起
+     */
+    public static boolean isNoScript(Throwable e) {
+        return e instanceof JedisNoScriptException;
+    }
+
+    private static String sha1Hex(String script) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[digest[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return "RedisScript{" +
+                "sha1='" + sha1 + '\'' +
+                '}';
+    }
+}
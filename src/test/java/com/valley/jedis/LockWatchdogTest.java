@@ -0,0 +1,109 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockConfig;
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.LockWatchdog;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LockWatchdogTest {
+    private LocalRedisStandIn redis;
+    private UnifiedJedis jedis;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        jedis = redis.newClient();
+    }
+
+    @Test
+    public void instancesShareWatchdogThreads() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger renewalTasks = new AtomicInteger();
+        ExecutorService renewalExecutor = Executors.newFixedThreadPool(2);
+        LockWatchdog watchdog = new LockWatchdog(scheduler, task -> {
+            renewalTasks.incrementAndGet();
+            renewalExecutor.execute(task);
+        });
+        RedisLock[] redisLocks = new RedisLock[20];
+        String[] lockValues = new String[redisLocks.length];
+        for (int i = 0; i < redisLocks.length; i++) {
+            redisLocks[i] = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, LockConfig.MIN_LEASE_MILLIS, watchdog);
+            lockValues[i] = redisLocks[i].tryLock("watchdog:" + i, 0);
+            Assert.assertNotNull(lockValues[i]);
+        }
+
+        //所有实例的锁均由共享看门狗续期
+        Thread.sleep(2500L);
+        Assert.assertTrue(renewalTasks.get() >= redisLocks.length);
+        for (int i = 0; i < redisLocks.length; i++) {
+            Assert.assertEquals(lockValues[i], redis.get("watchdog:" + i));
+            redisLocks[i].close();
+        }
+        scheduler.shutdownNow();
+        renewalExecutor.shutdownNow();
+    }
+
+    @Test
+    public void closeReleasesHeldLocks() {
+        RedisLock redisLock = new RedisLock(() -> jedis);
+        String lockValue = redisLock.tryLock("watchdog:close", 0);
+        Assert.assertNotNull(lockValue);
+        Assert.assertTrue(redis.exists("watchdog:close"));
+
+        redisLock.close();
+        Assert.assertTrue(redisLock.isClosed());
+        Assert.assertFalse(redis.exists("watchdog:close"));
+        try {
+            redisLock.tryLock("watchdog:close", 0);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            //关闭后不能再获取锁
+        }
+        //重复关闭无副作用
+        redisLock.close();
+    }
+
+    @Test
+    public void releaseDuringRenewalIsNotLost() throws InterruptedException {
+        RedisLock redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, 1000L);
+        AtomicInteger lost = new AtomicInteger();
+        redisLock.addLockLostListener((lockKey, lockValue) -> lost.incrementAndGet());
+        LockOwner owner = LockOwner.of("renewal-race");
+        String[] lockValue = new String[1];
+        AtomicBoolean released = new AtomicBoolean();
+        CountDownLatch renewed = new CountDownLatch(1);
+        redis.registerScript(LockConfig.PROLONG_LOCK_SCRIPT, (r, keys, args) -> {
+            //续期请求到达redis前，持有者已释放锁
+            if (released.compareAndSet(false, true)) {
+                redisLock.releaseLock("watchdog:race", lockValue[0], owner);
+            }
+            renewed.countDown();
+            if (args.get(0).equals(r.get(keys.get(0)))) {
+                return r.pexpireAt(keys.get(0), r.now() + Long.parseLong(args.get(1)));
+            }
+            return 0L;
+        });
+        lockValue[0] = redisLock.tryLock("watchdog:race", 0, -1L, owner);
+        Assert.assertNotNull(lockValue[0]);
+
+        Assert.assertTrue(renewed.await(2, TimeUnit.SECONDS));
+        Thread.sleep(200L);
+        Assert.assertFalse(redis.exists("watchdog:race"));
+        Assert.assertEquals(0, lost.get());
+    }
+}
@@ -0,0 +1,159 @@
+package com.valley.jedis;
+
+import com.valley.jedis.client.batch.RedisBatchExecutor;
+import com.valley.jedis.lock.LockConfig;
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.LockWatchdog;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+public class RedisBatchExecutorTest {
+    private LocalRedisStandIn redis;
+    private UnifiedJedis jedis;
+    private RedisBatchExecutor batchExecutor;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        jedis = redis.newClient();
+        batchExecutor = new RedisBatchExecutor(() -> jedis, 64, 2000L, 1);
+    }
+
+    @After
+    public void after() {
+        batchExecutor.close();
+    }
+
+    @Test
+    public void concurrentCommandsBatched() throws InterruptedException {
+        int threads = 8;
+        int commandsPerThread = 50;
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> submitters = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            Thread submitter = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < commandsPerThread; j++) {
+                    String key = "batch:" + thread + ":" + j;
+                    batchExecutor.submit(pipeline -> pipeline.set(key, key));
+                    synchronized (futures) {
+                        futures.add(batchExecutor.submit(pipeline -> pipeline.get(key)));
+                    }
+                }
+            });
+            submitter.start();
+            submitters.add(submitter);
+        }
+        start.countDown();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        Assert.assertEquals(threads * commandsPerThread, futures.size());
+        for (CompletableFuture<String> future : futures) {
+            Assert.assertTrue(future.join().startsWith("batch:"));
+        }
+        //同一线程提交的命令按顺序执行，不同线程的命令合并为少量pipeline
+        Assert.assertEquals(threads * commandsPerThread * 2, batchExecutor.getCommandCount());
+        Assert.assertTrue(batchExecutor.getBatchCount() < batchExecutor.getCommandCount() / 4);
+    }
+
+    @Test
+    public void failedCommandIsolated() {
+        redis.set("batch:ok", "value", 0L);
+        CompletableFuture<String> before = batchExecutor.submit(pipeline -> pipeline.get("batch:ok"));
+        CompletableFuture<String> unsupported = batchExecutor.submit(pipeline -> pipeline.hget("batch:hash", "field"));
+        CompletableFuture<String> broken = batchExecutor.submit(pipeline -> {
+            throw new IllegalArgumentException("broken command");
+        });
+        CompletableFuture<String> after = batchExecutor.submit(pipeline -> pipeline.get("batch:ok"));
+
+        Assert.assertEquals("value", before.join());
+        Assert.assertEquals("value", after.join());
+        try {
+            batchExecutor.execute(pipeline -> pipeline.hget("batch:hash", "field"));
+            Assert.fail();
+        } catch (JedisDataException e) {
+            //命令失败时抛出原始异常
+        }
+        Assert.assertTrue(unsupported.isCompletedExceptionally());
+        try {
+            broken.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void lockThroughBatchExecutor() {
+        RedisLock redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP,
+                LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS, LockWatchdog.shared(), batchExecutor);
+        String lockValue = redisLock.tryLock("batch:lock", 0);
+        Assert.assertNotNull(lockValue);
+        Assert.assertEquals(lockValue, redis.get("batch:lock"));
+        Assert.assertNull(redisLock.tryLock("batch:lock", 0, 10L, LockOwner.of("other")));
+        long batchCount = batchExecutor.getBatchCount();
+
+        //节点脚本缓存丢失时释放脚本加载后重试
+        redis.flushScripts();
+        Assert.assertTrue(redisLock.releaseLock("batch:lock", lockValue));
+        Assert.assertFalse(redis.exists("batch:lock"));
+        Assert.assertTrue(batchExecutor.getBatchCount() > batchCount);
+        redisLock.close();
+    }
+
+    @Test
+    public void noScriptRetryRequeued() {
+        int locks = 16;
+        List<List<byte[]>> args = new ArrayList<>();
+        for (int i = 0; i < locks; i++) {
+            redis.set("batch:noscript:" + i, "value" + i, 0L);
+            args.add(Collections.singletonList(SafeEncoder.encode("value" + i)));
+        }
+        redis.flushScripts();
+        long redisCommands = redis.getCommandCount();
+        long batchCommands = batchExecutor.getCommandCount();
+
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < locks; i++) {
+            futures.add(batchExecutor.evalBinary(LockConfig.RELEASE_LOCK_SCRIPT,
+                    Collections.singletonList(SafeEncoder.encode("batch:noscript:" + i)), args.get(i)));
+        }
+        for (CompletableFuture<Object> future : futures) {
+            Assert.assertEquals(1L, future.join());
+        }
+        //缺失脚本的命令以EVAL重新入队批量执行，刷新线程上没有逐个SCRIPT LOAD+EVALSHA的同步往返
+        Assert.assertEquals(locks * 2, batchExecutor.getCommandCount() - batchCommands);
+        Assert.assertEquals(locks * 2, redis.getCommandCount() - redisCommands);
+        Assert.assertFalse(redis.exists("batch:noscript:0"));
+    }
+
+    @Test
+    public void closedExecutorRejects() {
+        batchExecutor.close();
+        Assert.assertTrue(batchExecutor.isClosed());
+        Assert.assertTrue(batchExecutor.submit(pipeline -> pipeline.get("batch:closed")).isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,80 @@
+package com.valley.jedis;
+
+import com.valley.jedis.client.factory.SimpleRedisFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 工厂共享客户端，创建连接池时不建立连接，无需redis服务
+ */
+public class RedisFactoryRegistryTest {
+    /**
+     * 仅由当前用例使用的配置，保证引用计数不受其他用例影响
+     */
+    private static final String REGISTRY_CONFIG = "registryJedis.properties";
+
+    @Test
+    public void factoriesShareClient() {
+        SimpleRedisFactory first = new SimpleRedisFactory("jedis.properties");
+        SimpleRedisFactory second = new SimpleRedisFactory();
+        UnifiedJedis unifiedJedis = first.getUnifiedJedis();
+        Assert.assertSame(unifiedJedis, second.getUnifiedJedis());
+
+        //仍有其他引用时不关闭客户端
+        first.close();
+        first.close();
+        Assert.assertSame(unifiedJedis, second.getUnifiedJedis());
+        Assert.assertSame(unifiedJedis, new SimpleRedisFactory().getUnifiedJedis());
+    }
+
+    @Test
+    public void clientRecreatedAfterAllClosed() {
+        SimpleRedisFactory first = new SimpleRedisFactory(REGISTRY_CONFIG);
+        SimpleRedisFactory second = new SimpleRedisFactory(REGISTRY_CONFIG);
+        UnifiedJedis unifiedJedis = first.getUnifiedJedis();
+        first.close();
+        second.close();
+
+        //所有引用释放后连接池已关闭，再次获取时重新创建
+        try (SimpleRedisFactory third = new SimpleRedisFactory(REGISTRY_CONFIG)) {
+            Assert.assertNotSame(unifiedJedis, third.getUnifiedJedis());
+        }
+    }
+
+    @Test
+    public void concurrentCreationBuildsOnce() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SimpleRedisFactory>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return new SimpleRedisFactory("jedis.properties");
+            }));
+        }
+        start.countDown();
+        Set<UnifiedJedis> clients = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<SimpleRedisFactory> future : futures) {
+            clients.add(future.get().getUnifiedJedis());
+        }
+        Assert.assertEquals(1, clients.size());
+        executor.shutdownNow();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingConfigFile() {
+        new SimpleRedisFactory("missing.properties");
+    }
+}
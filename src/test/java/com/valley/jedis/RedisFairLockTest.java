@@ -0,0 +1,95 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.RedisFairLock;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RedisFairLockTest {
+    private static final String LOCK_KEY = "fair:order";
+
+    private LocalRedisStandIn redis;
+    private RedisFairLock fairLock;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        fairLock = new RedisFairLock(new RedisLock(() -> jedis));
+    }
+
+    @Test
+    public void reentry() {
+        String lockValue = fairLock.tryLock(LOCK_KEY, 0);
+        Assert.assertNotNull(lockValue);
+        Assert.assertEquals(lockValue, fairLock.tryLock(LOCK_KEY, 0));
+        Assert.assertNull(fairLock.tryLock(LOCK_KEY, 0, LockOwner.of("other")));
+        Assert.assertTrue(fairLock.releaseLock(LOCK_KEY, lockValue));
+        Assert.assertEquals(lockValue, redis.get(LOCK_KEY));
+        Assert.assertTrue(fairLock.releaseLock(LOCK_KEY, lockValue));
+        //放弃等待的请求已移出队列，释放时直接删除锁
+        Assert.assertFalse(redis.exists(LOCK_KEY));
+    }
+
+    @Test
+    public void waitersAreGrantedInArrivalOrder() throws InterruptedException {
+        LockOwner holder = LockOwner.of("holder");
+        String holderValue = fairLock.tryLock(LOCK_KEY, 0, holder);
+        Assert.assertNotNull(holderValue);
+
+        List<String> grantedOrder = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            String name = "waiter-" + i;
+            new Thread(() -> {
+                LockOwner owner = LockOwner.of(name);
+                String lockValue = fairLock.tryLock(LOCK_KEY, 10, owner);
+                if (lockValue != null) {
+                    grantedOrder.add(name);
+                    fairLock.releaseLock(LOCK_KEY, lockValue, owner);
+                }
+                finished.countDown();
+            }).start();
+            //保证入队顺序
+            Thread.sleep(200L);
+        }
+
+        Assert.assertTrue(fairLock.releaseLock(LOCK_KEY, holderValue, holder));
+        //锁已移交给队首等待者，新请求无法插队
+        Assert.assertNull(fairLock.tryLock(LOCK_KEY, 0, LockOwner.of("barging")));
+
+        Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("waiter-0", "waiter-1", "waiter-2"), grantedOrder);
+        Assert.assertFalse(redis.exists(LOCK_KEY));
+    }
+
+    @Test
+    public void plainLockNamedLikeFairLock() {
+        UnifiedJedis jedis = redis.newClient();
+        RedisLock redisLock = new RedisLock(() -> jedis);
+        RedisFairLock sharedFairLock = new RedisFairLock(redisLock);
+        String fairValue = sharedFairLock.tryLock("order", 0);
+        Assert.assertNotNull(fairValue);
+
+        //同一线程申请普通锁"fair:order"不能命中公平锁的重入
+        String plainValue = redisLock.tryLock("fair:order", 0);
+        Assert.assertNotNull(plainValue);
+        Assert.assertNotEquals(fairValue, plainValue);
+        Assert.assertEquals(plainValue, redis.get("fair:order"));
+
+        Assert.assertTrue(redisLock.releaseLock("fair:order", plainValue));
+        Assert.assertEquals(fairValue, redis.get("order"));
+        Assert.assertTrue(sharedFairLock.releaseLock("order", fairValue));
+        Assert.assertFalse(redis.exists("order"));
+    }
+}
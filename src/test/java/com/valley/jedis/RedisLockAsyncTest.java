@@ -0,0 +1,116 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RedisLockAsyncTest {
+
+    @Test
+    public void cancelledDuringAcquireIsReleased() throws Exception {
+        CountDownLatch submitted = new CountDownLatch(1);
+        CompletableFuture<?>[] future = new CompletableFuture<?>[1];
+        LocalRedisStandIn redis = new LocalRedisStandIn() {
+            @Override
+            public <T> T executeCommand(CommandObject<T> commandObject) {
+                T result = super.executeCommand(commandObject);
+                if (commandObject.getArguments().getCommand() == Protocol.Command.SET) {
+                    //加锁命令已执行成功，返回前future被取消
+                    try {
+                        submitted.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    future[0].cancel(false);
+                }
+                return result;
+            }
+        };
+        UnifiedJedis jedis = redis.newClient();
+        RedisLock redisLock = new RedisLock(() -> jedis);
+        future[0] = redisLock.tryLockAsync("async:cancel", 1);
+        submitted.countDown();
+
+        long deadline = System.currentTimeMillis() + 2000L;
+        while ((!future[0].isCancelled() || redis.exists("async:cancel")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assert.assertTrue(future[0].isCancelled());
+        Assert.assertFalse(redis.exists("async:cancel"));
+        //本地锁状态同时移除，其他持有者可立即获取
+        Assert.assertNotNull(redisLock.tryLock("async:cancel", 0));
+    }
+
+    @Test
+    public void outlivesSubmittingThread() throws Exception {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        RedisLock redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, 1000L);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        //提交线程交给后续回调后立即结束
+        Thread submitter = new Thread(() -> redisLock.tryLockAsync("async:handoff", 1).whenComplete((v, e) -> future.complete(v)));
+        submitter.start();
+        submitter.join();
+        String lockValue = future.get(2, TimeUnit.SECONDS);
+        Assert.assertNotNull(lockValue);
+
+        //默认不随提交线程结束释放
+        Thread.sleep(1500L);
+        Assert.assertEquals(lockValue, redis.get("async:handoff"));
+        Assert.assertTrue(redisLock.releaseLockAsync("async:handoff", lockValue).get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void releasedWithSubmittingThreadWhenOptedIn() throws Exception {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        RedisLock redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, 1000L);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Thread submitter = new Thread(() -> redisLock.tryLockAsync("async:thread", 1, -1L, LockOwner.currentThread())
+                .whenComplete((v, e) -> future.complete(v)));
+        submitter.start();
+        submitter.join();
+        Assert.assertNotNull(future.get(2, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + 3000L;
+        while (redis.exists("async:thread") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20L);
+        }
+        Assert.assertFalse(redis.exists("async:thread"));
+    }
+
+    @Test
+    public void releasedWhenOwnerDies() throws Exception {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        RedisLock redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, 1000L);
+        AtomicBoolean alive = new AtomicBoolean(true);
+        String lockValue = redisLock.tryLockAsync("async:owner", 1, -1L, LockOwner.of("request-1", alive::get)).get(2, TimeUnit.SECONDS);
+        Assert.assertNotNull(lockValue);
+
+        //持有者存活期间持续续期
+        Thread.sleep(1500L);
+        Assert.assertEquals(lockValue, redis.get("async:owner"));
+        //异步获取的锁不能通过持有者重入
+        Assert.assertNull(redisLock.tryLock("async:owner", 0, -1L, LockOwner.of("request-1")));
+
+        alive.set(false);
+        long deadline = System.currentTimeMillis() + 3000L;
+        while (redis.exists("async:owner") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20L);
+        }
+        Assert.assertFalse(redis.exists("async:owner"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockHandle;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.lock.exception.RedisLockExpiredException;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RedisLockFencingTest {
+    private LocalRedisStandIn redis;
+    private UnifiedJedis jedis;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        jedis = redis.newClient();
+    }
+
+    @Test
+    public void fencingTokenIncreases() {
+        RedisLock redisLock = new RedisLock(() -> jedis);
+        long lastToken = 0L;
+        for (int i = 0; i < 3; i++) {
+            try (LockHandle lockHandle = redisLock.tryFencedLock("fencing:order", 0)) {
+                Assert.assertNotNull(lockHandle);
+                Assert.assertTrue(lockHandle.getFencingToken() > lastToken);
+                lastToken = lockHandle.getFencingToken();
+
+                //重入沿用首次加锁时的token
+                try (LockHandle inner = redisLock.tryFencedLock("fencing:order", 0)) {
+                    Assert.assertEquals(lastToken, inner.getFencingToken());
+                }
+            }
+        }
+        Assert.assertFalse(redis.exists("fencing:order"));
+
+        //未生成token的锁不支持以fencing方式重入
+        String lockValue = redisLock.tryLock("fencing:plain", 0);
+        try {
+            redisLock.tryFencedLock("fencing:plain", 0);
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            Assert.assertTrue(redisLock.releaseLock("fencing:plain", lockValue));
+        }
+    }
+
+    @Test
+    public void lockLostDetectedByWatchdog() throws InterruptedException {
+        RedisLock redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, 1000L);
+        CountDownLatch lost = new CountDownLatch(1);
+        redisLock.addLockLostListener((lockKey, lockValue) -> {
+            if ("fencing:lost".equals(lockKey)) {
+                lost.countDown();
+            }
+        });
+        LockHandle lockHandle = redisLock.tryFencedLock("fencing:lost", 0);
+        Assert.assertNotNull(lockHandle);
+        lockHandle.ensureHeld();
+
+        //模拟锁过期后被其他进程获取
+        redis.set("fencing:lost", "other", 0L);
+        Assert.assertTrue(lost.await(2, TimeUnit.SECONDS));
+        Assert.assertFalse(lockHandle.isHeld());
+        try {
+            lockHandle.ensureHeld();
+            Assert.fail();
+        } catch (RedisLockExpiredException e) {
+            //锁已丢失
+        }
+        Assert.assertFalse(lockHandle.release());
+        Assert.assertEquals("other", redis.get("fencing:lost"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockHandle;
+import com.valley.jedis.lock.LockKey;
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.lock.exception.RedisLockTimeoutException;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+public class RedisLockHandleTest {
+    private static final String LOCK_KEY = "handle:order";
+
+    private LocalRedisStandIn redis;
+    private RedisLock redisLock;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+    }
+
+    @Test
+    public void releaseOnClose() {
+        LockHandle outer;
+        try (LockHandle lockHandle = redisLock.tryLockHandle(LOCK_KEY, 0)) {
+            Assert.assertNotNull(lockHandle);
+            outer = lockHandle;
+            Assert.assertEquals(lockHandle.getLockValue(), redis.get(LOCK_KEY));
+
+            //重入返回新的句柄，关闭内层句柄后仍持有锁
+            try (LockHandle inner = redisLock.tryLockHandle(LOCK_KEY, 0)) {
+                Assert.assertEquals(lockHandle.getLockValue(), inner.getLockValue());
+            }
+            Assert.assertTrue(lockHandle.isHeld());
+            Assert.assertTrue(redis.exists(LOCK_KEY));
+        }
+        Assert.assertFalse(outer.isHeld());
+        Assert.assertFalse(redis.exists(LOCK_KEY));
+        //重复关闭无副作用
+        Assert.assertFalse(outer.release());
+    }
+
+    @Test
+    public void withLock() {
+        Assert.assertEquals("done", redisLock.withLock(LOCK_KEY, 0, () -> {
+            Assert.assertTrue(redis.exists(LOCK_KEY));
+            return "done";
+        }));
+        Assert.assertFalse(redis.exists(LOCK_KEY));
+
+        LockHandle lockHandle = redisLock.tryLockHandle(LockKey.of(LOCK_KEY), 0, LockOwner.of("other"));
+        Assert.assertNotNull(lockHandle);
+        try {
+            redisLock.withLock(LOCK_KEY, 0, () -> "unreachable");
+            Assert.fail();
+        } catch (RedisLockTimeoutException e) {
+            Assert.assertTrue(lockHandle.release());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockKey;
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.nio.charset.StandardCharsets;
+
+public class RedisLockKeyTest {
+    private LocalRedisStandIn redis;
+    private RedisLock redisLock;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+    }
+
+    @Test
+    public void binaryKeySharesLockWithStringKey() {
+        byte[] rawKey = "order:{42}".getBytes(StandardCharsets.UTF_8);
+        String lockValue = redisLock.tryLock(rawKey, 0);
+        Assert.assertNotNull(lockValue);
+        Assert.assertEquals(lockValue, redis.get("order:{42}"));
+
+        //同内容的字符串key视为同一把锁
+        Assert.assertEquals(lockValue, redisLock.tryLock("order:{42}", 0));
+        Assert.assertNull(redisLock.tryLock(LockKey.of(rawKey), 0, -1L, LockOwner.of("other")));
+        Assert.assertTrue(redisLock.releaseLock("order:{42}", lockValue));
+        Assert.assertTrue(redisLock.releaseLock(rawKey, lockValue));
+        Assert.assertFalse(redis.exists("order:{42}"));
+    }
+
+    @Test
+    public void precomputedKey() {
+        LockKey lockKey = LockKey.of("order:{42}");
+        Assert.assertEquals(lockKey, LockKey.of("order:{42}".getBytes(StandardCharsets.UTF_8)));
+
+        //非UTF-8 key不与任何字符串key冲突
+        byte[] rawKey = {(byte) 0xff, (byte) 0xfe, 1};
+        LockKey binaryKey = LockKey.of(rawKey);
+        Assert.assertNotEquals(new String(rawKey, StandardCharsets.UTF_8), binaryKey.getName());
+        String lockValue = redisLock.tryLock(binaryKey, 0);
+        Assert.assertNotNull(lockValue);
+        Assert.assertEquals(lockValue, redisLock.tryLock(binaryKey, 0));
+        Assert.assertTrue(redisLock.releaseLock(binaryKey, lockValue));
+        Assert.assertTrue(redisLock.releaseLock(binaryKey, lockValue));
+        Assert.assertNotNull(redisLock.tryLock(lockKey, 0));
+    }
+
+    @Test
+    public void utf8Detection() {
+        for (String text : new String[]{"order:1", "订单:1", "emoji:\uD83D\uDE00", "\u07FF\uFFFD"}) {
+            Assert.assertEquals(text, LockKey.of(text.getBytes(StandardCharsets.UTF_8)).getName());
+        }
+        byte[][] invalid = {
+                {(byte) 0xC0, (byte) 0x80},
+                {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+                {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+                {'a', (byte) 0xE4, (byte) 0xB8},
+                {(byte) 0x80},
+        };
+        for (byte[] rawKey : invalid) {
+            //与解码后重新编码的判断结果一致
+            Assert.assertNotEquals(new String(rawKey, StandardCharsets.UTF_8), LockKey.of(rawKey).getName());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockConfig;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.time.Duration;
+
+public class RedisLockLeaseTest {
+    private LocalRedisStandIn redis;
+    private UnifiedJedis jedis;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        jedis = redis.newClient();
+    }
+
+    @Test
+    public void shortLeaseIsRenewedByWatchdog() throws InterruptedException {
+        RedisLock redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, 1000L);
+        String lockValue = redisLock.tryLock("lease:instance", 0);
+        Assert.assertNotNull(lockValue);
+        Assert.assertTrue(redis.pttl("lease:instance") <= 1000L);
+
+        //超过多个租约周期后锁仍被持有
+        Thread.sleep(3000L);
+        Assert.assertEquals(lockValue, redis.get("lease:instance"));
+        Assert.assertTrue(redis.pttl("lease:instance") > 0L);
+        Assert.assertTrue(redisLock.releaseLock("lease:instance", lockValue));
+    }
+
+    @Test
+    public void perLockLease() throws InterruptedException {
+        RedisLock redisLock = new RedisLock(() -> jedis);
+        String shortLease = redisLock.tryLock("lease:short", 0, Duration.ofSeconds(1));
+        String defaultLease = redisLock.tryLock("lease:default", 0);
+        Assert.assertTrue(redis.pttl("lease:short") <= 1000L);
+        Assert.assertTrue(redis.pttl("lease:default") > LockConfig.DEFAULT_REDIS_KEY_EXPIRE_MILLIS - 1000L);
+
+        Thread.sleep(2000L);
+        Assert.assertEquals(shortLease, redis.get("lease:short"));
+        Assert.assertTrue(redisLock.releaseLock("lease:short", shortLease));
+        Assert.assertTrue(redisLock.releaseLock("lease:default", defaultLease));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void leaseBelowMinimum() {
+        new RedisLock(() -> jedis).tryLock("lease:invalid", 0, Duration.ofMillis(LockConfig.MIN_LEASE_MILLIS - 1));
+    }
+}
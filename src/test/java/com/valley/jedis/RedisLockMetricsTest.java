@@ -0,0 +1,45 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.metrics.micrometer.MicrometerLockMetrics;
+import com.valley.jedis.support.LocalRedisStandIn;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.concurrent.TimeUnit;
+
+public class RedisLockMetricsTest {
+    private SimpleMeterRegistry registry;
+    private RedisLock redisLock;
+
+    @Before
+    public void before() {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        registry = new SimpleMeterRegistry();
+        redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING, new MicrometerLockMetrics(registry));
+    }
+
+    @Test
+    public void recordAcquireReentryAndHold() {
+        String lockValue = redisLock.tryLock("metrics:key", 1);
+        Assert.assertEquals(lockValue, redisLock.tryLock("metrics:key", 1));
+        Assert.assertNull(redisLock.tryLock("metrics:key", 0, -1L, LockOwner.of("other")));
+
+        Assert.assertEquals(1L, registry.get("redis.lock.acquire").tag("result", "acquired").timer().count());
+        Assert.assertEquals(1L, registry.get("redis.lock.acquire").tag("result", "timeout").timer().count());
+        Assert.assertEquals(1.0, registry.get("redis.lock.reentry").counter().count(), 0.0);
+
+        //重入释放不记录持有时长，最后一次释放时记录
+        Assert.assertTrue(redisLock.releaseLock("metrics:key", lockValue));
+        Assert.assertEquals(0L, registry.get("redis.lock.hold").timer().count());
+        Assert.assertTrue(redisLock.releaseLock("metrics:key", lockValue));
+        Assert.assertEquals(1L, registry.get("redis.lock.hold").timer().count());
+        Assert.assertTrue(registry.get("redis.lock.hold").timer().totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+}
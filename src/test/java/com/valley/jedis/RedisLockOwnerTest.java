@@ -0,0 +1,216 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 锁持有者相关测试，使用进程内redis替身运行。运行环境支持虚拟线程(JDK21+)时使用虚拟线程，否则使用平台线程。
+ */
+public class RedisLockOwnerTest {
+    private static final String LOCK_KEY = "testOwnerLock";
+    private static final int THREAD_COUNT = 2000;
+
+    private LocalRedisStandIn redis;
+    private UnifiedJedis jedis;
+    private RedisLock redisLock;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis, LockWaitMode.POLLING);
+    }
+
+    @Test
+    public void reentryByThread() {
+        String lockValue = redisLock.tryLock(LOCK_KEY, 1);
+        Assert.assertNotNull(lockValue);
+        Assert.assertEquals(lockValue, redisLock.tryLock(LOCK_KEY, 1));
+
+        Assert.assertTrue(redisLock.releaseLock(LOCK_KEY, lockValue));
+        Assert.assertEquals(lockValue, jedis.get(LOCK_KEY));
+        Assert.assertTrue(redisLock.releaseLock(LOCK_KEY, lockValue));
+        Assert.assertNull(jedis.get(LOCK_KEY));
+    }
+
+    @Test
+    public void explicitOwnerAcrossThreads() throws InterruptedException {
+        LockOwner owner = LockOwner.of("request-1");
+        String lockValue = redisLock.tryLock(LOCK_KEY, 1, -1L, owner);
+        Assert.assertNotNull(lockValue);
+
+        final String[] reentered = new String[1];
+        Thread thread = start(() -> reentered[0] = redisLock.tryLock(LOCK_KEY, 1, -1L, LockOwner.of("request-1")));
+        thread.join();
+        Assert.assertEquals(lockValue, reentered[0]);
+
+        //其他持有者无法重入和释放
+        Assert.assertNull(redisLock.tryLock(LOCK_KEY, 0));
+        Assert.assertFalse(redisLock.releaseLock(LOCK_KEY, lockValue));
+
+        final boolean[] released = new boolean[2];
+        thread = start(() -> {
+            released[0] = redisLock.releaseLock(LOCK_KEY, lockValue, owner);
+            released[1] = redisLock.releaseLock(LOCK_KEY, lockValue, owner);
+        });
+        thread.join();
+        Assert.assertTrue(released[0]);
+        Assert.assertTrue(released[1]);
+        Assert.assertNull(jedis.get(LOCK_KEY));
+    }
+
+    @Test
+    public void currentThreadOwnerIsCached() throws InterruptedException {
+        LockOwner owner = LockOwner.currentThread();
+        Assert.assertSame(owner, LockOwner.currentThread());
+        Assert.assertTrue(owner.isAlive());
+
+        LockOwner[] otherOwner = new LockOwner[1];
+        start(() -> otherOwner[0] = LockOwner.currentThread()).join();
+        Assert.assertNotEquals(owner, otherOwner[0]);
+        Assert.assertFalse(otherOwner[0].isAlive());
+    }
+
+    @Test
+    public void manyThreadsContendOneKey() throws InterruptedException {
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger acquired = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            start(() -> {
+                try {
+                    String lockValue = redisLock.tryLock(LOCK_KEY, 60);
+                    if (lockValue == null) {
+                        return;
+                    }
+                    if (holders.incrementAndGet() != 1) {
+                        violations.incrementAndGet();
+                    }
+                    //重入
+                    String reentered = redisLock.tryLock(LOCK_KEY, 1);
+                    acquired.incrementAndGet();
+                    holders.decrementAndGet();
+                    boolean released = redisLock.releaseLock(LOCK_KEY, lockValue) & redisLock.releaseLock(LOCK_KEY, lockValue);
+                    if (!lockValue.equals(reentered) || !released) {
+                        throw new AssertionError("reentered:" + reentered + " lockValue:" + lockValue + " released:" + released);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        //工作线程中的断言失败不会使测试失败，统一在主线程检查
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError(failures.size() + " threads failed");
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+        Assert.assertEquals(0, violations.get());
+        Assert.assertEquals(THREAD_COUNT, acquired.get());
+        Assert.assertNull(jedis.get(LOCK_KEY));
+    }
+
+    @Test
+    public void manyThreadsManyKeys() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger acquired = new AtomicInteger();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            String lockKey = LOCK_KEY + ":" + i;
+            threads.add(start(() -> {
+                String lockValue = redisLock.tryLock(lockKey, 1);
+                if (lockValue != null && redisLock.releaseLock(lockKey, lockValue)) {
+                    acquired.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(THREAD_COUNT, acquired.get());
+    }
+
+    @Test
+    public void pollingWaiterWokenByLocalRelease() throws InterruptedException {
+        RedisLock pollingLock = new RedisLock(() -> jedis, LockWaitMode.POLLING);
+        String lockValue = pollingLock.tryLock(LOCK_KEY, 1);
+        Assert.assertNotNull(lockValue);
+
+        long[] acquiredAt = new long[1];
+        Thread waiter = start(() -> {
+            String waiterValue = pollingLock.tryLock(LOCK_KEY, 10);
+            acquiredAt[0] = System.nanoTime();
+            pollingLock.releaseLock(LOCK_KEY, waiterValue);
+        });
+        //等待退避时间增长到数百毫秒
+        Thread.sleep(800L);
+        long releasedAt = System.nanoTime();
+        Assert.assertTrue(pollingLock.releaseLock(LOCK_KEY, lockValue));
+        waiter.join();
+
+        //本进程内释放锁后立即唤醒，不必等待退避结束
+        long handoffMillis = (acquiredAt[0] - releasedAt) / 1_000_000L;
+        Assert.assertTrue("handoff took " + handoffMillis + "ms", handoffMillis < 100L);
+        Assert.assertNull(jedis.get(LOCK_KEY));
+    }
+
+    @Test
+    public void redisNotifyWakesWaiterInOtherInstance() throws Exception {
+        //两个实例不共享本地等待队列，只能通过redis释放通知唤醒，相当于两个进程
+        RedisLock holderLock = new RedisLock(() -> jedis, LockWaitMode.REDIS_NOTIFY);
+        RedisLock waiterLock = new RedisLock(() -> redis.newClient(), LockWaitMode.REDIS_NOTIFY);
+        String lockValue = holderLock.tryLock(LOCK_KEY, 1);
+        Assert.assertNotNull(lockValue);
+
+        FutureTask<Long> waiter = new FutureTask<>(() -> {
+            String waiterValue = waiterLock.tryLock(LOCK_KEY, 10);
+            long acquiredAt = System.nanoTime();
+            Assert.assertNotNull(waiterValue);
+            Assert.assertTrue(waiterLock.releaseLock(LOCK_KEY, waiterValue));
+            return acquiredAt;
+        });
+        new Thread(waiter).start();
+        //等待退避时间增长到数百毫秒
+        Thread.sleep(800L);
+        long releasedAt = System.nanoTime();
+        Assert.assertTrue(holderLock.releaseLock(LOCK_KEY, lockValue));
+
+        //等待线程中的断言失败时由get抛出
+        long handoffMillis = (waiter.get(10, TimeUnit.SECONDS) - releasedAt) / 1_000_000L;
+        Assert.assertTrue("handoff took " + handoffMillis + "ms", handoffMillis < 100L);
+        Assert.assertNull(jedis.get(LOCK_KEY));
+    }
+
+    /**
+     * 支持虚拟线程时启动虚拟线程
+     */
+    private static Thread start(Runnable task) {
+        try {
+            Method startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+            return (Thread) startVirtualThread.invoke(null, task);
+        } catch (ReflectiveOperationException e) {
+            Thread thread = new Thread(task);
+            thread.start();
+            return thread;
+        }
+    }
+}
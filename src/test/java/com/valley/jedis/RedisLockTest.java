@@ -118,4 +118,14 @@ public class RedisLockTest {
         }
     }
 
+    @Test
+    public void tryLockAsync() throws Exception {
+        String lockValue = redisLock.tryLockAsync(LOCK_KEY, 2).get();
+        Assert.assertNotNull(lockValue);
+        Assert.assertNull(redisLock.tryLockAsync(LOCK_KEY, 1).get());
+        //异步获取的锁归属于锁标识而非调用线程，可在其他线程释放
+        Assert.assertTrue(redisLock.releaseLockAsync(LOCK_KEY, lockValue).get());
+        Assert.assertFalse(redisLock.releaseLockAsync(LOCK_KEY, lockValue).get());
+    }
+
 }
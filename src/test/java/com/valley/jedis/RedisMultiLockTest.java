@@ -0,0 +1,102 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RedisMultiLockTest {
+    private static final List<String> LOCK_KEYS = Arrays.asList("order:1", "inventory:1", "account:1");
+
+    private LocalRedisStandIn redis;
+    private UnifiedJedis jedis;
+    private RedisLock redisLock;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+    }
+
+    @Test
+    public void acquireAndReleaseAllKeys() {
+        long commandsBefore = redis.getCommandCount();
+        String lockValue = redisLock.tryLock(LOCK_KEYS, 1);
+        Assert.assertNotNull(lockValue);
+        //EVALSHA返回NOSCRIPT + SCRIPT LOAD + EVALSHA，脚本加载后每次加锁仅一次往返
+        Assert.assertTrue(redis.getCommandCount() - commandsBefore <= 3);
+        for (String lockKey : LOCK_KEYS) {
+            Assert.assertEquals(lockValue, jedis.get(lockKey));
+        }
+        Assert.assertNull(redisLock.tryLock("inventory:1", 0));
+
+        //重入
+        Assert.assertEquals(lockValue, redisLock.tryLock(Arrays.asList("account:1", "order:1", "inventory:1"), 0));
+        Assert.assertTrue(redisLock.releaseLock(LOCK_KEYS, lockValue));
+        Assert.assertEquals(lockValue, jedis.get("order:1"));
+        Assert.assertTrue(redisLock.releaseLock(LOCK_KEYS, lockValue));
+        for (String lockKey : LOCK_KEYS) {
+            Assert.assertNull(jedis.get(lockKey));
+        }
+    }
+
+    @Test
+    public void allOrNothing() {
+        String singleLockValue = redisLock.tryLock("inventory:1", 1);
+        Assert.assertNotNull(singleLockValue);
+
+        Assert.assertNull(redisLock.tryLock(LOCK_KEYS, 0));
+        Assert.assertNull(jedis.get("order:1"));
+        Assert.assertNull(jedis.get("account:1"));
+
+        Assert.assertTrue(redisLock.releaseLock("inventory:1", singleLockValue));
+        String lockValue = redisLock.tryLock(LOCK_KEYS, 1);
+        Assert.assertNotNull(lockValue);
+        Assert.assertFalse(redisLock.releaseLock(LOCK_KEYS, lockValue + "_"));
+        Assert.assertTrue(redisLock.releaseLock(LOCK_KEYS, lockValue));
+    }
+
+    @Test
+    public void plainLockNamedLikeMultiLock() {
+        String multiLockValue = redisLock.tryLock(Collections.singletonList("a"), 1);
+        Assert.assertNotNull(multiLockValue);
+
+        //同一线程申请普通锁"multi:a"不能命中多key锁的重入
+        String plainLockValue = redisLock.tryLock("multi:a", 1);
+        Assert.assertNotNull(plainLockValue);
+        Assert.assertNotEquals(multiLockValue, plainLockValue);
+        Assert.assertEquals(plainLockValue, jedis.get("multi:a"));
+        Assert.assertEquals(multiLockValue, jedis.get("a"));
+
+        //两把锁互不替换，均可正常释放
+        Assert.assertTrue(redisLock.releaseLock(Collections.singletonList("a"), multiLockValue));
+        Assert.assertNull(jedis.get("a"));
+        Assert.assertEquals(plainLockValue, jedis.get("multi:a"));
+        Assert.assertTrue(redisLock.releaseLock("multi:a", plainLockValue));
+        Assert.assertNull(jedis.get("multi:a"));
+    }
+
+    @Test
+    public void multiLockNamedLikePlainLock() {
+        String plainLockValue = redisLock.tryLock("order:1,account:1", 1);
+        Assert.assertNotNull(plainLockValue);
+
+        //同一线程申请多key锁不能命中同名普通锁的重入
+        String multiLockValue = redisLock.tryLock(Arrays.asList("order:1", "account:1"), 1);
+        Assert.assertNotNull(multiLockValue);
+        Assert.assertNotEquals(plainLockValue, multiLockValue);
+        Assert.assertEquals(multiLockValue, jedis.get("order:1"));
+
+        Assert.assertTrue(redisLock.releaseLock("order:1,account:1", plainLockValue));
+        Assert.assertEquals(multiLockValue, jedis.get("account:1"));
+        Assert.assertTrue(redisLock.releaseLock(Arrays.asList("order:1", "account:1"), multiLockValue));
+        Assert.assertNull(jedis.get("order:1"));
+    }
+}
@@ -0,0 +1,187 @@
+package com.valley.jedis;
+
+import com.valley.jedis.client.factory.RedisFactory;
+import com.valley.jedis.lock.LockConfig;
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.RedisQuorumLock;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RedisQuorumLockTest {
+    private static final String LOCK_KEY = "quorum:order";
+
+    private final List<LocalRedisStandIn> nodes = new ArrayList<>();
+    private final List<RedisFactory> redisFactories = new ArrayList<>();
+
+    @Before
+    public void before() {
+        for (int i = 0; i < 3; i++) {
+            addNode(new LocalRedisStandIn());
+        }
+    }
+
+    private void addNode(LocalRedisStandIn redis) {
+        UnifiedJedis jedis = redis.newClient();
+        nodes.add(redis);
+        redisFactories.add(() -> jedis);
+    }
+
+    @Test
+    public void acquireOnMajority() {
+        RedisQuorumLock quorumLock = new RedisQuorumLock(redisFactories);
+        Assert.assertEquals(2, quorumLock.getQuorum());
+        nodes.get(2).set(LOCK_KEY, "other", 0L);
+
+        String lockValue = quorumLock.tryLock(LOCK_KEY, 0);
+        Assert.assertNotNull(lockValue);
+        Assert.assertEquals(lockValue, nodes.get(0).get(LOCK_KEY));
+        Assert.assertEquals(lockValue, nodes.get(1).get(LOCK_KEY));
+        Assert.assertEquals(lockValue, quorumLock.tryLock(LOCK_KEY, 0));
+        Assert.assertNull(quorumLock.tryLock(LOCK_KEY, 0, LockOwner.of("other")));
+
+        Assert.assertTrue(quorumLock.releaseLock(LOCK_KEY, lockValue));
+        Assert.assertTrue(nodes.get(0).exists(LOCK_KEY));
+        Assert.assertTrue(quorumLock.releaseLock(LOCK_KEY, lockValue));
+        Assert.assertFalse(nodes.get(0).exists(LOCK_KEY));
+        Assert.assertFalse(nodes.get(1).exists(LOCK_KEY));
+        Assert.assertEquals("other", nodes.get(2).get(LOCK_KEY));
+    }
+
+    @Test
+    public void minorityReleased() {
+        RedisQuorumLock quorumLock = new RedisQuorumLock(redisFactories);
+        nodes.get(1).set(LOCK_KEY, "other", 0L);
+        nodes.get(2).set(LOCK_KEY, "other", 0L);
+
+        Assert.assertNull(quorumLock.tryLock(LOCK_KEY, 0));
+        //未达到多数派时已获取的节点被释放
+        Assert.assertFalse(nodes.get(0).exists(LOCK_KEY));
+    }
+
+    @Test
+    public void nodesAccessedInParallel() {
+        redisFactories.clear();
+        nodes.clear();
+        for (int i = 0; i < 3; i++) {
+            addNode(new SlowStandIn(300L));
+        }
+        RedisQuorumLock quorumLock = new RedisQuorumLock(redisFactories);
+        long startMillis = System.currentTimeMillis();
+        String lockValue = quorumLock.tryLock(LOCK_KEY, 0);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        Assert.assertNotNull(lockValue);
+        //串行访问3个节点至少需要900ms
+        Assert.assertTrue("elapsed:" + elapsedMillis, elapsedMillis < 600L);
+        Assert.assertTrue(quorumLock.releaseLock(LOCK_KEY, lockValue));
+    }
+
+    @Test
+    public void renewAndDetectLoss() throws InterruptedException {
+        RedisQuorumLock quorumLock = new RedisQuorumLock(redisFactories, 1000L);
+        CountDownLatch lost = new CountDownLatch(1);
+        quorumLock.addLockLostListener((lockKey, lockValue) -> lost.countDown());
+        String lockValue = quorumLock.tryLock(LOCK_KEY, 0);
+        Assert.assertNotNull(lockValue);
+
+        //超过多个租约周期后所有节点仍持有锁
+        Thread.sleep(2500L);
+        for (LocalRedisStandIn node : nodes) {
+            Assert.assertEquals(lockValue, node.get(LOCK_KEY));
+        }
+
+        //多数节点上的锁被其他持有者获取
+        nodes.get(0).set(LOCK_KEY, "other", 0L);
+        nodes.get(1).set(LOCK_KEY, "other", 0L);
+        Assert.assertTrue(lost.await(2, TimeUnit.SECONDS));
+        Assert.assertFalse(quorumLock.isHeldByCurrentThread(LOCK_KEY));
+        //丢失后释放仍持有的节点
+        Assert.assertFalse(nodes.get(2).exists(LOCK_KEY));
+        quorumLock.close();
+    }
+
+    @Test
+    public void expiredLocalHolderReportedLost() {
+        RedisQuorumLock quorumLock = new RedisQuorumLock(redisFactories);
+        List<String> lostValues = new ArrayList<>();
+        quorumLock.addLockLostListener((lockKey, lockValue) -> lostValues.add(lockValue));
+        String staleValue = quorumLock.tryLock(LOCK_KEY, 0, LockOwner.of("stale"));
+        Assert.assertNotNull(staleValue);
+
+        //续期前锁已在所有节点过期，被本进程其他持有者获取
+        for (LocalRedisStandIn node : nodes) {
+            node.set(LOCK_KEY, staleValue, System.currentTimeMillis() - 1L);
+        }
+        LockOwner owner = LockOwner.of("current");
+        String lockValue = quorumLock.tryLock(LOCK_KEY, 0, owner);
+        Assert.assertNotNull(lockValue);
+        Assert.assertEquals(Collections.singletonList(staleValue), lostValues);
+        Assert.assertFalse(quorumLock.releaseLock(LOCK_KEY, staleValue, LockOwner.of("stale")));
+
+        Assert.assertTrue(quorumLock.releaseLock(LOCK_KEY, lockValue, owner));
+        for (LocalRedisStandIn node : nodes) {
+            Assert.assertFalse(node.exists(LOCK_KEY));
+        }
+    }
+
+    @Test
+    public void stalledNodeBoundedByNodeTimeout() {
+        CountDownLatch resume = new CountDownLatch(1);
+        redisFactories.remove(2);
+        nodes.remove(2);
+        addNode(new LocalRedisStandIn() {
+            @Override
+            public <T> T executeCommand(CommandObject<T> commandObject) {
+                //节点无响应，直至测试结束
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.executeCommand(commandObject);
+            }
+        });
+        nodes.get(1).set(LOCK_KEY, "other", 0L);
+        RedisQuorumLock quorumLock = new RedisQuorumLock(redisFactories);
+        try {
+            //一个节点拒绝、一个节点无响应时无法达到多数派，最长等待节点超时时间而非租约时长
+            long startMillis = System.currentTimeMillis();
+            Assert.assertNull(quorumLock.tryLock(LOCK_KEY, 0));
+            long elapsedMillis = System.currentTimeMillis() - startMillis;
+            Assert.assertTrue("elapsed:" + elapsedMillis, elapsedMillis < 4 * LockConfig.DEFAULT_QUORUM_LOCK_NODE_TIMEOUT_MILLIS);
+            Assert.assertFalse(nodes.get(0).exists(LOCK_KEY));
+        } finally {
+            resume.countDown();
+        }
+    }
+
+    /**
+     * 每条命令固定延迟的替身节点
+     */
+    private static class SlowStandIn extends LocalRedisStandIn {
+        private final long latencyMillis;
+
+        private SlowStandIn(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public <T> T executeCommand(CommandObject<T> commandObject) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.executeCommand(commandObject);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.lock.RedisReadWriteLock;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+public class RedisReadWriteLockTest {
+    private static final String LOCK_KEY = "rw:config";
+
+    private UnifiedJedis jedis;
+    private RedisLock redisLock;
+
+    @Before
+    public void before() {
+        LocalRedisStandIn redis = new LocalRedisStandIn();
+        jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+    }
+
+    @Test
+    public void readersShareWriterExcludes() {
+        RedisReadWriteLock readWriteLock = new RedisReadWriteLock(redisLock);
+        LockOwner readerA = LockOwner.of("readerA");
+        LockOwner readerB = LockOwner.of("readerB");
+        LockOwner writer = LockOwner.of("writer");
+
+        String valueA = readWriteLock.tryReadLock(LOCK_KEY, 0, readerA);
+        String valueB = readWriteLock.tryReadLock(LOCK_KEY, 0, readerB);
+        Assert.assertNotNull(valueA);
+        Assert.assertNotNull(valueB);
+        Assert.assertNull(readWriteLock.tryWriteLock(LOCK_KEY, 0, writer));
+
+        Assert.assertTrue(readWriteLock.releaseReadLock(LOCK_KEY, valueA, readerA));
+        Assert.assertNull(readWriteLock.tryWriteLock(LOCK_KEY, 0, writer));
+        Assert.assertFalse(readWriteLock.releaseReadLock(LOCK_KEY, valueB, readerA));
+        Assert.assertTrue(readWriteLock.releaseReadLock(LOCK_KEY, valueB, readerB));
+
+        String writeValue = readWriteLock.tryWriteLock(LOCK_KEY, 0, writer);
+        Assert.assertNotNull(writeValue);
+        Assert.assertNull(readWriteLock.tryReadLock(LOCK_KEY, 0, readerA));
+        Assert.assertNull(readWriteLock.tryWriteLock(LOCK_KEY, 0, readerB));
+        Assert.assertTrue(readWriteLock.releaseWriteLock(LOCK_KEY, writeValue, writer));
+        Assert.assertFalse(jedis.exists(LOCK_KEY));
+    }
+
+    @Test
+    public void reentry() {
+        RedisReadWriteLock readWriteLock = new RedisReadWriteLock(redisLock);
+
+        String readValue = readWriteLock.tryReadLock(LOCK_KEY, 0);
+        Assert.assertEquals(readValue, readWriteLock.tryReadLock(LOCK_KEY, 0));
+        Assert.assertTrue(readWriteLock.releaseReadLock(LOCK_KEY, readValue));
+        Assert.assertTrue(jedis.exists(LOCK_KEY));
+        Assert.assertTrue(readWriteLock.releaseReadLock(LOCK_KEY, readValue));
+        Assert.assertFalse(jedis.exists(LOCK_KEY));
+
+        String writeValue = readWriteLock.tryWriteLock(LOCK_KEY, 0);
+        Assert.assertEquals(writeValue, readWriteLock.tryWriteLock(LOCK_KEY, 0));
+        Assert.assertTrue(readWriteLock.releaseWriteLock(LOCK_KEY, writeValue));
+        Assert.assertTrue(jedis.exists(LOCK_KEY));
+        Assert.assertTrue(readWriteLock.releaseWriteLock(LOCK_KEY, writeValue));
+        Assert.assertFalse(jedis.exists(LOCK_KEY));
+    }
+
+    @Test
+    public void writerPreferred() {
+        RedisReadWriteLock readWriteLock = new RedisReadWriteLock(redisLock, true);
+        LockOwner readerA = LockOwner.of("readerA");
+        LockOwner readerB = LockOwner.of("readerB");
+        LockOwner writer = LockOwner.of("writer");
+
+        String valueA = readWriteLock.tryReadLock(LOCK_KEY, 0, readerA);
+        Assert.assertNotNull(valueA);
+        //写锁等待期间新的读锁需要排队，已持有读锁的持有者仍可重入
+        Assert.assertNull(readWriteLock.tryWriteLock(LOCK_KEY, 0, writer));
+        Assert.assertNull(readWriteLock.tryReadLock(LOCK_KEY, 0, readerB));
+        Assert.assertEquals(valueA, readWriteLock.tryReadLock(LOCK_KEY, 0, readerA));
+
+        Assert.assertTrue(readWriteLock.releaseReadLock(LOCK_KEY, valueA, readerA));
+        Assert.assertTrue(readWriteLock.releaseReadLock(LOCK_KEY, valueA, readerA));
+        String writeValue = readWriteLock.tryWriteLock(LOCK_KEY, 0, writer);
+        Assert.assertNotNull(writeValue);
+        Assert.assertTrue(readWriteLock.releaseWriteLock(LOCK_KEY, writeValue, writer));
+        Assert.assertNotNull(readWriteLock.tryReadLock(LOCK_KEY, 0, readerB));
+    }
+
+    @Test
+    public void plainLockNamedLikeWriteLock() {
+        RedisReadWriteLock readWriteLock = new RedisReadWriteLock(redisLock);
+        String writeValue = readWriteLock.tryWriteLock("config", 0);
+        Assert.assertNotNull(writeValue);
+
+        //同一线程申请普通锁"write:config"不能命中写锁的重入，也不能替换写锁的锁状态
+        String plainValue = redisLock.tryLock("write:config", 0);
+        Assert.assertNotNull(plainValue);
+        Assert.assertNotEquals(writeValue, plainValue);
+        Assert.assertEquals(plainValue, jedis.get("write:config"));
+
+        Assert.assertEquals(writeValue, readWriteLock.tryWriteLock("config", 0));
+        Assert.assertTrue(readWriteLock.releaseWriteLock("config", writeValue));
+        Assert.assertTrue(readWriteLock.releaseWriteLock("config", writeValue));
+        Assert.assertFalse(jedis.exists("config"));
+        Assert.assertTrue(redisLock.releaseLock("write:config", plainValue));
+    }
+}
@@ -0,0 +1,30 @@
+package com.valley.jedis;
+
+import com.valley.jedis.client.factory.RedisFactory;
+import com.valley.jedis.client.factory.SimpleRedisFactory;
+import com.valley.jedis.script.RedisScript;
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.Collections;
+
+public class RedisScriptTest {
+    private static final String SCRIPT_KEY = "testScript";
+
+    @Test
+    public void evalReloadsAfterScriptFlush() {
+        RedisFactory redisFactory = new SimpleRedisFactory();
+        UnifiedJedis jedis = redisFactory.getUnifiedJedis();
+        RedisScript script = new RedisScript("return redis.call(\"set\",KEYS[1],ARGV[1])");
+
+        jedis.scriptFlush();
+        Assert.assertEquals("OK", script.eval(jedis, Collections.singletonList(SCRIPT_KEY), Collections.singletonList("v1")));
+        Assert.assertEquals(Collections.singletonList(true), jedis.scriptExists(Collections.singletonList(script.getSha1())));
+
+        jedis.scriptFlush();
+        Assert.assertEquals("OK", script.eval(jedis, Collections.singletonList(SCRIPT_KEY), Collections.singletonList("v2")));
+        Assert.assertEquals("v2", jedis.get(SCRIPT_KEY));
+        Assert.assertTrue(jedis.del(SCRIPT_KEY) > 0L);
+    }
+}
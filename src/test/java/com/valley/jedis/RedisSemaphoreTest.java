@@ -0,0 +1,88 @@
+package com.valley.jedis;
+
+import com.valley.jedis.lock.LockOwner;
+import com.valley.jedis.lock.LockWaitMode;
+import com.valley.jedis.lock.RedisLock;
+import com.valley.jedis.lock.RedisSemaphore;
+import com.valley.jedis.metrics.LockMetrics;
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RedisSemaphoreTest {
+    private static final String SEMAPHORE_KEY = "semaphore:downstream";
+
+    private LocalRedisStandIn redis;
+    private RedisLock redisLock;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+        UnifiedJedis jedis = redis.newClient();
+        redisLock = new RedisLock(() -> jedis);
+    }
+
+    @Test
+    public void acquireUpToPermits() {
+        RedisSemaphore semaphore = new RedisSemaphore(redisLock, SEMAPHORE_KEY, 3);
+        String first = semaphore.tryAcquire(0, LockOwner.of("pod-1"));
+        Assert.assertNotNull(first);
+
+        //脚本加载后每次获取许可仅一次往返
+        long commandsBefore = redis.getCommandCount();
+        String second = semaphore.tryAcquire(0, LockOwner.of("pod-2"));
+        Assert.assertEquals(1, redis.getCommandCount() - commandsBefore);
+        String third = semaphore.tryAcquire(0);
+        Assert.assertNotNull(second);
+        Assert.assertNotNull(third);
+        Assert.assertNull(semaphore.tryAcquire(0));
+
+        Assert.assertTrue(semaphore.release(second));
+        Assert.assertFalse(semaphore.release(second));
+        String fourth = semaphore.tryAcquire(0);
+        Assert.assertNotNull(fourth);
+
+        Assert.assertTrue(semaphore.release(first));
+        Assert.assertTrue(semaphore.release(third));
+        Assert.assertTrue(semaphore.release(fourth));
+        Assert.assertFalse(redis.exists(SEMAPHORE_KEY));
+    }
+
+    @Test
+    public void expiredLeasesArePurged() {
+        //其他进程崩溃后遗留的过期租约
+        Map<String, Long> leases = new HashMap<>();
+        leases.put("crashed", System.currentTimeMillis() - 1L);
+        redis.setObject(SEMAPHORE_KEY, leases);
+
+        RedisSemaphore semaphore = new RedisSemaphore(redisLock, SEMAPHORE_KEY, 1);
+        String leaseId = semaphore.tryAcquire(0);
+        Assert.assertNotNull(leaseId);
+        Assert.assertNull(semaphore.tryAcquire(0));
+        Assert.assertTrue(semaphore.release(leaseId));
+    }
+
+    @Test
+    public void leaseExpiresByServerClock() throws InterruptedException {
+        //客户端时钟比redis服务端慢，偏差超过租约时长
+        redis.setClockOffset(5000L);
+        UnifiedJedis jedis = redis.newClient();
+        RedisLock shortLease = new RedisLock(() -> jedis, LockWaitMode.POLLING, LockMetrics.NOOP, 1000L);
+        RedisSemaphore semaphore = new RedisSemaphore(shortLease, SEMAPHORE_KEY, 1);
+        String leaseId = semaphore.tryAcquire(0, LockOwner.of("pod-1"));
+        Assert.assertNotNull(leaseId);
+        Assert.assertNull(semaphore.tryAcquire(0, LockOwner.of("pod-2")));
+
+        //续期后租约仍按服务端时间计算
+        Thread.sleep(1500L);
+        Map<String, Long> leases = redis.getObject(SEMAPHORE_KEY);
+        Assert.assertTrue(leases.get(leaseId) > redis.now());
+        Assert.assertNull(semaphore.tryAcquire(0, LockOwner.of("pod-2")));
+        Assert.assertTrue(semaphore.release(leaseId));
+    }
+}
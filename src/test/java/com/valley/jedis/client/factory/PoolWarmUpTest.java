@@ -0,0 +1,135 @@
+package com.valley.jedis.client.factory;
+
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionPool;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PoolWarmUpTest {
+
+    @Test
+    public void fullPoolAndClientConfig() {
+        RedisProperties properties = RedisProperties.load("tunedJedis.properties");
+        GenericObjectPoolConfig<Connection> poolConfig = properties.poolConfig();
+        Assert.assertEquals(32, poolConfig.getMaxTotal());
+        Assert.assertEquals(16, poolConfig.getMaxIdle());
+        Assert.assertEquals(4, poolConfig.getMinIdle());
+        Assert.assertEquals(Duration.ofMillis(200), poolConfig.getMaxWaitDuration());
+        Assert.assertFalse(poolConfig.getTestOnBorrow());
+        Assert.assertTrue(poolConfig.getTestWhileIdle());
+        Assert.assertEquals(Duration.ofSeconds(30), poolConfig.getDurationBetweenEvictionRuns());
+        Assert.assertFalse(properties.isWarmUp());
+
+        JedisClientConfig clientConfig = properties.clientConfig();
+        Assert.assertEquals(2, clientConfig.getDatabase());
+        Assert.assertEquals("order-service", clientConfig.getClientName());
+        Assert.assertEquals(500, clientConfig.getConnectionTimeoutMillis());
+        Assert.assertEquals(800, clientConfig.getSocketTimeoutMillis());
+        Assert.assertNull(clientConfig.getPassword());
+    }
+
+    @Test
+    public void warmUpNodesInParallel() {
+        Map<String, GenericObjectPool<Object>> pools = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            GenericObjectPoolConfig<Object> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMinIdle(4);
+            pools.put("node-" + i, new GenericObjectPool<>(new SlowObjectFactory(200L), poolConfig));
+        }
+        long startMillis = System.currentTimeMillis();
+        Assert.assertEquals(12, PoolWarmUp.warmUp(pools, 5000L));
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        for (GenericObjectPool<Object> pool : pools.values()) {
+            Assert.assertEquals(4, pool.getNumIdle());
+            pool.close();
+        }
+        //串行建立12个连接至少需要2400ms
+        Assert.assertTrue("elapsed:" + elapsedMillis, elapsedMillis < 1200L);
+    }
+
+    @Test
+    public void sentinelMasterPoolFollowsMaster() {
+        HostAndPort oldMaster = new HostAndPort("10.0.0.1", 6379);
+        HostAndPort newMaster = new HostAndPort("10.0.0.2", 6379);
+        AtomicReference<HostAndPort> currentMaster = new AtomicReference<>(oldMaster);
+        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMinIdle(4);
+        SentinelMasterProvider provider = new SentinelMasterProvider(currentMaster::get,
+                hostAndPort -> new ConnectionPool(new SlowConnectionFactory(0L), poolConfig), () -> {
+                });
+        Assert.assertEquals(4, PoolWarmUp.warmUp(provider.getPools(), 5000L));
+        Connection borrowed = provider.getConnection();
+        GenericObjectPool<?> oldPool = provider.getPools().get(oldMaster.toString());
+        Assert.assertEquals(1, oldPool.getNumActive());
+        Assert.assertEquals(3, oldPool.getNumIdle());
+
+        //主从切换后统计新master的连接池，旧连接池关闭，借出的连接归还时销毁
+        currentMaster.set(newMaster);
+        Map<String, GenericObjectPool<?>> pools = provider.getPools();
+        Assert.assertEquals(Collections.singleton(newMaster.toString()), pools.keySet());
+        Assert.assertTrue(oldPool.isClosed());
+        borrowed.close();
+        Assert.assertEquals(0, oldPool.getNumActive());
+        provider.getConnection().close();
+        Assert.assertEquals(1, pools.get(newMaster.toString()).getNumIdle());
+        provider.close();
+        Assert.assertTrue(pools.get(newMaster.toString()).isClosed());
+    }
+
+    /**
+     * 创建对象耗时固定的连接工厂
+     */
+    private static class SlowObjectFactory extends BasePooledObjectFactory<Object> {
+        private final long createMillis;
+
+        private SlowObjectFactory(long createMillis) {
+            this.createMillis = createMillis;
+        }
+
+        @Override
+        public Object create() throws Exception {
+            Thread.sleep(createMillis);
+            return new Object();
+        }
+
+        @Override
+        public PooledObject<Object> wrap(Object obj) {
+            return new DefaultPooledObject<>(obj);
+        }
+    }
+
+    /**
+     * 创建耗时固定、不建立网络连接的连接工厂
+     */
+    private static class SlowConnectionFactory extends BasePooledObjectFactory<Connection> {
+        private final long createMillis;
+
+        private SlowConnectionFactory(long createMillis) {
+            this.createMillis = createMillis;
+        }
+
+        @Override
+        public Connection create() throws Exception {
+            Thread.sleep(createMillis);
+            return new Connection();
+        }
+
+        @Override
+        public PooledObject<Connection> wrap(Connection connection) {
+            return new DefaultPooledObject<>(connection);
+        }
+    }
+}
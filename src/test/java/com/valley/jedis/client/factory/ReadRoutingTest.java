@@ -0,0 +1,109 @@
+package com.valley.jedis.client.factory;
+
+import com.valley.jedis.lock.LockConfig;
+import org.junit.Assert;
+import org.junit.Test;
+import redis.clients.jedis.CommandObjects;
+import redis.clients.jedis.HostAndPort;
+
+import java.util.*;
+
+public class ReadRoutingTest {
+    private final CommandObjects commandObjects = new CommandObjects();
+
+    @Test
+    public void parseReadPreference() {
+        Assert.assertEquals(ReadPreference.MASTER, ReadPreference.parse(null));
+        Assert.assertEquals(ReadPreference.REPLICA_PREFERRED, ReadPreference.parse("replica-preferred"));
+        Assert.assertEquals(ReadPreference.NEAREST, ReadPreference.parse(" Nearest "));
+
+        RedisProperties properties = RedisProperties.load("tunedJedis.properties");
+        Assert.assertEquals(ReadPreference.REPLICA_PREFERRED, properties.getReadPreference());
+        Assert.assertEquals(5000L, properties.getReadRefreshMillis());
+        Assert.assertEquals(ReadPreference.MASTER, RedisProperties.load("registryJedis.properties").getReadPreference());
+        try {
+            ReadPreference.parse("slave");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            //未知策略
+        }
+    }
+
+    @Test
+    public void onlyReadCommandsRouted() {
+        Assert.assertTrue(ReadOnlyCommands.isReadOnly(commandObjects.get("key").getArguments()));
+        Assert.assertTrue(ReadOnlyCommands.isReadOnly(commandObjects.hgetAll("key").getArguments()));
+        Assert.assertFalse(ReadOnlyCommands.isReadOnly(commandObjects.set("key", "value").getArguments()));
+        Assert.assertFalse(ReadOnlyCommands.isReadOnly(commandObjects.blpop(1, "key").getArguments()));
+        //锁脚本始终发往master
+        Assert.assertFalse(ReadOnlyCommands.isReadOnly(commandObjects.evalsha(LockConfig.RELEASE_LOCK_SCRIPT.getSha1(),
+                Collections.singletonList("key"), Collections.singletonList("value")).getArguments()));
+    }
+
+    @Test
+    public void replicaPreferred() {
+        ReadRouter router = new ReadRouter(ReadPreference.REPLICA_PREFERRED);
+        RoutingNode master = node(6379);
+        RoutingNode replica1 = node(6380);
+        RoutingNode replica2 = node(6381);
+        List<RoutingNode> replicas = Arrays.asList(replica1, replica2);
+
+        Set<RoutingNode> selected = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            selected.add(router.select(master, replicas));
+        }
+        Assert.assertEquals(new HashSet<>(replicas), selected);
+
+        replica1.markUnavailable();
+        for (int i = 0; i < 4; i++) {
+            Assert.assertSame(replica2, router.select(master, replicas));
+        }
+        replica2.markUnavailable();
+        Assert.assertSame(master, router.select(master, replicas));
+        Assert.assertSame(master, router.select(master, Collections.emptyList()));
+    }
+
+    @Test
+    public void nearest() {
+        ReadRouter router = new ReadRouter(ReadPreference.NEAREST);
+        RoutingNode master = node(6379);
+        RoutingNode replica1 = node(6380);
+        RoutingNode replica2 = node(6381);
+        List<RoutingNode> replicas = Arrays.asList(replica1, replica2);
+        master.recordLatency(300_000L);
+        replica1.recordLatency(500_000L);
+        replica2.recordLatency(200_000L);
+        Assert.assertSame(replica2, router.select(master, replicas));
+
+        replica2.markUnavailable();
+        Assert.assertSame(master, router.select(master, replicas));
+        //未探测的节点不参与比较
+        Assert.assertSame(master, router.select(master, Collections.singletonList(node(6382))));
+    }
+
+    @Test
+    public void parseClusterTopology() {
+        List<Object> slots = Arrays.asList(
+                slot(0L, 8191L, hostInfo("10.0.0.1", 7000L), hostInfo("10.0.0.2", 7001L)),
+                slot(8192L, 16383L, hostInfo("10.0.0.3", 7000L), hostInfo("10.0.0.4", 7001L), hostInfo("?", 7002L)),
+                slot(100L, 200L, hostInfo("10.0.0.1", 7000L)));
+        Map<HostAndPort, Set<HostAndPort>> topology = ClusterReadRoutingProvider.parseTopology(slots);
+        Assert.assertEquals(2, topology.size());
+        Assert.assertEquals(Collections.singleton(new HostAndPort("10.0.0.2", 7001)), topology.get(new HostAndPort("10.0.0.1", 7000)));
+        Assert.assertEquals(Collections.singleton(new HostAndPort("10.0.0.4", 7001)), topology.get(new HostAndPort("10.0.0.3", 7000)));
+    }
+
+    private static RoutingNode node(int port) {
+        return new RoutingNode(new HostAndPort("127.0.0.1", port), null);
+    }
+
+    private static List<Object> slot(long start, long end, List<Object>... nodes) {
+        List<Object> slot = new ArrayList<>(Arrays.asList(start, end));
+        slot.addAll(Arrays.asList(nodes));
+        return slot;
+    }
+
+    private static List<Object> hostInfo(String host, long port) {
+        return Arrays.asList(host.getBytes(), port, "id".getBytes());
+    }
+}
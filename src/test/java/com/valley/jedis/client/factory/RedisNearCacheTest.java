@@ -0,0 +1,117 @@
+package com.valley.jedis.client.factory;
+
+import com.valley.jedis.support.LocalRedisStandIn;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.CommandObject;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class RedisNearCacheTest {
+    private LocalRedisStandIn redis;
+
+    @Before
+    public void before() {
+        redis = new LocalRedisStandIn();
+    }
+
+    private RedisNearCache newNearCache(int maxSize, long ttlMillis) {
+        RedisNearCache nearCache = new RedisNearCache(redis.newClient(), maxSize, ttlMillis, Arrays.asList("config:", "flag:"));
+        nearCache.setTracking(true);
+        return nearCache;
+    }
+
+    @Test
+    public void nearCacheConfig() {
+        RedisProperties properties = RedisProperties.load("tunedJedis.properties");
+        Assert.assertFalse(properties.isNearCacheEnabled());
+        Assert.assertEquals(500, properties.getNearCacheMaxSize());
+        Assert.assertEquals(Arrays.asList("config:", "flag:"), properties.getNearCachePrefixes());
+        Assert.assertEquals(Collections.emptyList(), RedisProperties.load("registryJedis.properties").getNearCachePrefixes());
+    }
+
+    @Test
+    public void hitAfterFirstRead() {
+        RedisNearCache nearCache = newNearCache(100, 60_000L);
+        redis.set("config:timeout", "3000", 0L);
+        Assert.assertEquals("3000", nearCache.get("config:timeout"));
+        long commandCount = redis.getCommandCount();
+        Assert.assertEquals("3000", nearCache.get("config:timeout"));
+        Assert.assertNull(nearCache.get("flag:missing"));
+        Assert.assertNull(nearCache.get("flag:missing"));
+
+        Assert.assertEquals(commandCount + 1, redis.getCommandCount());
+        Assert.assertEquals(2, nearCache.getHitCount());
+        Assert.assertEquals(2, nearCache.getMissCount());
+        Assert.assertEquals(2, nearCache.size());
+    }
+
+    @Test
+    public void invalidatedOnNotification() {
+        RedisNearCache nearCache = newNearCache(100, 60_000L);
+        redis.set("config:timeout", "3000", 0L);
+        Assert.assertEquals("3000", nearCache.get("config:timeout"));
+        redis.set("config:timeout", "5000", 0L);
+        nearCache.invalidate("config:timeout");
+        Assert.assertEquals("5000", nearCache.get("config:timeout"));
+        Assert.assertEquals(1, nearCache.getInvalidationCount());
+    }
+
+    @Test
+    public void bypassWithoutTracking() {
+        RedisNearCache nearCache = newNearCache(100, 60_000L);
+        redis.set("config:timeout", "3000", 0L);
+        redis.set("order:1", "paid", 0L);
+        Assert.assertEquals("3000", nearCache.get("config:timeout"));
+
+        //失效通知断开期间清空缓存并直接读取redis
+        nearCache.setTracking(false);
+        Assert.assertEquals(0, nearCache.size());
+        Assert.assertEquals("3000", nearCache.get("config:timeout"));
+        Assert.assertEquals(0, nearCache.size());
+
+        //前缀外的key不缓存
+        nearCache.setTracking(true);
+        Assert.assertEquals("paid", nearCache.get("order:1"));
+        Assert.assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    public void expireAndEvict() throws InterruptedException {
+        RedisNearCache nearCache = newNearCache(10, 50L);
+        redis.set("config:timeout", "3000", 0L);
+        Assert.assertEquals("3000", nearCache.get("config:timeout"));
+        redis.set("config:timeout", "5000", 0L);
+        Thread.sleep(80L);
+        Assert.assertEquals("5000", nearCache.get("config:timeout"));
+
+        for (int i = 0; i < 30; i++) {
+            nearCache.get("flag:" + i);
+        }
+        Assert.assertTrue(nearCache.size() <= 10);
+        Assert.assertTrue(nearCache.getEvictionCount() >= 20);
+    }
+
+    @Test
+    public void invalidationDuringLoad() {
+        RedisNearCache[] nearCache = new RedisNearCache[1];
+        LocalRedisStandIn invalidatingRedis = new LocalRedisStandIn() {
+            @Override
+            public <T> T executeCommand(CommandObject<T> commandObject) {
+                T result = super.executeCommand(commandObject);
+                //读取返回前key被修改
+                nearCache[0].invalidate("config:timeout");
+                return result;
+            }
+        };
+        invalidatingRedis.set("config:timeout", "3000", 0L);
+        nearCache[0] = new RedisNearCache(invalidatingRedis.newClient(), 100, 60_000L, Collections.emptyList());
+        nearCache[0].setTracking(true);
+
+        Assert.assertEquals("3000", nearCache[0].get("config:timeout"));
+        //读取期间失效的结果不写入缓存
+        Assert.assertEquals(0, nearCache[0].size());
+    }
+}
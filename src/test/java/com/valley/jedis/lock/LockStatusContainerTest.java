@@ -0,0 +1,105 @@
+package com.valley.jedis.lock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+
+public class LockStatusContainerTest {
+    private static final long TICK_MILLIS = 100L;
+
+    @Test
+    public void pollOnlyDueLocks() {
+        LockStatusContainer container = new LockStatusContainer(TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        LockStatus due = new LockStatus(now + 1000L, "due", "v1", true);
+        LockStatus notDue = new LockStatus(now + 100 * 1000L, "notDue", "v2", true);
+        container.add(due, now);
+        container.add(notDue, now + 50 * 1000L);
+
+        Collection<LockStatus> polled = container.pollDue(now + TICK_MILLIS);
+        Assert.assertEquals(1, polled.size());
+        Assert.assertTrue(polled.contains(due));
+        //取出后需重新调度
+        Assert.assertTrue(container.pollDue(now + 2 * TICK_MILLIS).isEmpty());
+
+        container.schedule(due, now + 3 * TICK_MILLIS);
+        Assert.assertTrue(container.pollDue(now + 2 * TICK_MILLIS).isEmpty());
+        Assert.assertTrue(container.pollDue(now + 3 * TICK_MILLIS).contains(due));
+        Assert.assertTrue(container.pollDue(now + 50 * 1000L).contains(notDue));
+    }
+
+    @Test
+    public void removedLocksAreNotPolled() {
+        LockStatusContainer container = new LockStatusContainer(TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        LockStatus status = new LockStatus(now + 1000L, "key", "v1", true);
+        container.add(status, now);
+        container.remove(LockType.REENTRANT, "key", "other");
+        Assert.assertSame(status, container.getLockStatus(LockType.REENTRANT, "key"));
+
+        container.remove(LockType.REENTRANT, "key", "v1");
+        Assert.assertNull(container.getLockStatus(LockType.REENTRANT, "key"));
+        Assert.assertTrue(container.pollDue(now + TICK_MILLIS).isEmpty());
+    }
+
+    @Test
+    public void scheduleIntoProcessedTickIsPolledNextTime() {
+        LockStatusContainer container = new LockStatusContainer(TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        container.pollDue(now + 5 * TICK_MILLIS);
+        LockStatus status = new LockStatus(now + 1000L, "key", "v1", true);
+        container.add(status, now + 2 * TICK_MILLIS);
+        Assert.assertTrue(container.pollDue(now + 5 * TICK_MILLIS).contains(status));
+    }
+
+    @Test
+    public void pollAfterLongPause() {
+        LockStatusContainer container = new LockStatusContainer(TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        LockStatus status = new LockStatus(now + 1000L, "key", "v1", true);
+        container.add(status, now + 10 * TICK_MILLIS);
+        Assert.assertTrue(container.pollDue(now + 10000 * TICK_MILLIS).contains(status));
+        Assert.assertEquals(1, container.size());
+    }
+
+    @Test
+    public void nextDueAtFollowsEarliestLock() {
+        LockStatusContainer container = new LockStatusContainer(TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        Assert.assertEquals(Long.MAX_VALUE, container.nextDueAt());
+
+        LockStatus later = new LockStatus(now + 1000L, "later", "v1", true);
+        LockStatus earlier = new LockStatus(now + 1000L, "earlier", "v2", true);
+        container.add(later, now + 20 * TICK_MILLIS);
+        container.add(earlier, now + 5 * TICK_MILLIS);
+        Assert.assertEquals((now + 5 * TICK_MILLIS) / TICK_MILLIS * TICK_MILLIS, container.nextDueAt());
+
+        container.remove(LockType.REENTRANT, "earlier", "v2");
+        container.pollDue(now + 5 * TICK_MILLIS);
+        Assert.assertEquals((now + 20 * TICK_MILLIS) / TICK_MILLIS * TICK_MILLIS, container.nextDueAt());
+    }
+
+    @Test
+    public void sameKeyOfDifferentTypesCoexist() {
+        LockStatusContainer container = new LockStatusContainer(TICK_MILLIS);
+        long now = System.currentTimeMillis();
+        LockStatus reentrant = new LockStatus(now + 1000L, "key", "v1", true);
+        LockStatus fair = new LockStatus(now + 1000L, "key", "v2", true, null, 0L, LockType.FAIR, Collections.singletonList("key"));
+        container.add(reentrant, now + 5 * TICK_MILLIS);
+        container.add(fair, now + 5 * TICK_MILLIS);
+
+        Assert.assertEquals(2, container.size());
+        Assert.assertSame(reentrant, container.getLockStatus(LockType.REENTRANT, "key"));
+        Assert.assertSame(fair, container.getLockStatus(LockType.FAIR, "key"));
+        //互不替换，两者均继续参与调度
+        Collection<LockStatus> polled = container.pollDue(now + 5 * TICK_MILLIS);
+        Assert.assertTrue(polled.contains(reentrant));
+        Assert.assertTrue(polled.contains(fair));
+
+        Assert.assertNull(container.remove(LockType.FAIR, "key", "v1"));
+        Assert.assertSame(fair, container.remove(LockType.FAIR, "key", "v2"));
+        Assert.assertSame(reentrant, container.getLockStatus(LockType.REENTRANT, "key"));
+    }
+}
@@ -0,0 +1,695 @@
+package com.valley.jedis.support;
+
+import com.valley.jedis.lock.LockConfig;
+import com.valley.jedis.script.RedisScript;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.CommandObjects;
+import redis.clients.jedis.PipelineBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.args.Rawable;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.executors.CommandExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单元测试使用的进程内redis替身
+ * <p>仅实现本项目用到的命令，lua脚本通过SHA1注册对应的java实现。所有命令串行执行，与redis单线程语义一致。</p>
+ */
+public class LocalRedisStandIn implements CommandExecutor {
+
+    /**
+     * lua脚本的java实现
+     */
+    public interface ScriptHandler {
+        Object run(LocalRedisStandIn redis, List<String> keys, List<String> args);
+    }
+
+    private static class Entry {
+        private Object value;
+        private long expireAt;
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+    }
+
+    private final Map<String, Entry> data = new HashMap<>();
+    private final Map<String, ScriptHandler> scripts = new HashMap<>();
+    private final Set<String> loadedScripts = new HashSet<>();
+    private final AtomicLong commandCount = new AtomicLong();
+    private volatile long clockOffsetMillis;
+
+    public LocalRedisStandIn() {
+        registerScript(LockConfig.RELEASE_LOCK_SCRIPT, (redis, keys, args) -> {
+            if (args.get(0).equals(redis.get(keys.get(0)))) {
+                return redis.del(keys.get(0));
+            }
+            return 0L;
+        });
+        registerScript(LockConfig.PROLONG_LOCK_SCRIPT, (redis, keys, args) -> {
+            if (args.get(0).equals(redis.get(keys.get(0)))) {
+                return redis.pexpireAt(keys.get(0), redis.now() + Long.parseLong(args.get(1)));
+            }
+            return 0L;
+        });
+        registerScript(LockConfig.RELEASE_LOCK_AND_SIGNAL_SCRIPT, (redis, keys, args) -> {
+            if (args.get(0).equals(redis.get(keys.get(0)))) {
+                redis.del(keys.get(0));
+                redis.rpush(keys.get(1), "1");
+                redis.ltrim(keys.get(1), 1);
+                redis.pexpireAt(keys.get(1), redis.now() + Long.parseLong(args.get(1)));
+                return 1L;
+            }
+            return 0L;
+        });
+        registerScript(LockConfig.PROLONG_QUORUM_LOCK_SCRIPT, (redis, keys, args) -> {
+            if (args.get(0).equals(redis.get(keys.get(0)))) {
+                return redis.pexpireAt(keys.get(0), redis.now() + Long.parseLong(args.get(1)));
+            }
+            return 0L;
+        });
+        registerScript(LockConfig.ACQUIRE_FENCED_LOCK_SCRIPT, (redis, keys, args) -> {
+            if (!redis.setNx(keys.get(0), args.get(0), redis.now() + Long.parseLong(args.get(1)))) {
+                return 0L;
+            }
+            return redis.incr(keys.get(1));
+        });
+        registerScript(LockConfig.ACQUIRE_MULTI_LOCK_SCRIPT, (redis, keys, args) -> {
+            for (String key : keys) {
+                if (redis.get(key) != null) {
+                    return 0L;
+                }
+            }
+            for (String key : keys) {
+                redis.set(key, args.get(0), redis.now() + Long.parseLong(args.get(1)));
+            }
+            return 1L;
+        });
+        registerScript(LockConfig.PROLONG_MULTI_LOCK_SCRIPT, (redis, keys, args) -> {
+            for (String key : keys) {
+                if (!args.get(0).equals(redis.get(key))) {
+                    return 0L;
+                }
+            }
+            for (String key : keys) {
+                redis.pexpireAt(key, redis.now() + Long.parseLong(args.get(1)));
+            }
+            return 1L;
+        });
+        registerScript(LockConfig.RELEASE_MULTI_LOCK_SCRIPT, (redis, keys, args) -> {
+            long released = 0L;
+            for (String key : keys) {
+                if (args.get(0).equals(redis.get(key))) {
+                    released += redis.del(key);
+                }
+            }
+            return released;
+        });
+        registerScript(LockConfig.ACQUIRE_READ_LOCK_SCRIPT, (redis, keys, args) -> {
+            Map<String, String> hash = redis.getObject(keys.get(0));
+            if ((hash != null && hash.containsKey("writer")) || (keys.size() > 1 && redis.get(keys.get(1)) != null)) {
+                return 0L;
+            }
+            return prolongReader(redis, keys.get(0), args.get(0), Long.parseLong(args.get(1)), true);
+        });
+        registerScript(LockConfig.PROLONG_READ_LOCK_SCRIPT, (redis, keys, args) ->
+                prolongReader(redis, keys.get(0), args.get(0), Long.parseLong(args.get(1)), false));
+        registerScript(LockConfig.RELEASE_READ_LOCK_SCRIPT, (redis, keys, args) -> {
+            Map<String, String> hash = redis.getObject(keys.get(0));
+            if (hash == null || hash.remove("reader:" + args.get(0)) == null) {
+                return 0L;
+            }
+            if (hash.size() <= 1) {
+                redis.del(keys.get(0));
+            }
+            return 1L;
+        });
+        registerScript(LockConfig.ACQUIRE_WRITE_LOCK_SCRIPT, (redis, keys, args) -> {
+            Map<String, String> hash = redis.getObject(keys.get(0));
+            long now = Long.parseLong(args.get(2));
+            if (hash != null) {
+                hash.entrySet().removeIf(field -> field.getKey().startsWith("reader:") && Long.parseLong(field.getValue()) < now);
+                boolean hasReader = hash.keySet().stream().anyMatch(field -> field.startsWith("reader:"));
+                if (hasReader || hash.containsKey("writer")) {
+                    if (keys.size() > 1) {
+                        redis.set(keys.get(1), args.get(0), redis.now() + Long.parseLong(args.get(3)));
+                    }
+                    return 0L;
+                }
+            }
+            Map<String, String> newHash = new HashMap<>();
+            newHash.put("writer", args.get(0));
+            newHash.put("expireAt", args.get(1));
+            redis.del(keys.get(0));
+            redis.setObject(keys.get(0), newHash);
+            redis.pexpireAt(keys.get(0), Long.parseLong(args.get(1)));
+            if (keys.size() > 1) {
+                redis.del(keys.get(1));
+            }
+            return 1L;
+        });
+        registerScript(LockConfig.PROLONG_WRITE_LOCK_SCRIPT, (redis, keys, args) -> {
+            Map<String, String> hash = redis.getObject(keys.get(0));
+            if (hash == null || !args.get(0).equals(hash.get("writer"))) {
+                return 0L;
+            }
+            hash.put("expireAt", args.get(1));
+            return redis.pexpireAt(keys.get(0), Long.parseLong(args.get(1)));
+        });
+        registerScript(LockConfig.RELEASE_WRITE_LOCK_SCRIPT, (redis, keys, args) -> {
+            Map<String, String> hash = redis.getObject(keys.get(0));
+            if (hash == null || !args.get(0).equals(hash.get("writer"))) {
+                return 0L;
+            }
+            return redis.del(keys.get(0));
+        });
+        registerScript(LockConfig.ACQUIRE_SEMAPHORE_SCRIPT, (redis, keys, args) -> {
+            Map<String, Long> leases = redis.getObject(keys.get(0));
+            if (leases == null) {
+                leases = new HashMap<>();
+            }
+            long now = redis.now();
+            leases.values().removeIf(expireAt -> expireAt < now);
+            if (leases.size() >= Integer.parseInt(args.get(2))) {
+                return 0L;
+            }
+            leases.put(args.get(0), now + Long.parseLong(args.get(1)));
+            redis.setObject(keys.get(0), leases);
+            redis.pexpireAt(keys.get(0), Collections.max(leases.values()));
+            return 1L;
+        });
+        registerScript(LockConfig.PROLONG_SEMAPHORE_SCRIPT, (redis, keys, args) -> {
+            Map<String, Long> leases = redis.getObject(keys.get(0));
+            if (leases == null || !leases.containsKey(args.get(0))) {
+                return 0L;
+            }
+            leases.put(args.get(0), redis.now() + Long.parseLong(args.get(1)));
+            redis.pexpireAt(keys.get(0), Collections.max(leases.values()));
+            return 1L;
+        });
+        registerScript(LockConfig.RELEASE_SEMAPHORE_SCRIPT, (redis, keys, args) -> {
+            Map<String, Long> leases = redis.getObject(keys.get(0));
+            if (leases == null || leases.remove(args.get(0)) == null) {
+                return 0L;
+            }
+            if (leases.isEmpty()) {
+                redis.del(keys.get(0));
+            }
+            return 1L;
+        });
+        registerScript(LockConfig.ACQUIRE_FAIR_LOCK_SCRIPT, (redis, keys, args) -> {
+            long now = redis.now();
+            LinkedList<String> queue = redis.getObject(keys.get(1));
+            Map<String, Long> timeouts = redis.getObject(keys.get(2));
+            if (queue == null) {
+                queue = new LinkedList<>();
+                timeouts = new HashMap<>();
+            }
+            while (!queue.isEmpty()) {
+                Long timeout = timeouts.get(queue.getFirst());
+                if (timeout != null && timeout >= now) {
+                    break;
+                }
+                timeouts.remove(queue.removeFirst());
+            }
+            String holder = redis.get(keys.get(0));
+            long leaseMillis = Long.parseLong(args.get(1));
+            if (args.get(0).equals(holder)) {
+                redis.pexpireAt(keys.get(0), now + leaseMillis);
+                return 1L;
+            }
+            if (holder == null && (queue.isEmpty() || queue.getFirst().equals(args.get(0)))) {
+                if (!queue.isEmpty()) {
+                    timeouts.remove(queue.removeFirst());
+                }
+                redis.set(keys.get(0), args.get(0), now + leaseMillis);
+                return 1L;
+            }
+            if (!timeouts.containsKey(args.get(0))) {
+                queue.addLast(args.get(0));
+            }
+            long waiterTimeoutMillis = Long.parseLong(args.get(2));
+            timeouts.put(args.get(0), now + waiterTimeoutMillis);
+            redis.setObject(keys.get(1), queue);
+            redis.setObject(keys.get(2), timeouts);
+            redis.pexpireAt(keys.get(1), now + waiterTimeoutMillis);
+            redis.pexpireAt(keys.get(2), now + waiterTimeoutMillis);
+            return 0L;
+        });
+        registerScript(LockConfig.RELEASE_FAIR_LOCK_SCRIPT, (redis, keys, args) -> {
+            LinkedList<String> queue = redis.getObject(keys.get(1));
+            Map<String, Long> timeouts = redis.getObject(keys.get(2));
+            if (queue != null) {
+                queue.remove(args.get(0));
+                timeouts.remove(args.get(0));
+            }
+            if (!args.get(0).equals(redis.get(keys.get(0)))) {
+                return 0L;
+            }
+            long now = redis.now();
+            while (queue != null && !queue.isEmpty()) {
+                String head = queue.removeFirst();
+                Long timeout = timeouts.remove(head);
+                if (timeout != null && timeout >= now) {
+                    redis.set(keys.get(0), head, now + LockConfig.FAIR_LOCK_WAITER_TIMEOUT_MILLIS);
+                    return 1L;
+                }
+            }
+            return redis.del(keys.get(0));
+        });
+    }
+
+    /**
+     * 读锁加锁/续活，读锁不存在且不允许新增时返回0
+     */
+    private static long prolongReader(LocalRedisStandIn redis, String key, String lockValue, long expireAt, boolean create) {
+        Map<String, String> hash = redis.getObject(key);
+        if (!create && (hash == null || !hash.containsKey("reader:" + lockValue))) {
+            return 0L;
+        }
+        if (hash == null) {
+            hash = new HashMap<>();
+            redis.setObject(key, hash);
+        }
+        hash.put("reader:" + lockValue, String.valueOf(expireAt));
+        if (expireAt > Long.parseLong(hash.getOrDefault("expireAt", "0"))) {
+            hash.put("expireAt", String.valueOf(expireAt));
+            redis.pexpireAt(key, expireAt);
+        }
+        return 1L;
+    }
+
+    /**
+     * 注册脚本实现
+     */
+    public synchronized void registerScript(RedisScript script, ScriptHandler handler) {
+        scripts.put(script.getSha1(), handler);
+    }
+
+    /**
+     * 模拟节点重启/主从切换后脚本缓存丢失
+     */
+    public synchronized void flushScripts() {
+        loadedScripts.clear();
+    }
+
+    public synchronized void flushAll() {
+        data.clear();
+    }
+
+    /**
+     * 服务端时间，即TIME命令的返回值
+     */
+    public long now() {
+        return System.currentTimeMillis() + clockOffsetMillis;
+    }
+
+    /**
+     * 模拟服务端与客户端的时钟偏差，正数表示服务端时钟快于客户端
+     */
+    public void setClockOffset(long clockOffsetMillis) {
+        this.clockOffsetMillis = clockOffsetMillis;
+    }
+
+    /**
+     * 已执行的命令数量（pipeline中的每条命令单独计数）
+     */
+    public long getCommandCount() {
+        return commandCount.get();
+    }
+
+    /**
+     * 基于当前替身创建客户端
+     */
+    public UnifiedJedis newClient() {
+        return new StandInJedis(this);
+    }
+
+    // ---------------- 数据操作，供脚本实现调用 ----------------
+
+    public synchronized String get(String key) {
+        Entry entry = entry(key);
+        return entry == null ? null : (String) entry.value;
+    }
+
+    public synchronized boolean setNx(String key, String value, long expireAt) {
+        if (entry(key) != null) {
+            return false;
+        }
+        set(key, value, expireAt);
+        return true;
+    }
+
+    public synchronized void set(String key, String value, long expireAt) {
+        Entry entry = new Entry(value);
+        entry.expireAt = expireAt;
+        data.put(key, entry);
+    }
+
+    public synchronized long del(String key) {
+        return entry(key) != null && data.remove(key) != null ? 1L : 0L;
+    }
+
+    public synchronized boolean exists(String key) {
+        return entry(key) != null;
+    }
+
+    public synchronized long pexpireAt(String key, long expireAt) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return 0L;
+        }
+        entry.expireAt = expireAt;
+        return 1L;
+    }
+
+    public synchronized long pttl(String key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return -2L;
+        }
+        return entry.expireAt == 0L ? -1L : entry.expireAt - now();
+    }
+
+    public synchronized long incr(String key) {
+        Entry entry = entry(key);
+        long value = entry == null ? 1L : Long.parseLong((String) entry.value) + 1;
+        if (entry == null) {
+            data.put(key, new Entry(String.valueOf(value)));
+        } else {
+            entry.value = String.valueOf(value);
+        }
+        return value;
+    }
+
+    public synchronized long rpush(String key, String value) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            entry = new Entry(new LinkedList<String>());
+            data.put(key, entry);
+        }
+        LinkedList<String> list = list(entry);
+        list.addLast(value);
+        notifyAll();
+        return list.size();
+    }
+
+    public synchronized String lpop(String key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return null;
+        }
+        LinkedList<String> list = list(entry);
+        String value = list.pollFirst();
+        if (list.isEmpty()) {
+            data.remove(key);
+        }
+        return value;
+    }
+
+    public synchronized void ltrim(String key, int size) {
+        Entry entry = entry(key);
+        if (entry != null) {
+            LinkedList<String> list = list(entry);
+            while (list.size() > size) {
+                list.removeLast();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LinkedList<String> list(Entry entry) {
+        return (LinkedList<String>) entry.value;
+    }
+
+    /**
+     * 任意类型的值，脚本实现可自行维护hash/zset等结构
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T getObject(String key) {
+        Entry entry = entry(key);
+        return entry == null ? null : (T) entry.value;
+    }
+
+    public synchronized void setObject(String key, Object value) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            data.put(key, new Entry(value));
+        } else {
+            entry.value = value;
+        }
+    }
+
+    private Entry entry(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAt != 0L && entry.expireAt <= now()) {
+            data.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    // ---------------- 命令执行 ----------------
+
+    @Override
+    public <T> T executeCommand(CommandObject<T> commandObject) {
+        Object raw = execute(commandObject);
+        if (raw instanceof JedisDataException) {
+            throw (JedisDataException) raw;
+        }
+        return commandObject.getBuilder().build(raw);
+    }
+
+    private Object execute(CommandObject<?> commandObject) {
+        commandCount.incrementAndGet();
+        Iterator<Rawable> iterator = commandObject.getArguments().iterator();
+        String command = new String(iterator.next().getRaw(), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+        List<String> args = new ArrayList<>();
+        while (iterator.hasNext()) {
+            args.add(new String(iterator.next().getRaw(), StandardCharsets.UTF_8));
+        }
+        try {
+            return encode(dispatch(command, args));
+        } catch (JedisDataException e) {
+            return e;
+        }
+    }
+
+    private Object dispatch(String command, List<String> args) {
+        switch (command) {
+            case "PING":
+                return "PONG";
+            case "GET":
+                return get(args.get(0));
+            case "SET":
+                return set(args);
+            case "DEL":
+                long deleted = 0L;
+                for (String key : args) {
+                    deleted += del(key);
+                }
+                return deleted;
+            case "EXISTS":
+                long exists = 0L;
+                for (String key : args) {
+                    exists += exists(key) ? 1L : 0L;
+                }
+                return exists;
+            case "PEXPIREAT":
+                return pexpireAt(args.get(0), Long.parseLong(args.get(1)));
+            case "PTTL":
+                return pttl(args.get(0));
+            case "INCR":
+                return incr(args.get(0));
+            case "RPUSH":
+                long size = 0L;
+                for (int i = 1; i < args.size(); i++) {
+                    size = rpush(args.get(0), args.get(i));
+                }
+                return size;
+            case "BLPOP":
+                return blpop(args);
+            case "SCRIPT":
+                return script(args);
+            case "EVAL":
+                return evalsha(sha1(args.get(0)), args.subList(1, args.size()), true);
+            case "EVALSHA":
+                return evalsha(args.get(0), args.subList(1, args.size()), false);
+            default:
+                throw new JedisDataException("ERR unknown command '" + command + "' in LocalRedisStandIn");
+        }
+    }
+
+    private Object set(List<String> args) {
+        String key = args.get(0);
+        String value = args.get(1);
+        boolean nx = false;
+        long expireAt = 0L;
+        for (int i = 2; i < args.size(); i++) {
+            String option = args.get(i).toUpperCase(Locale.ROOT);
+            if ("NX".equals(option)) {
+                nx = true;
+            } else if ("PXAT".equals(option)) {
+                expireAt = Long.parseLong(args.get(++i));
+            } else if ("PX".equals(option)) {
+                expireAt = now() + Long.parseLong(args.get(++i));
+            } else {
+                throw new JedisDataException("ERR unsupported SET option " + option);
+            }
+        }
+        if (nx) {
+            return setNx(key, value, expireAt) ? "OK" : null;
+        }
+        set(key, value, expireAt);
+        return "OK";
+    }
+
+    private synchronized Object blpop(List<String> args) {
+        double timeoutSeconds = Double.parseDouble(args.get(args.size() - 1));
+        long deadline = now() + (long) (timeoutSeconds * 1000);
+        List<String> keys = args.subList(0, args.size() - 1);
+        while (true) {
+            for (String key : keys) {
+                String value = lpop(key);
+                if (value != null) {
+                    return Arrays.asList(key, value);
+                }
+            }
+            long remaining = deadline - now();
+            if (timeoutSeconds > 0 && remaining <= 0) {
+                return null;
+            }
+            try {
+                wait(timeoutSeconds > 0 ? remaining : 0L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private synchronized Object script(List<String> args) {
+        String subCommand = args.get(0).toUpperCase(Locale.ROOT);
+        switch (subCommand) {
+            case "LOAD":
+                String sha1 = sha1(args.get(1));
+                loadedScripts.add(sha1);
+                return sha1;
+            case "FLUSH":
+                loadedScripts.clear();
+                return "OK";
+            case "EXISTS":
+                List<Long> exists = new ArrayList<>();
+                for (String sha : args.subList(1, args.size())) {
+                    exists.add(loadedScripts.contains(sha) ? 1L : 0L);
+                }
+                return exists;
+            default:
+                throw new JedisDataException("ERR unsupported SCRIPT subcommand " + subCommand);
+        }
+    }
+
+    private Object evalsha(String sha1, List<String> args, boolean load) {
+        ScriptHandler handler;
+        synchronized (this) {
+            if (load) {
+                loadedScripts.add(sha1);
+            } else if (!loadedScripts.contains(sha1)) {
+                throw new JedisNoScriptException("NOSCRIPT No matching script. Please use EVAL.");
+            }
+            handler = scripts.get(sha1);
+        }
+        if (handler == null) {
+            throw new JedisDataException("ERR script " + sha1 + " is not emulated by LocalRedisStandIn");
+        }
+        int numKeys = Integer.parseInt(args.get(0));
+        List<String> keys = args.subList(1, 1 + numKeys);
+        List<String> argv = args.subList(1 + numKeys, args.size());
+        synchronized (this) {
+            return handler.run(this, keys, argv);
+        }
+    }
+
+    private static String sha1(String script) {
+        return new RedisScript(script).getSha1();
+    }
+
+    /**
+     * 转换为redis协议层的原始返回值
+     */
+    private static Object encode(Object value) {
+        if (value instanceof String) {
+            return ((String) value).getBytes(StandardCharsets.UTF_8);
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : null;
+        }
+        if (value instanceof Integer) {
+            return ((Integer) value).longValue();
+        }
+        if (value instanceof List) {
+            List<Object> encoded = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                encoded.add(encode(item));
+            }
+            return encoded;
+        }
+        return value;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * 支持pipeline的客户端，pipeline中的命令在提交时依次执行
+     */
+    private static class StandInJedis extends UnifiedJedis {
+        private final LocalRedisStandIn redis;
+
+        private StandInJedis(LocalRedisStandIn redis) {
+            super(redis);
+            this.redis = redis;
+        }
+
+        @Override
+        public PipelineBase pipelined() {
+            return new StandInPipeline(redis);
+        }
+    }
+
+    private static class StandInPipeline extends PipelineBase {
+        private final LocalRedisStandIn redis;
+        private final List<Map.Entry<CommandObject<?>, Response<?>>> commands = new ArrayList<>();
+
+        private StandInPipeline(LocalRedisStandIn redis) {
+            super(new CommandObjects());
+            this.redis = redis;
+        }
+
+        @Override
+        protected <T> Response<T> appendCommand(CommandObject<T> commandObject) {
+            Response<T> response = new Response<>(commandObject.getBuilder());
+            commands.add(new AbstractMap.SimpleEntry<>(commandObject, response));
+            return response;
+        }
+
+        @Override
+        public void sync() {
+            for (Map.Entry<CommandObject<?>, Response<?>> command : commands) {
+                command.getValue().set(redis.execute(command.getKey()));
+            }
+            commands.clear();
+        }
+
+        @Override
+        public void close() {
+            sync();
+        }
+    }
+}